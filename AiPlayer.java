@@ -0,0 +1,185 @@
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AiPlayer.java
+ * The computer opponent as an asynchronous service for the UI.
+ *
+ * move() copies the position on the caller's thread and answers with a
+ * CompletableFuture computed on one background thread, so the live board is
+ * never touched off the EDT. Cancelling the future stops the search within a
+ * few thousand nodes; an expired budget returns the best move found so far.
+ *
+ * Ponder mode: while the human thinks, ponder() searches our answer to their
+ * most likely replies (ranked like the search orders moves). If they play one
+ * of them, move() completes from that result at once. Only the m,n,k boards
+ * ponder; 3x3 is answered instantly anyway.
+ *
+ * warmUp() spends a short budget on throwaway searches right after startup,
+ * so the first real move does not pay for class loading and JIT compilation.
+ * Like pondering, it gives way as soon as a real move is requested.
+ */
+public final class AiPlayer {
+
+    private static final int PONDER_REPLIES = 8;
+
+    private final ThreadPoolExecutor thread = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(), r -> {
+                Thread t = new Thread(r, "neon-ai");
+                t.setDaemon(true);
+                return t;
+            });
+    private final boolean ponderEnabled = !"false".equals(System.getProperty("neon.ai.ponder"));
+
+    // AI thread only
+    private Tablebase tablebase;
+    private GameEngine engine;
+    private final Map<Long, Integer> pondered = new HashMap<>();   // position hash -> our reply
+
+    private volatile AtomicBoolean ponderStop = new AtomicBoolean(true);
+    private final AtomicLong ponderHits = new AtomicLong();
+
+    // Map (or build) the 3x3 tablebase in the background; live search until it is there
+    public void loadTablebase() {
+        thread.execute(() -> {
+            try {
+                tablebase = Tablebase.openOrGenerate(Tablebase.defaultPath());
+                if (engine != null) engine.tablebase(tablebase);
+            } catch (IOException ex) {
+                System.err.println("Tablebase unavailable, using live search: " + ex.getMessage());
+            }
+        });
+    }
+
+    // Best move for the side to move in position, computed from a private copy
+    public CompletableFuture<Integer> move(GameState position, long budgetMs) {
+        GameState snapshot = position.copy();
+        AtomicBoolean cancel = new AtomicBoolean();
+        CompletableFuture<Integer> result = new CompletableFuture<>();
+        result.whenComplete((mv, ex) -> {
+            if (result.isCancelled()) cancel.set(true);
+        });
+        stopPondering();
+        thread.execute(() -> {
+            if (cancel.get()) return;
+            try {
+                Integer ready = snapshot instanceof MnkBoard ? pondered.get(((MnkBoard) snapshot).hash()) : null;
+                if (ready != null && snapshot.isEmpty(ready)) {
+                    ponderHits.incrementAndGet();
+                    result.complete(ready);
+                    return;
+                }
+                result.complete(engineFor(snapshot).bestMove(snapshot, budgetMs, cancel));
+            } catch (RuntimeException ex) {
+                result.completeExceptionally(ex);
+            }
+        });
+        return result;
+    }
+
+    // Throwaway searches on random positions of rules for up to budgetMs; completes when done
+    public CompletableFuture<Void> warmUp(MnkRules rules, long budgetMs) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        AtomicBoolean stop = new AtomicBoolean();
+        ponderStop.set(true);
+        ponderStop = stop;
+        thread.execute(() -> {
+            try {
+                GameState b = GameSession.newBoard(rules);
+                GameEngine e = engineFor(b);
+                SplittableRandom rnd = new SplittableRandom(rules.cells());
+                int[] legal = new int[b.size()];
+                long end = System.nanoTime() + budgetMs * 1_000_000L;
+                while (!stop.get() && System.nanoTime() < end) {
+                    b.clear();
+                    for (int k = rnd.nextInt(Math.min(6, b.size() - 1)); k > 0 && b.winner() == GameState.EMPTY; k--) {
+                        b.play(legal[rnd.nextInt(b.legalMoves(legal))], b.toMove());
+                    }
+                    if (b.winner() == GameState.EMPTY && !b.isFull()) e.bestMove(b, Math.min(budgetMs, 50), stop);
+                }
+            } finally {
+                done.complete(null);
+            }
+        });
+        return done;
+    }
+
+    // Human to move in position: precompute our answers to their likeliest replies
+    public void ponder(GameState position, long budgetMs) {
+        if (!ponderEnabled || !(position instanceof MnkBoard)) return;
+        MnkBoard snapshot = (MnkBoard) position.copy();
+        AtomicBoolean stop = new AtomicBoolean();
+        ponderStop.set(true);
+        ponderStop = stop;
+        thread.execute(() -> {
+            pondered.clear();
+            if (stop.get() || snapshot.winner() != GameState.EMPTY || snapshot.isFull()) return;
+            GameEngine e = engineFor(snapshot);
+            int human = snapshot.toMove();
+            for (int reply : likelyReplies(snapshot, human)) {
+                if (stop.get()) return;
+                snapshot.play(reply, human);
+                int answer = e.bestMove(snapshot, budgetMs, stop);
+                // a cut-short search is not as good as a fresh one: keep finished ones only
+                if (!stop.get() && answer >= 0) pondered.put(snapshot.hash(), answer);
+                snapshot.undo(reply, human);
+            }
+        });
+    }
+
+    public void stopPondering() {
+        ponderStop.set(true);
+    }
+
+    public long ponderHits() { return ponderHits.get(); }
+    public int queueDepth() { return thread.getQueue().size(); }   // requests waiting behind the running one
+
+    public void shutdown() {
+        stopPondering();
+        thread.shutdownNow();
+    }
+
+    // AI thread only
+    private GameEngine engineFor(GameState board) {
+        MnkRules rules = board instanceof MnkBoard ? ((MnkBoard) board).rules()
+                : board instanceof UltimateBoard ? MnkRules.ULTIMATE : MnkRules.CLASSIC;
+        if (engine == null || engine.rules() != rules) {
+            if (engine != null) engine.shutdown();
+            int workers = ParallelSearch.defaultWorkers();
+            engine = new GameEngine(rules, workers).tablebase(tablebase)
+                    .strategy(AiStrategy.fromProperties(rules, workers));
+            pondered.clear();
+        }
+        return engine;
+    }
+
+    // Up to PONDER_REPLIES empty cells, best static score for side first
+    private static int[] likelyReplies(MnkBoard b, int side) {
+        boolean near = b.rules().restrictToNeighbourhood() && b.stones() > 0;
+        int[] best = new int[PONDER_REPLIES];
+        int[] score = new int[PONDER_REPLIES];
+        int n = 0;
+        for (int i = 0; i < b.size(); i++) {
+            if (!b.isEmpty(i) || (near && !b.hasNeighbour(i))) continue;
+            int s = b.moveScore(i, side);
+            if (n == best.length && s <= score[n - 1]) continue;
+            int j = n < best.length ? n++ : n - 1;
+            while (j > 0 && score[j - 1] < s) {
+                best[j] = best[j - 1];
+                score[j] = score[j - 1];
+                j--;
+            }
+            best[j] = i;
+            score[j] = s;
+        }
+        return java.util.Arrays.copyOf(best, n);
+    }
+}
@@ -0,0 +1,39 @@
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * AiStrategy.java
+ * A move selector the engine can plug in: alpha-beta, tablebase or MCTS.
+ *
+ * Implementations keep whatever they learn between calls (tables, trees), so
+ * one instance serves one game stream on one thread at a time.
+ */
+public interface AiStrategy {
+
+    String name();
+
+    // Best cell for the side to move, or -1 if the game is over. The board may be
+    // used as scratch space but is restored; cancel (nullable) cuts the search short.
+    int bestMove(GameState board, long budgetMillis, AtomicBoolean cancel);
+
+    default void shutdown() {}
+
+    // "alphabeta", "mcts" or "mcts:<difficulty>" (easy, medium, hard, max)
+    static AiStrategy forName(String spec, MnkRules rules, int workers) {
+        String[] parts = spec.toLowerCase(java.util.Locale.ROOT).split(":", 2);
+        switch (parts[0]) {
+            case "alphabeta":
+            case "ab":
+                return new AlphaBetaStrategy(rules, workers);
+            case "mcts":
+                MctsSearch.Difficulty d = parts.length > 1 ? MctsSearch.Difficulty.forName(parts[1]) : MctsSearch.Difficulty.MAX;
+                return new MctsSearch(rules, workers, d);
+            default:
+                throw new IllegalArgumentException("unknown strategy " + spec + " (alphabeta, mcts[:easy|medium|hard|max])");
+        }
+    }
+
+    // From -Dneon.ai.strategy (default alphabeta)
+    static AiStrategy fromProperties(MnkRules rules, int workers) {
+        return forName(System.getProperty("neon.ai.strategy", "alphabeta"), rules, workers);
+    }
+}
@@ -0,0 +1,60 @@
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * AlphaBetaStrategy.java
+ * Exhaustive search: bitboard alpha-beta with a transposition table on 3x3,
+ * {@link UltimateSearch} on ultimate, {@link ParallelSearch} iterative deepening
+ * on the other larger boards.
+ */
+public final class AlphaBetaStrategy implements AiStrategy {
+
+    private final TranspositionTable table;   // 3x3
+    private final ParallelSearch search;      // larger variants
+    private final UltimateSearch ultimate;    // nested 9x9
+    private int depthLimit;                   // 0 = deepen until the budget runs out
+
+    public AlphaBetaStrategy(MnkRules rules, int workers) {
+        boolean classic = rules == MnkRules.CLASSIC;
+        table = classic ? new TranspositionTable(14) : null;
+        ultimate = rules.nested ? new UltimateSearch() : null;
+        search = classic || rules.nested ? null : new ParallelSearch(rules, workers);
+    }
+
+    @Override
+    public String name() { return "alphabeta"; }
+
+    public AlphaBetaStrategy depthLimit(int plies) {
+        depthLimit = plies;
+        return this;
+    }
+
+    // Nodes, beta cutoffs and completed depth of the last large-board search (0 on 3x3)
+    public long nodes() { return search != null ? search.nodes() : ultimate != null ? ultimate.nodes() : 0; }
+    public long cutoffs() { return search != null ? search.cutoffs() : ultimate != null ? ultimate.cutoffs() : 0; }
+    public int completedDepth() {
+        return search != null ? search.completedDepth() : ultimate != null ? ultimate.completedDepth() : 0;
+    }
+
+    @Override
+    public int bestMove(GameState board, long budgetMillis, AtomicBoolean cancel) {
+        if (board.winner() != GameState.EMPTY || board.isFull()) return -1;
+        if (board instanceof BitBoard) {
+            BitBoard b = (BitBoard) board;
+            int side = b.toMove();
+            return BitBoard.bestMove(b.mask(side), b.mask(GameState.opponent(side)), table);
+        }
+        if (board instanceof UltimateBoard) {
+            UltimateBoard u = (UltimateBoard) board;
+            if (depthLimit > 0) return ultimate.bestMove(u, budgetMillis, depthLimit, cancel);
+            long budget = budgetMillis > 0 ? Math.min(budgetMillis, UltimateSearch.MOVE_BUDGET_MS) : UltimateSearch.MOVE_BUDGET_MS;
+            return ultimate.bestMove(u, budget, UltimateSearch.DEFAULT_DEPTH, cancel);
+        }
+        MnkBoard b = (MnkBoard) board;
+        return search.bestMove(b, budgetMillis, depthLimit > 0 ? depthLimit : b.size() - b.stones(), cancel);
+    }
+
+    @Override
+    public void shutdown() {
+        if (search != null) search.shutdown();
+    }
+}
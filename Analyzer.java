@@ -0,0 +1,227 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * Analyzer.java
+ * Background position analysis: a score and a principal variation for every candidate move.
+ *
+ * Where the engine keeps only the best root move, the analyzer searches each
+ * candidate with a full window, one iterative-deepening depth at a time, and
+ * hands the listener a complete table after every depth, so the numbers
+ * sharpen while the player looks at them. The principal variation of each
+ * move is read back from the transposition table.
+ *
+ * Earlier work is reused two ways: each variant keeps one search and table
+ * for the whole game, so the previous position's entries order the next
+ * search, and finished tables are cached by position, so a position seen
+ * again (a replay, an undo) shows its last result at once and deepens from
+ * there. A new request cancels the one in flight. Searches run on one
+ * "neon-analysis" thread; analyze() and cancel() may be called from any thread.
+ */
+public final class Analyzer {
+
+    public static final int NONE = Integer.MIN_VALUE;   // cell is not a candidate
+
+    // Immutable result for one position at one depth
+    public static final class Analysis {
+        public final int depth;
+        public final int best;
+        private final int[] score;      // per cell, for the side to move; NONE if not searched
+        private final int[][] pv;       // per cell, the line that move starts
+
+        Analysis(int depth, int best, int[] score, int[][] pv) {
+            this.depth = depth;
+            this.best = best;
+            this.score = score;
+            this.pv = pv;
+        }
+
+        public int score(int cell) { return score[cell]; }
+        public int[] pv(int cell) { return pv[cell] == null ? new int[0] : pv[cell].clone(); }
+
+        // Forced win / loss for the mover, and in how many plies
+        public static boolean isWin(int v) { return v != NONE && v >= MnkSearch.MATE_BOUND; }
+        public static boolean isLoss(int v) { return v != NONE && v <= -MnkSearch.MATE_BOUND; }
+        public static int matePlies(int v) { return MnkSearch.WIN - Math.abs(v); }
+    }
+
+    // Called on the analysis thread, once per finished depth
+    public interface Listener {
+        void update(Analysis a);
+    }
+
+    private static final int INF = Integer.MAX_VALUE - 1;
+    private static final int CACHE = 256;
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "neon-analysis");
+        t.setDaemon(true);
+        return t;
+    });
+    private volatile AtomicBoolean running;   // cancel flag of the newest request
+
+    // analysis thread only
+    private final Map<MnkRules, Object> searches = new HashMap<>();
+    private final Map<Long, Analysis> cache = new LinkedHashMap<Long, Analysis>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Analysis> eldest) {
+            return size() > CACHE;
+        }
+    };
+
+    // Analyse a copy of board for up to budgetMs, cancelling the previous request
+    public void analyze(GameState board, MnkRules rules, long budgetMs, Listener listener) {
+        cancel();
+        AtomicBoolean stop = new AtomicBoolean();
+        running = stop;
+        GameState snapshot = board.copy();
+        worker.execute(() -> {
+            if (!stop.get()) run(snapshot, rules, budgetMs, stop, listener);
+        });
+    }
+
+    public void cancel() {
+        AtomicBoolean r = running;
+        if (r != null) r.set(true);
+    }
+
+    public void shutdown() {
+        cancel();
+        worker.shutdownNow();
+    }
+
+    private void run(GameState board, MnkRules rules, long budgetMs, AtomicBoolean stop, Listener listener) {
+        if (board.winner() != GameState.EMPTY || board.isFull()) return;
+        Root root = board instanceof UltimateBoard ? new UltimateRoot((UltimateBoard) board, rules)
+                : new MnkRoot(toMnk(board, rules), rules);
+        long key = root.hash() * 31 + System.identityHashCode(rules);
+        Analysis last = cache.get(key);
+        if (last != null) listener.update(last);
+
+        root.start(System.nanoTime() + budgetMs * 1_000_000L, stop);
+        int[] moves = new int[board.size()];
+        int n = root.rootMoves(moves);
+        int maxDepth = board.size() - stones(board);
+        for (int depth = last == null ? 1 : last.depth + 1; depth <= maxDepth; depth++) {
+            int[] score = new int[board.size()];
+            Arrays.fill(score, NONE);
+            int[][] pv = new int[board.size()][];
+            int best = -1;
+            boolean decided = true;
+            for (int m = 0; m < n; m++) {
+                int mv = moves[m];
+                int v = root.search(mv, depth);
+                if (root.stopped()) return;
+                score[mv] = v;
+                pv[mv] = root.pv(mv, depth);
+                if (best < 0 || v > score[best]) best = mv;
+                if (Math.abs(v) < MnkSearch.MATE_BOUND) decided = false;
+            }
+            last = new Analysis(depth, best, score, pv);
+            cache.put(key, last);
+            listener.update(last);
+            if (decided) return;   // every move is a forced result: deeper changes nothing
+        }
+    }
+
+    private static int stones(GameState b) {
+        int s = 0;
+        for (int i = 0; i < b.size(); i++) if (!b.isEmpty(i)) s++;
+        return s;
+    }
+
+    // The 3x3 BitBoard and MnkBoard hold the same game; the searches need an MnkBoard
+    private static MnkBoard toMnk(GameState board, MnkRules rules) {
+        if (board instanceof MnkBoard) return (MnkBoard) board;
+        MnkBoard b = new MnkBoard(rules);
+        int[] xs = new int[board.size()], os = new int[board.size()];
+        int nx = 0, no = 0;
+        for (int i = 0; i < board.size(); i++) {
+            if (board.cell(i) == GameState.X) xs[nx++] = i;
+            else if (board.cell(i) == GameState.O) os[no++] = i;
+        }
+        for (int i = 0; i < nx || i < no; i++) {   // X and O alternate so the side to move comes out right
+            if (i < nx) b.play(xs[i], GameState.X);
+            if (i < no) b.play(os[i], GameState.O);
+        }
+        return b;
+    }
+
+    private MnkSearch mnkSearch(MnkRules rules) {
+        return (MnkSearch) searches.computeIfAbsent(rules, MnkSearch::new);
+    }
+
+    private UltimateSearch ultimateSearch(MnkRules rules) {
+        return (UltimateSearch) searches.computeIfAbsent(rules, r -> new UltimateSearch());
+    }
+
+    // ---- one search interface over both engines ----
+
+    private interface Root {
+        long hash();
+        void start(long deadlineNanos, AtomicBoolean cancel);
+        boolean stopped();
+        int rootMoves(int[] out);
+        int search(int mv, int depth);
+        int[] pv(int mv, int depth);
+    }
+
+    private final class MnkRoot implements Root {
+        final MnkBoard b;
+        final MnkSearch s;
+
+        MnkRoot(MnkBoard b, MnkRules rules) {
+            this.b = b;
+            s = mnkSearch(rules);
+        }
+
+        @Override public long hash() { return b.hash(); }
+        @Override public boolean stopped() { return s.stopped(); }
+        @Override public int rootMoves(int[] out) { return s.rootMoves(b, out); }
+        @Override public int search(int mv, int depth) { return s.searchRootMove(b, mv, depth, -INF, INF); }
+
+        @Override
+        public void start(long deadlineNanos, AtomicBoolean cancel) {
+            s.start(deadlineNanos, null, cancel);
+            s.table().newSearch();
+        }
+
+        @Override public int[] pv(int mv, int depth) { return principalVariation(b, b::hash, s.table(), mv, depth); }
+    }
+
+    private final class UltimateRoot implements Root {
+        final UltimateBoard b;
+        final UltimateSearch s;
+
+        UltimateRoot(UltimateBoard b, MnkRules rules) {
+            this.b = b;
+            s = ultimateSearch(rules);
+        }
+
+        @Override public long hash() { return b.hash(); }
+        @Override public boolean stopped() { return s.stopped(); }
+        @Override public int rootMoves(int[] out) { return s.rootMoves(b, out); }
+        @Override public int search(int mv, int depth) { return s.searchRootMove(b, mv, depth, -INF, INF); }
+        @Override public void start(long deadlineNanos, AtomicBoolean cancel) { s.start(deadlineNanos, cancel); }
+        @Override public int[] pv(int mv, int depth) { return principalVariation(b, b::hash, s.table(), mv, depth); }
+    }
+
+    // mv, then the table's best reply at each ply while that is a legal move; the board is left as found
+    private static int[] principalVariation(GameState b, LongSupplier hash, TranspositionTable tt, int mv, int depth) {
+        MoveStack line = new MoveStack(b);
+        for (int m = mv; line.size() < depth && m >= 0 && m < b.size() && b.winner() == GameState.EMPTY && b.isLegal(m); ) {
+            line.make(m);
+            long e = tt.probe(hash.getAsLong());
+            m = e == 0 ? -1 : TranspositionTable.move(e);
+        }
+        int[] pv = line.cells();
+        line.rewind();
+        return pv;
+    }
+}
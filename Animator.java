@@ -0,0 +1,152 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Animator.java
+ * One frame clock for every UI effect: pooled, cancellable, time-based tweens.
+ *
+ * All tweens (and any per-frame hooks such as the particle layer) advance in
+ * the same javax.swing.Timer tick, so their repaints coalesce into a single
+ * paint pass. Progress comes from System.nanoTime(), not from counting ticks:
+ * when the EDT is busy, effects skip frames instead of stretching out, and a
+ * late tick never queues behind another (the timer coalesces). The clock only
+ * runs while something is animating. EDT only.
+ */
+public final class Animator {
+
+    public enum Easing {
+        LINEAR, EASE_IN, EASE_OUT, EASE_IN_OUT;
+
+        public float apply(float t) {
+            switch (this) {
+                case EASE_IN: return t * t * t;
+                case EASE_OUT: { float u = 1 - t; return 1 - u * u * u; }
+                case EASE_IN_OUT: return t < 0.5f ? 4 * t * t * t : 1 - (float) Math.pow(-2 * t + 2, 3) / 2;
+                default: return t;
+            }
+        }
+    }
+
+    // Receives eased progress in [0, 1]; called once per frame and always with 1 at the end
+    public interface Step {
+        void apply(float t);
+    }
+
+    // Per-frame work that is not a tween; return false once it has nothing left to draw
+    public interface FrameHook {
+        boolean frame();
+    }
+
+    private final javax.swing.Timer clock;
+    private final List<Tween> active = new ArrayList<>();
+    private final ArrayDeque<Tween> pool = new ArrayDeque<>();
+    private final List<Runnable> finished = new ArrayList<>();
+    private final List<FrameHook> hooks = new ArrayList<>();
+    private final boolean[] hookAwake = new boolean[8];
+    private long frames;
+    private final LatencyHistogram frameTimes = new LatencyHistogram();   // filled with metrics on
+
+    public Animator(int frameMs) {
+        clock = new javax.swing.Timer(frameMs, e -> tick());
+        clock.setCoalesce(true);
+    }
+
+    // Run step over durationMs. A tween already playing for the same owner and
+    // kind is cancelled first, so repeated triggers restart instead of stacking.
+    public void play(Object owner, String kind, long durationMs, Easing easing, Step step, Runnable done) {
+        cancel(owner, kind);
+        Tween t = pool.isEmpty() ? new Tween() : pool.pop();
+        t.owner = owner;
+        t.kind = kind;
+        t.start = System.nanoTime();
+        t.duration = Math.max(1, durationMs) * 1_000_000L;
+        t.easing = easing;
+        t.step = step;
+        t.done = done;
+        active.add(t);
+        step.apply(0f);
+        wake();
+    }
+
+    // Drop a tween without running its completion
+    public void cancel(Object owner, String kind) {
+        for (int i = active.size() - 1; i >= 0; i--) {
+            Tween t = active.get(i);
+            if (t.owner == owner && t.kind.equals(kind)) recycle(i);
+        }
+    }
+
+    // Drop every tween of one kind (e.g. all pulses)
+    public void cancelKind(String kind) {
+        for (int i = active.size() - 1; i >= 0; i--) {
+            if (active.get(i).kind.equals(kind)) recycle(i);
+        }
+    }
+
+    public void addFrameHook(FrameHook hook) {
+        if (hooks.size() == hookAwake.length) throw new IllegalStateException("too many frame hooks");
+        hooks.add(hook);
+    }
+
+    // A hook has new work: keep the clock running until it reports idle
+    public void wake(FrameHook hook) {
+        hookAwake[hooks.indexOf(hook)] = true;
+        wake();
+    }
+
+    public boolean isRunning() { return clock.isRunning(); }
+    public int activeTweens() { return active.size(); }
+    public long frames() { return frames; }
+    public LatencyHistogram frameTimes() { return frameTimes; }
+
+    public void stop() {
+        clock.stop();
+    }
+
+    private void wake() {
+        if (!clock.isRunning()) clock.start();
+    }
+
+    private void tick() {
+        long now = System.nanoTime();
+        frames++;
+        for (int i = active.size() - 1; i >= 0; i--) {
+            Tween t = active.get(i);
+            float p = Math.min(1f, (now - t.start) / (float) t.duration);
+            t.step.apply(t.easing.apply(p));
+            if (p >= 1f) {
+                if (t.done != null) finished.add(t.done);
+                recycle(i);
+            }
+        }
+        // completions may start or cancel tweens, so they run after the sweep
+        for (int i = 0; i < finished.size(); i++) finished.get(i).run();
+        finished.clear();
+
+        boolean busy = !active.isEmpty();
+        for (int h = 0; h < hooks.size(); h++) {
+            if (hookAwake[h]) hookAwake[h] = hooks.get(h).frame();
+            busy |= hookAwake[h];
+        }
+        if (!busy) clock.stop();
+        if (Metrics.ENABLED) frameTimes.record(System.nanoTime() - now);
+    }
+
+    private void recycle(int i) {
+        Tween t = active.remove(i);
+        t.owner = null;
+        t.step = null;
+        t.done = null;
+        pool.push(t);
+    }
+
+    private static final class Tween {
+        Object owner;
+        String kind;
+        long start, duration;
+        Easing easing;
+        Step step;
+        Runnable done;
+    }
+}
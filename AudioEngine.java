@@ -0,0 +1,178 @@
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * AudioEngine.java
+ * Sound effects mixed on their own thread into one streaming SourceDataLine.
+ *
+ * The clips are synthesized once at startup into 16-bit mono PCM: a short
+ * square-wave click and a synthwave victory arpeggio (two detuned saws per
+ * note). play() only queues the clip id, so any thread, the EDT included, can
+ * trigger a sound without waiting. The "neon-audio" thread sums the playing
+ * voices a block at a time and writes the block to the line, whose small ring
+ * buffer paces it; at most maxVoices play at once, and a new sound replaces
+ * the oldest. With nothing playing the thread sleeps on the queue.
+ *
+ * No audio device (or -Dneon.audio=false) means no thread: play() is a no-op.
+ */
+public final class AudioEngine {
+
+    public static final int CLICK = 0, VICTORY = 1;
+
+    private static final float RATE = 44_100f;
+    private static final int BLOCK = 256;                  // frames mixed per write, ~6 ms
+    private static final int LINE_BLOCKS = 4;              // line buffer, ~23 ms of latency
+
+    private final short[][] clips = {click(), victory()};
+    private final LinkedBlockingQueue<Integer> triggers = new LinkedBlockingQueue<>();
+    private final int maxVoices;
+    private final Thread mixer;
+
+    // Mixer thread state: playing clips and their positions, oldest first
+    private final int[] voiceClip, voicePos;
+    private int voices;
+    private final int[] mix = new int[BLOCK];
+    private final byte[] out = new byte[BLOCK * 2];
+
+    // Metrics
+    private final LongAdder played = new LongAdder();
+    private final LongAdder stolen = new LongAdder();
+    private final LatencyHistogram mixTimes = new LatencyHistogram();
+    private volatile int live;
+
+    public AudioEngine(int maxVoices) {
+        this.maxVoices = Math.max(1, maxVoices);
+        voiceClip = new int[this.maxVoices];
+        voicePos = new int[this.maxVoices];
+        Thread t = null;
+        if (!"false".equals(System.getProperty("neon.audio"))) {
+            t = new Thread(this::run, "neon-audio");
+            t.setDaemon(true);
+            t.start();
+        }
+        mixer = t;
+    }
+
+    // Queue a clip; never blocks
+    public void play(int clip) {
+        if (mixer != null) triggers.offer(clip);
+    }
+
+    public void shutdown() {
+        if (mixer != null) mixer.interrupt();
+    }
+
+    public long played() { return played.sum(); }
+    public long stolen() { return stolen.sum(); }
+    public int voices() { return live; }
+    public LatencyHistogram mixTimes() { return mixTimes; }
+
+    private void run() {
+        AudioFormat format = new AudioFormat(RATE, 16, 1, true, false);
+        SourceDataLine line;
+        try {
+            line = AudioSystem.getSourceDataLine(format);
+            line.open(format, BLOCK * 2 * LINE_BLOCKS);
+        } catch (LineUnavailableException | IllegalArgumentException | SecurityException e) {
+            System.err.println("Audio disabled: " + e.getMessage());
+            triggers.clear();
+            return;
+        }
+        line.start();
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                if (voices == 0) start(triggers.take());   // idle: sleep until a sound is wanted
+                for (Integer c; (c = triggers.poll()) != null; ) start(c);
+                long t0 = System.nanoTime();
+                mixBlock();
+                mixTimes.record(System.nanoTime() - t0);
+                line.write(out, 0, out.length);             // blocks while the line's buffer is full
+            }
+        } catch (InterruptedException ignored) {
+            // shutdown
+        } finally {
+            line.stop();
+            line.close();
+        }
+    }
+
+    private void start(int clip) {
+        if (clip < 0 || clip >= clips.length) return;
+        if (voices == maxVoices) {                          // steal the oldest
+            System.arraycopy(voiceClip, 1, voiceClip, 0, voices - 1);
+            System.arraycopy(voicePos, 1, voicePos, 0, voices - 1);
+            voices--;
+            stolen.increment();
+        }
+        voiceClip[voices] = clip;
+        voicePos[voices] = 0;
+        voices++;
+        live = voices;
+        played.increment();
+    }
+
+    // Sum every voice into one block, drop the voices that ended, clamp to 16 bits
+    private void mixBlock() {
+        java.util.Arrays.fill(mix, 0);
+        int kept = 0;
+        for (int v = 0; v < voices; v++) {
+            short[] pcm = clips[voiceClip[v]];
+            int pos = voicePos[v], n = Math.min(BLOCK, pcm.length - pos);
+            for (int i = 0; i < n; i++) mix[i] += pcm[pos + i];
+            if (pos + n < pcm.length) {
+                voiceClip[kept] = voiceClip[v];
+                voicePos[kept++] = pos + n;
+            }
+        }
+        voices = kept;
+        live = kept;
+        for (int i = 0; i < BLOCK; i++) {
+            int s = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, mix[i]));
+            out[2 * i] = (byte) s;
+            out[2 * i + 1] = (byte) (s >> 8);
+        }
+    }
+
+    // ---- synthesis ----
+
+    // 40 ms square blip with a fast exponential decay
+    private static short[] click() {
+        int n = (int) (RATE * 0.04f);
+        short[] pcm = new short[n];
+        for (int i = 0; i < n; i++) {
+            double t = i / RATE;
+            double sq = Math.sin(2 * Math.PI * 1760 * t) >= 0 ? 1 : -1;
+            pcm[i] = (short) (sq * Math.exp(-t * 90) * 0.22 * Short.MAX_VALUE);
+        }
+        return pcm;
+    }
+
+    // A major arpeggio, last note held: two detuned saws per note, soft attack and decay
+    private static short[] victory() {
+        double[] notes = {440.00, 554.37, 659.25, 880.00};
+        double step = 0.09, hold = 0.45;
+        int n = (int) (RATE * (step * (notes.length - 1) + hold));
+        short[] pcm = new short[n];
+        for (int k = 0; k < notes.length; k++) {
+            int from = (int) (RATE * step * k);
+            double len = k == notes.length - 1 ? hold : step * 1.6;   // notes overlap a little
+            int to = Math.min(n, from + (int) (RATE * len));
+            for (int i = from; i < to; i++) {
+                double t = (i - from) / RATE;
+                double env = Math.min(1, t / 0.006) * Math.exp(-t * (k == notes.length - 1 ? 5 : 14));
+                double s = saw(notes[k] * 1.006 * t) + saw(notes[k] * 0.994 * t);
+                pcm[i] = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE,
+                        pcm[i] + s * env * 0.09 * Short.MAX_VALUE));
+            }
+        }
+        return pcm;
+    }
+
+    private static double saw(double phase) {
+        return 2 * (phase - Math.floor(phase + 0.5));
+    }
+}
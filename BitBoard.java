@@ -0,0 +1,298 @@
+/**
+ * BitBoard.java
+ * Headless 3x3 game state: X and O packed into two 9-bit masks (bit i = cell i).
+ *
+ * No Swing dependencies, so it can be driven from the UI or from bulk self-play.
+ * Win tests are one lookup in a 512-entry table built from {@link #WIN_MASKS},
+ * which also gives the winning line; the search walks empty cells with bit
+ * tricks and never allocates.
+ */
+public final class BitBoard implements GameState {
+
+    public static final int CELLS = 9;
+    public static final int FULL = 0x1FF;
+
+    // win patterns as masks, same order as the {0,1,2},{3,4,5}... table in the UI
+    public static final int[] WIN_MASKS = {
+            0x007, 0x038, 0x1C0,
+            0x049, 0x092, 0x124,
+            0x111, 0x054
+    };
+
+    // WIN_LINE[mask]: first line of WIN_MASKS that mask completes, or 0
+    private static final short[] WIN_LINE = new short[1 << CELLS];
+    // SYM[s][mask]: mask under the s-th rotation/reflection of the board
+    private static final int[][] SYM = new int[8][1 << CELLS];
+    // INV[s][cell]: original cell that the s-th symmetry moves onto cell
+    private static final int[][] INV = new int[8][CELLS];
+
+    static {
+        for (int m = 0; m <= FULL; m++) {
+            for (int w : WIN_MASKS) {
+                if ((m & w) == w) {
+                    WIN_LINE[m] = (short) w;
+                    break;
+                }
+            }
+        }
+        for (int s = 0; s < 8; s++) {
+            int[] perm = new int[CELLS];
+            for (int i = 0; i < CELLS; i++) {
+                int r = i / 3, c = i % 3;
+                if ((s & 4) != 0) c = 2 - c;            // mirror
+                for (int k = 0; k < (s & 3); k++) {      // rotate 90 degrees
+                    int t = r; r = c; c = 2 - t;
+                }
+                perm[i] = r * 3 + c;
+                INV[s][perm[i]] = i;
+            }
+            for (int m = 0; m <= FULL; m++) {
+                int out = 0;
+                for (int i = 0; i < CELLS; i++) if ((m & (1 << i)) != 0) out |= 1 << perm[i];
+                SYM[s][m] = out;
+            }
+        }
+    }
+
+    private int x, o;      // occupancy masks
+    private int toMove = X;
+
+    @Override public int rows() { return 3; }
+    @Override public int cols() { return 3; }
+
+    public void clear() {
+        x = 0;
+        o = 0;
+        toMove = X;
+    }
+
+    public BitBoard copy() {
+        BitBoard b = new BitBoard();
+        b.x = x;
+        b.o = o;
+        b.toMove = toMove;
+        return b;
+    }
+
+    public int toMove() { return toMove; }
+    public int xMask() { return x; }
+    public int oMask() { return o; }
+    public int mask(int side) { return side == X ? x : o; }
+    public int emptyMask() { return ~(x | o) & FULL; }
+
+    public int cell(int i) {
+        int bit = 1 << i;
+        if ((x & bit) != 0) return X;
+        if ((o & bit) != 0) return O;
+        return EMPTY;
+    }
+
+    public boolean isEmpty(int i) {
+        return ((x | o) & (1 << i)) == 0;
+    }
+
+    // Place a stone for the given side; the side to move becomes the opponent
+    public void play(int i, int side) {
+        if (side == X) x |= 1 << i; else o |= 1 << i;
+        toMove = opponent(side);
+    }
+
+    public void play(int i) {
+        play(i, toMove);
+    }
+
+    // Exact inverse of play(i, side)
+    public void undo(int i, int side) {
+        if (side == X) x &= ~(1 << i); else o &= ~(1 << i);
+        toMove = side;
+    }
+
+    public int winner() {
+        if (isWin(x)) return X;
+        if (isWin(o)) return O;
+        return EMPTY;
+    }
+
+    public boolean isFull() {
+        return (x | o) == FULL;
+    }
+
+    // Mask of the first completed line for side, or 0
+    public int winningLine(int side) {
+        return WIN_LINE[mask(side)];
+    }
+
+    public int[] winningCells() {
+        int w = winner();
+        if (w == EMPTY) return new int[0];
+        int line = winningLine(w);
+        int[] out = new int[Integer.bitCount(line)];
+        for (int n = 0; line != 0; line &= line - 1) out[n++] = Integer.numberOfTrailingZeros(line);
+        return out;
+    }
+
+    public static int opponent(int side) {
+        return side == X ? O : X;
+    }
+
+    public static boolean isWin(int mask) {
+        return WIN_LINE[mask] != 0;
+    }
+
+    // First completed line in mask, or 0
+    public static int winLine(int mask) {
+        return WIN_LINE[mask];
+    }
+
+    public static int transform(int sym, int mask) {
+        return SYM[sym][mask];
+    }
+
+    // Smallest (a | b << 9) over the 8 symmetries, so equivalent positions share one key
+    public static int canonical(int a, int b) {
+        int best = Integer.MAX_VALUE;
+        for (int s = 0; s < 8; s++) {
+            int k = SYM[s][a] | SYM[s][b] << CELLS;
+            if (k < best) best = k;
+        }
+        return best;
+    }
+
+    // Index of the symmetry that maps (a, b) onto its canonical form
+    public static int canonicalSymmetry(int a, int b) {
+        int best = Integer.MAX_VALUE, sym = 0;
+        for (int s = 0; s < 8; s++) {
+            int k = SYM[s][a] | SYM[s][b] << CELLS;
+            if (k < best) {
+                best = k;
+                sym = s;
+            }
+        }
+        return sym;
+    }
+
+    // Cell of the original board that symmetry sym moves onto cell
+    public static int inverseCell(int sym, int cell) {
+        return INV[sym][cell];
+    }
+
+    // ---- search ----
+
+    // Best cell for the side owning aiMask, or -1 if the board is full.
+    // Ties go to the lowest index, matching the original String[] search.
+    public static int bestMove(int aiMask, int humanMask) {
+        int bestScore = Integer.MIN_VALUE;
+        int bestMove = -1;
+        for (int free = ~(aiMask | humanMask) & FULL; free != 0; free &= free - 1) {
+            int bit = free & -free;
+            int score = minimax(aiMask | bit, humanMask, 0, false, Integer.MIN_VALUE, Integer.MAX_VALUE);
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = Integer.numberOfTrailingZeros(bit);
+            }
+        }
+        return bestMove;
+    }
+
+    // Same choice as bestMove(ai, human), but every node goes through the table
+    public static int bestMove(int aiMask, int humanMask, TranspositionTable tt) {
+        int bestScore = Integer.MIN_VALUE;
+        int bestMove = -1;
+        for (int free = ~(aiMask | humanMask) & FULL; free != 0; free &= free - 1) {
+            int bit = free & -free;
+            int score = minimax(aiMask | bit, humanMask, 0, false, Integer.MIN_VALUE, Integer.MAX_VALUE, tt);
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = Integer.numberOfTrailingZeros(bit);
+            }
+        }
+        return bestMove;
+    }
+
+    // Minimax with alpha-beta over the two masks; +10 is an ai win, -10 a human win
+    public static int minimax(int ai, int human, int depth, boolean isMax, int alpha, int beta) {
+        if (isWin(ai)) return 10 - depth;
+        if (isWin(human)) return depth - 10;
+        int free = ~(ai | human) & FULL;
+        if (free == 0) return 0;
+
+        if (isMax) {
+            int maxEval = Integer.MIN_VALUE;
+            for (; free != 0; free &= free - 1) {
+                int eval = minimax(ai | (free & -free), human, depth + 1, false, alpha, beta);
+                if (eval > maxEval) maxEval = eval;
+                if (eval > alpha) alpha = eval;
+                if (beta <= alpha) break;
+            }
+            return maxEval;
+        } else {
+            int minEval = Integer.MAX_VALUE;
+            for (; free != 0; free &= free - 1) {
+                int eval = minimax(ai, human | (free & -free), depth + 1, true, alpha, beta);
+                if (eval < minEval) minEval = eval;
+                if (eval < beta) beta = eval;
+                if (beta <= alpha) break;
+            }
+            return minEval;
+        }
+    }
+
+    // Alpha-beta with a transposition table. Entries are keyed by the canonical
+    // position plus the side to move and hold node-relative scores, so a hit is
+    // valid at any depth and under any of the 8 symmetries.
+    public static int minimax(int ai, int human, int depth, boolean isMax, int alpha, int beta,
+                              TranspositionTable tt) {
+        if (isWin(ai)) return 10 - depth;
+        if (isWin(human)) return depth - 10;
+        int free = ~(ai | human) & FULL;
+        if (free == 0) return 0;
+
+        long key = canonical(ai, human) | (isMax ? 1L << 18 : 0);
+        long e = tt.probe(key);
+        if (e != 0) {
+            int v = fromNode(TranspositionTable.value(e), depth);
+            switch (TranspositionTable.flag(e)) {
+                case TranspositionTable.EXACT: return v;
+                case TranspositionTable.LOWER: if (v > alpha) alpha = v; break;
+                case TranspositionTable.UPPER: if (v < beta) beta = v; break;
+            }
+            if (beta <= alpha) return v;
+        }
+
+        int alphaOrig = alpha, betaOrig = beta;
+        int best;
+        if (isMax) {
+            best = Integer.MIN_VALUE;
+            for (; free != 0; free &= free - 1) {
+                int eval = minimax(ai | (free & -free), human, depth + 1, false, alpha, beta, tt);
+                if (eval > best) best = eval;
+                if (eval > alpha) alpha = eval;
+                if (beta <= alpha) break;
+            }
+        } else {
+            best = Integer.MAX_VALUE;
+            for (; free != 0; free &= free - 1) {
+                int eval = minimax(ai, human | (free & -free), depth + 1, true, alpha, beta, tt);
+                if (eval < best) best = eval;
+                if (eval < beta) beta = eval;
+                if (beta <= alpha) break;
+            }
+        }
+
+        int flag = best <= alphaOrig ? TranspositionTable.UPPER
+                : best >= betaOrig ? TranspositionTable.LOWER
+                : TranspositionTable.EXACT;
+        tt.store(key, toNode(best, depth), flag, 0, -1);
+        return best;
+    }
+
+    // Scores carry the root distance (10 - depth); strip it before storing...
+    private static int toNode(int score, int depth) {
+        return score > 0 ? score + depth : score < 0 ? score - depth : 0;
+    }
+
+    // ...and put it back for the depth of the probing node
+    private static int fromNode(int score, int depth) {
+        return score > 0 ? score - depth : score < 0 ? score + depth : 0;
+    }
+}
@@ -0,0 +1,99 @@
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * GameEngine.java
+ * Headless AI for one variant: picks a move for the side to move on any GameState.
+ *
+ * Moves come from a pluggable {@link AiStrategy}, alpha-beta by default. On
+ * 3x3 an attached tablebase stands in for alpha-beta (same moves, one lookup);
+ * other strategies (e.g. a weakened MCTS) are always asked directly.
+ *
+ * Not thread-safe: use one engine per thread (the tablebase may be shared).
+ * With metrics on, every move reports its latency and search statistics.
+ */
+public final class GameEngine {
+
+    private final MnkRules rules;
+    private final int workers;
+    private final AlphaBetaStrategy alphaBeta;
+    private AiStrategy strategy;
+    private TablebaseStrategy tablebase;
+
+    // metric series of the strategy last used (Metrics.ENABLED only)
+    private AiStrategy metered;
+    private LatencyHistogram moveTimes, depths;
+    private LongAdder nodes, cutoffs, playouts;
+
+    public GameEngine(MnkRules rules, int workers) {
+        this.rules = rules;
+        this.workers = workers;
+        alphaBeta = new AlphaBetaStrategy(rules, workers);
+        strategy = alphaBeta;
+    }
+
+    public MnkRules rules() { return rules; }
+    public int workers() { return workers; }
+    public AiStrategy strategy() { return strategy; }
+
+    public GameEngine tablebase(Tablebase tb) {
+        tablebase = tb != null && rules == MnkRules.CLASSIC ? new TablebaseStrategy(tb) : null;
+        return this;
+    }
+
+    // Replace the move selector; the engine owns it from now on (null = alpha-beta)
+    public GameEngine strategy(AiStrategy s) {
+        if (strategy != alphaBeta && strategy != s) strategy.shutdown();
+        strategy = s == null ? alphaBeta : s;
+        return this;
+    }
+
+    // Fixed alpha-beta depth for the larger variants (deterministic, useful for batch runs)
+    public GameEngine depthLimit(int plies) {
+        alphaBeta.depthLimit(plies);
+        return this;
+    }
+
+    // Best cell for the side to move, or -1 if the game is over. The board is
+    // searched in place and restored; pass a copy if another thread owns it.
+    public int bestMove(GameState board, long budgetMillis) {
+        return bestMove(board, budgetMillis, null);
+    }
+
+    // Same; setting cancel (from any thread) cuts a large-board search short
+    public int bestMove(GameState board, long budgetMillis, AtomicBoolean cancel) {
+        AiStrategy s = strategy == alphaBeta && tablebase != null ? tablebase : strategy;
+        if (!Metrics.ENABLED) return s.bestMove(board, budgetMillis, cancel);
+        long t0 = System.nanoTime();
+        int mv = s.bestMove(board, budgetMillis, cancel);
+        record(s, System.nanoTime() - t0);
+        return mv;
+    }
+
+    private void record(AiStrategy s, long nanos) {
+        if (s != metered) {
+            metered = s;
+            String v = rules.token();
+            moveTimes = Metrics.summary("neon_ai_move_seconds", "Time to choose one AI move", 1e-9,
+                    "variant", v, "strategy", s.name());
+            depths = Metrics.summary("neon_search_depth_plies", "Deepest completed alpha-beta iteration per move", 1,
+                    "variant", v);
+            nodes = Metrics.counter("neon_search_nodes_total", "Alpha-beta nodes searched", "variant", v);
+            cutoffs = Metrics.counter("neon_search_cutoffs_total", "Alpha-beta beta cutoffs", "variant", v);
+            playouts = Metrics.counter("neon_mcts_playouts_total", "MCTS playouts", "variant", v);
+        }
+        moveTimes.record(nanos);
+        if (s == alphaBeta && alphaBeta.nodes() > 0) {
+            nodes.add(alphaBeta.nodes());
+            cutoffs.add(alphaBeta.cutoffs());
+            depths.record(alphaBeta.completedDepth());
+        } else if (s instanceof MctsSearch) {
+            playouts.add(((MctsSearch) s).lastPlayouts());
+        }
+    }
+
+    public void shutdown() {
+        alphaBeta.shutdown();
+        if (strategy != alphaBeta) strategy.shutdown();
+    }
+}
@@ -0,0 +1,560 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GameJournal.java
+ * Append-only binary log of every game played, replayed and analysed through memory maps.
+ *
+ * File layout: 8-byte header ("NTGJ", version, 0, 0, 0) followed by a byte stream.
+ * A game is START + variant (0xF0-0xF4, index into {@link MnkRules#VARIANTS}), one
+ * byte per move (the cell, 0-224) and an end marker (0xFC X wins, 0xFD O wins,
+ * 0xFE draw, 0xFF abandoned), so a 3x3 game takes about ten bytes. Start bytes
+ * never occur inside a game: a game cut off by a crash is simply ended by the next
+ * start, and a scan can pick up at any start byte, which is what lets
+ * {@link #analyze(Path, int)} split the file between threads.
+ *
+ * Writes go to an in-memory buffer that is written out when full and forced to
+ * disk by a background thread every {@code -Dneon.journal.syncMs} (default 1000),
+ * so a crash loses at most that much play and no move waits for an fsync.
+ */
+public final class GameJournal implements Closeable {
+
+    private static final int HEADER = 8;
+    private static final int VERSION = 1;
+    private static final int START = 0xF0;
+    private static final int END_X = 0xFC, END_O = 0xFD, END_DRAW = 0xFE, END_ABANDONED = 0xFF;
+    private static final int MAX_GAME = MnkRules.GOMOKU.cells() + 2;
+    private static final long WINDOW = 1L << 30;   // mapping limit per scan range
+
+    public interface Visitor {
+        // moves[0..length) are cells (read them with & 0xFF); outcome is ONGOING for
+        // abandoned or truncated games. Both the array and its contents are reused.
+        void game(MnkRules rules, byte[] moves, int length, GameSession.Outcome outcome);
+    }
+
+    private final Path file;
+    private final FileChannel ch;
+    private final byte[] buf = new byte[1 << 16];
+    private int fill;
+    private final ScheduledExecutorService syncer;
+    private boolean inGame;
+    private boolean dirty;
+    private long games;
+    private IOException failure;
+
+    private GameJournal(Path file, FileChannel ch, long syncMs) {
+        this.file = file;
+        this.ch = ch;
+        syncer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "neon-journal");
+            t.setDaemon(true);
+            return t;
+        });
+        syncer.scheduleWithFixedDelay(this::syncQuietly, syncMs, syncMs, TimeUnit.MILLISECONDS);
+    }
+
+    // Default location, kept per user across reboots; override with -Dneon.journal=<file>, or "off"
+    public static Path defaultPath() {
+        String p = System.getProperty("neon.journal",
+                Paths.get(System.getProperty("user.home"), ".neon-tictactoe", "games.journal").toString());
+        return "off".equals(p) ? null : Paths.get(p);
+    }
+
+    // Open for appending, creating the file (and its directory) if needed
+    public static GameJournal open(Path file) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        if (dir != null) Files.createDirectories(dir);
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            if (ch.size() == 0) {
+                ByteBuffer h = ByteBuffer.wrap(new byte[]{'N', 'T', 'G', 'J', VERSION, 0, 0, 0});
+                while (h.hasRemaining()) ch.write(h, h.position());
+                ch.force(true);
+            } else {
+                checkHeader(ch, file);
+            }
+            ch.position(ch.size());
+            return new GameJournal(file, ch, Long.getLong("neon.journal.syncMs", 1000));
+        } catch (IOException | RuntimeException ex) {
+            ch.close();
+            throw ex;
+        }
+    }
+
+    private static void checkHeader(FileChannel ch, Path file) throws IOException {
+        ByteBuffer h = ByteBuffer.allocate(HEADER);
+        while (h.hasRemaining() && ch.read(h, h.position()) > 0) { }
+        if (h.position() < HEADER || h.get(0) != 'N' || h.get(1) != 'T' || h.get(2) != 'G' || h.get(3) != 'J'
+                || h.get(4) != VERSION) throw new IOException("bad journal header: " + file);
+    }
+
+    public Path file() { return file; }
+
+    // Games ended through this instance
+    public synchronized long games() { return games; }
+
+    // ---- streaming writes (one game at a time, e.g. the UI) ----
+
+    public synchronized void begin(MnkRules rules) {
+        if (inGame) end(GameSession.Outcome.ONGOING);
+        put(START + variant(rules));
+        inGame = true;
+    }
+
+    public synchronized void move(int cell) {
+        if (!inGame) throw new IllegalStateException("no game in progress");
+        put(cell);
+    }
+
+    // ONGOING records the game as abandoned
+    public synchronized void end(GameSession.Outcome outcome) {
+        if (!inGame) return;
+        put(endMarker(outcome));
+        inGame = false;
+        games++;
+    }
+
+    public synchronized boolean inGame() { return inGame; }
+
+    // ---- whole games (batch writers, any thread) ----
+
+    public synchronized void appendGame(MnkRules rules, int[] moves, int length, GameSession.Outcome outcome) {
+        if (inGame) end(GameSession.Outcome.ONGOING);
+        int v = variant(rules);
+        if (buf.length - fill < length + 2) flush();
+        if (failure != null) return;
+        byte[] b = buf;
+        int f = fill;
+        b[f++] = (byte) (START + v);
+        for (int i = 0; i < length; i++) b[f++] = (byte) moves[i];
+        b[f++] = (byte) endMarker(outcome);
+        fill = f;
+        dirty = true;
+        games++;
+    }
+
+    private void put(int b) {
+        if (fill == buf.length) flush();
+        if (failure != null) return;
+        buf[fill++] = (byte) b;
+        dirty = true;
+    }
+
+    // Hand buffered bytes to the OS (no fsync); the first I/O error stops all writing
+    private synchronized void flush() {
+        ByteBuffer out = ByteBuffer.wrap(buf, 0, fill);
+        fill = 0;
+        if (failure != null) return;
+        try {
+            while (out.hasRemaining()) ch.write(out);
+        } catch (IOException ex) {
+            failure = ex;
+            System.err.println("Game journal disabled, write failed: " + ex);
+        }
+    }
+
+    // Flush and fsync. The force runs outside the lock so writers never wait for the disk.
+    public void sync() throws IOException {
+        synchronized (this) {
+            if (!dirty) return;
+            dirty = false;
+            flush();
+            if (failure != null) throw failure;
+        }
+        ch.force(false);
+    }
+
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (IOException ex) {
+            // already reported by flush; close() rethrows it
+        }
+    }
+
+    // Abandon any open game, sync and close; throws the first write error, if any
+    @Override
+    public void close() throws IOException {
+        if (!ch.isOpen()) return;
+        syncer.shutdownNow();
+        synchronized (this) {
+            end(GameSession.Outcome.ONGOING);
+            dirty = true;
+        }
+        try {
+            sync();
+        } finally {
+            ch.close();
+        }
+    }
+
+    private static int variant(MnkRules rules) {
+        for (int i = 0; i < MnkRules.VARIANTS.length; i++) if (MnkRules.VARIANTS[i] == rules) return i;
+        throw new IllegalArgumentException("only the built-in variants are journaled: " + rules.name);
+    }
+
+    private static int endMarker(GameSession.Outcome outcome) {
+        switch (outcome) {
+            case X_WINS: return END_X;
+            case O_WINS: return END_O;
+            case DRAW: return END_DRAW;
+            default: return END_ABANDONED;
+        }
+    }
+
+    private static GameSession.Outcome outcome(int marker) {
+        switch (marker) {
+            case END_X: return GameSession.Outcome.X_WINS;
+            case END_O: return GameSession.Outcome.O_WINS;
+            case END_DRAW: return GameSession.Outcome.DRAW;
+            default: return GameSession.Outcome.ONGOING;
+        }
+    }
+
+    // ---- reading ----
+
+    // Moves of the most recent finished game of this variant, or null if there is none
+    public int[] lastGame(MnkRules rules) throws IOException {
+        synchronized (this) {
+            flush();
+        }
+        return lastGame(file, rules);
+    }
+
+    public static int[] lastGame(Path file, MnkRules rules) throws IOException {
+        int want = START + variant(rules);
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = in.size();
+            long base = Math.max(HEADER, size - WINDOW);
+            MappedByteBuffer b = in.map(FileChannel.MapMode.READ_ONLY, base, size - base);
+            // walk back from start byte to start byte; each game runs to the next start
+            int next = b.limit();
+            for (int p = next - 1; p >= 0; p--) {
+                int x = b.get(p) & 0xFF;
+                if (x < START || x >= START + MnkRules.VARIANTS.length) continue;
+                int last = next - 1;
+                if (x == want && last > p) {
+                    int end = b.get(last) & 0xFF;
+                    if (end >= END_X && end <= END_DRAW) {
+                        int[] moves = new int[last - p - 1];
+                        for (int i = 0; i < moves.length; i++) moves[i] = b.get(p + 1 + i) & 0xFF;
+                        return moves;
+                    }
+                }
+                next = p;
+            }
+            return null;
+        }
+    }
+
+    // Feed every game in the file to the visitor, in order
+    public static void scan(Path file, Visitor visitor) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            checkHeader(in, file);
+            long size = in.size();
+            for (long a = HEADER; a < size; a += WINDOW) scanRange(in, a, Math.min(size, a + WINDOW), size, visitor);
+        }
+    }
+
+    // Report the games whose start byte lies in [from, to); a game running past `to`
+    // is read from the slack mapped after it
+    private static void scanRange(FileChannel in, long from, long to, long size, Visitor v) throws IOException {
+        long mapEnd = Math.min(size, to + MAX_GAME);
+        MappedByteBuffer b = in.map(FileChannel.MapMode.READ_ONLY, from, mapEnd - from);
+        int stop = (int) (to - from);
+        byte[] chunk = new byte[1 << 16];
+        // the range may open mid-game; bytes before its first start are skipped
+        Parser parser = new Parser(v, from > HEADER ? -2 : -1);
+        // parse bulk copies of the mapping, far cheaper than a get() per byte
+        for (int base = 0; b.hasRemaining(); base += chunk.length) {
+            int len = Math.min(chunk.length, b.remaining());
+            b.get(chunk, 0, len);
+            if (!parser.parse(chunk, len, stop - base)) return;
+        }
+        // cut off at the end of the file
+        if (parser.variant >= 0 && mapEnd == size) {
+            v.game(MnkRules.VARIANTS[parser.variant], parser.moves, parser.n, GameSession.Outcome.ONGOING);
+        }
+    }
+
+    // Byte-stream state carried from one chunk to the next
+    private static final class Parser {
+        final Visitor v;
+        final byte[] moves = new byte[MAX_GAME];
+        int variant;   // index of the game being read, -1 between games, -2 before the first start
+        int n;
+
+        Parser(Visitor v, int variant) {
+            this.v = v;
+            this.variant = variant;
+        }
+
+        // false once a game starts at or after stop (a chunk-relative offset)
+        boolean parse(byte[] chunk, int len, int stop) {
+            int variant = this.variant, n = this.n;
+            byte[] moves = this.moves;
+            try {
+                for (int i = 0; i < len; i++) {
+                    int x = chunk[i] & 0xFF;
+                    if (x < START) {
+                        if (variant >= 0 && n < moves.length) moves[n++] = (byte) x;
+                    } else if (x >= END_X) {
+                        if (variant >= 0) v.game(MnkRules.VARIANTS[variant], moves, n, outcome(x));
+                        variant = -1;
+                    } else {
+                        if (variant >= 0) v.game(MnkRules.VARIANTS[variant], moves, n, GameSession.Outcome.ONGOING);
+                        variant = -1;
+                        if (i >= stop) return false;
+                        if (x < START + MnkRules.VARIANTS.length) {
+                            variant = x - START;
+                            n = 0;
+                        }
+                    }
+                }
+                return true;
+            } finally {
+                this.variant = variant;
+                this.n = n;
+            }
+        }
+    }
+
+    // Aggregate statistics over the whole file, split across threads
+    public static Stats analyze(Path file, int threads) throws IOException, InterruptedException {
+        long size;
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            checkHeader(in, file);
+            size = in.size();
+        }
+        long body = size - HEADER;
+        int parts = (int) Math.max(threads, (body + WINDOW - 1) / WINDOW);
+        long step = Math.max(1, (body + parts - 1) / parts);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            List<Future<Stats>> results = new ArrayList<>();
+            for (long a = HEADER; a < size; a += step) {
+                long from = a, to = Math.min(size, a + step);
+                results.add(pool.submit(() -> {
+                    Stats s = new Stats();
+                    scanRange(in, from, to, size, s);
+                    return s;
+                }));
+            }
+            Stats total = new Stats();
+            for (Future<Stats> f : results) total.merge(f.get());
+            return total;
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException) throw (IOException) ex.getCause();
+            throw new IllegalStateException("journal scan failed", ex.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Per-variant totals: outcomes, game length, win rates by first move and the
+     * frequency of every two-move opening. Abandoned games count towards the
+     * openings only.
+     */
+    public static final class Stats implements Visitor {
+
+        private static final int V = MnkRules.VARIANTS.length;
+
+        final long[] games = new long[V];
+        final long[] finished = new long[V];
+        final long[] plies = new long[V];          // moves of finished games
+        final long[][] outcomes = new long[V][3];  // X, O, draw
+        final long[][] byFirst = new long[V][];    // [cell * 3 + outcome]
+        final long[][] openings = new long[V][];   // [first * cells + second]
+
+        Stats() {
+            for (int v = 0; v < V; v++) {
+                int cells = MnkRules.VARIANTS[v].cells();
+                byFirst[v] = new long[cells * 3];
+                openings[v] = new long[cells * cells];
+            }
+        }
+
+        @Override
+        public void game(MnkRules rules, byte[] moves, int length, GameSession.Outcome outcome) {
+            int v = variant(rules), cells = rules.cells();
+            games[v]++;
+            int first = length > 0 ? moves[0] & 0xFF : -1;
+            if (length > 1 && first < cells && (moves[1] & 0xFF) < cells) openings[v][first * cells + (moves[1] & 0xFF)]++;
+            if (outcome == GameSession.Outcome.ONGOING) return;
+            int o = outcome.ordinal() - 1;
+            finished[v]++;
+            plies[v] += length;
+            outcomes[v][o]++;
+            if (first >= 0 && first < cells) byFirst[v][first * 3 + o]++;
+        }
+
+        void merge(Stats s) {
+            for (int v = 0; v < V; v++) {
+                games[v] += s.games[v];
+                finished[v] += s.finished[v];
+                plies[v] += s.plies[v];
+                for (int i = 0; i < 3; i++) outcomes[v][i] += s.outcomes[v][i];
+                for (int i = 0; i < byFirst[v].length; i++) byFirst[v][i] += s.byFirst[v][i];
+                for (int i = 0; i < openings[v].length; i++) openings[v][i] += s.openings[v][i];
+            }
+        }
+
+        public long games() {
+            long n = 0;
+            for (long g : games) n += g;
+            return n;
+        }
+
+        public void print(PrintStream out, int topOpenings) {
+            for (int v = 0; v < V; v++) {
+                if (games[v] == 0) continue;
+                MnkRules rules = MnkRules.VARIANTS[v];
+                long done = finished[v];
+                out.printf("%s: %d games, %d finished, average length %.2f moves%n",
+                        rules.name, games[v], done, done == 0 ? 0 : (double) plies[v] / done);
+                out.printf("  X %5.1f%%   O %5.1f%%   draw %5.1f%%%n",
+                        pct(outcomes[v][0], done), pct(outcomes[v][1], done), pct(outcomes[v][2], done));
+                out.printf("  %-10s %12s %7s %7s %7s%n", "first move", "games", "X%", "O%", "draw%");
+                for (int c = 0; c < rules.cells(); c++) {
+                    long x = byFirst[v][c * 3], o = byFirst[v][c * 3 + 1], d = byFirst[v][c * 3 + 2], n = x + o + d;
+                    if (n == 0) continue;
+                    out.printf("  %-10s %12d %7.1f %7.1f %7.1f%n", cell(rules, c), n, pct(x, n), pct(o, n), pct(d, n));
+                }
+                long[] open = openings[v];
+                long withTwo = 0;
+                for (long n : open) withTwo += n;
+                out.printf("  top openings (of %d games with two moves or more):%n", withTwo);
+                boolean[] shown = new boolean[open.length];
+                for (int k = 0; k < topOpenings; k++) {
+                    int best = -1;
+                    for (int i = 0; i < open.length; i++) if (!shown[i] && open[i] > 0 && (best < 0 || open[i] > open[best])) best = i;
+                    if (best < 0) break;
+                    shown[best] = true;
+                    out.printf("    %-4s %-4s %12d %6.2f%%%n", cell(rules, best / rules.cells()), cell(rules, best % rules.cells()),
+                            open[best], pct(open[best], withTwo));
+                }
+            }
+        }
+
+        private static String cell(MnkRules rules, int c) {
+            return (char) ('a' + c % rules.cols) + String.valueOf(c / rules.cols + 1);
+        }
+
+        private static double pct(long n, long of) {
+            return of == 0 ? 0 : 100.0 * n / of;
+        }
+    }
+
+    // ---- command line ----
+
+    // java GameJournal stats [file] [threads]
+    // java GameJournal bench [games] [file]   ingest random 3x3 games, then scan them
+    //                                         (file must not exist yet; it is kept afterwards)
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String cmd = args.length > 0 ? args[0] : "stats";
+        int threads = Runtime.getRuntime().availableProcessors();
+        if ("bench".equals(cmd)) {
+            long n = args.length > 1 ? Long.parseLong(args[1].replace("_", "")) : 10_000_000;
+            boolean temp = args.length <= 2;
+            Path file;
+            if (temp) {
+                file = Files.createTempFile("neon-bench", ".journal");
+                Files.delete(file);   // open() writes a fresh header
+            } else {
+                file = Paths.get(args[2]);
+                if (Files.exists(file)) throw new IllegalArgumentException("refusing to overwrite " + file + ": bench needs a new file");
+            }
+            try {
+                bench(file, n, threads);
+            } finally {
+                if (temp) Files.deleteIfExists(file);   // only the file made above
+            }
+            return;
+        }
+        Path file = args.length > 1 ? Paths.get(args[1]) : defaultPath();
+        if (args.length > 2) threads = Integer.parseInt(args[2]);
+        if (file == null || !Files.exists(file)) {
+            System.out.println("No journal at " + file);
+            return;
+        }
+        long t0 = System.nanoTime();
+        Stats s = analyze(file, threads);
+        report("Scanned", s.games(), Files.size(file), System.nanoTime() - t0);
+        s.print(System.out, 10);
+    }
+
+    private static void bench(Path file, long n, int threads) throws IOException, InterruptedException {
+        // a pool of random 3x3 games, generated up front so only the journal is timed
+        SplittableRandom rnd = new SplittableRandom(42);
+        BitBoard board = new BitBoard();
+        int[][] pool = new int[1 << 16][];
+        GameSession.Outcome[] outcomes = new GameSession.Outcome[pool.length];
+        int[] moves = new int[BitBoard.CELLS];
+        for (int g = 0; g < pool.length; g++) {
+            board.clear();
+            int len = 0;
+            GameSession.Outcome outcome = GameSession.Outcome.DRAW;
+            while (!board.isFull()) {
+                int side = board.toMove();
+                int free = ~(board.xMask() | board.oMask()) & BitBoard.FULL;
+                for (int k = rnd.nextInt(Integer.bitCount(free)); k > 0; k--) free &= free - 1;
+                int cell = Integer.numberOfTrailingZeros(free);
+                board.play(cell, side);
+                moves[len++] = cell;
+                if (board.winner() == side) {
+                    outcome = GameSession.Outcome.winFor(side);
+                    break;
+                }
+            }
+            pool[g] = java.util.Arrays.copyOf(moves, len);
+            outcomes[g] = outcome;
+        }
+        long t0 = System.nanoTime();
+        try (GameJournal j = open(file)) {
+            for (long g = 0; g < n; g++) {
+                int i = (int) g & (pool.length - 1);
+                j.appendGame(MnkRules.CLASSIC, pool[i], pool[i].length, outcomes[i]);
+            }
+        }
+        long ingest = System.nanoTime() - t0;
+        long size = Files.size(file);
+        report("Ingested", n, size, ingest);
+        System.out.printf("  %.2f bytes per game, fsync included%n", (double) (size - HEADER) / n);
+
+        for (int t = 1; ; t = Math.min(threads, t * 2)) {
+            long s0 = System.nanoTime();
+            Stats s = analyze(file, t);
+            report("Scanned (" + t + " thread" + (t == 1 ? ")" : "s)"), s.games(), size, System.nanoTime() - s0);
+            if (s.games() != n) throw new IllegalStateException("scanned " + s.games() + " of " + n + " games");
+            if (t == threads) {
+                s.print(System.out, 5);
+                break;
+            }
+        }
+    }
+
+    private static void report(String what, long games, long bytes, long nanos) {
+        double s = nanos / 1e9;
+        System.out.printf("%s %d games (%.1f MB) in %.2f s: %.0f games/s, %.0f MB/s%n",
+                what, games, bytes / 1e6, s, games / s, bytes / 1e6 / s);
+    }
+}
@@ -0,0 +1,250 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * GameServer.java
+ * Multi-session TCP server speaking a line protocol, one request or event per line.
+ *
+ * <pre>
+ * client                        server
+ * NEW PVC|PVP [3x3|4x4|...]     MATCH id X variant
+ * JOIN id                       MATCH id O variant   (creator gets JOINED id)
+ * MOVE cell                     MOVED X|O cell ...  END X_WINS|O_WINS|DRAW
+ * STATE                         STATE id variant cells toMove outcome
+ * STATS                         STATS key=value ...
+ * LEAVE | PING | QUIT           LEFT id | PONG | BYE
+ * errors                        ERR reason, or BUSY when the AI pool is full (retry)
+ * </pre>
+ *
+ * Each connection gets its own thread: a virtual thread when the JVM has them
+ * (21+), a pooled platform thread otherwise. The handler blocks on the socket
+ * and never searches; AI replies come from the SessionManager pool.
+ */
+public final class GameServer implements Closeable {
+
+    private final ServerSocket server;
+    private final SessionManager sessions;
+    private final ExecutorService connections = perConnectionExecutor();
+    private final AtomicInteger clients = new AtomicInteger();
+    private volatile boolean running = true;
+
+    public GameServer(int port, SessionManager sessions) throws IOException {
+        this.sessions = sessions;
+        server = new ServerSocket();
+        server.setReuseAddress(true);
+        server.bind(new InetSocketAddress(port), 1024);
+        if (Metrics.ENABLED) registerMetrics();
+    }
+
+    private void registerMetrics() {
+        Metrics.gauge("neon_server_clients", "Open client connections", clients::get);
+        Metrics.gauge("neon_server_matches", "Matches in progress", sessions::activeMatches);
+        Metrics.counter("neon_server_moves_total", "Moves played on the server", sessions::moves);
+        Metrics.counter("neon_server_busy_total", "AI moves refused because the pool was full", sessions::rejected);
+        Metrics.gauge("neon_ai_queue_depth", "AI requests waiting for a worker", sessions::aiQueueDepth, "pool", "server");
+        Metrics.summary("neon_server_move_seconds", "MOVE receipt to the last reply sent", 1e-9, sessions.moveLatency());
+    }
+
+    public int port() { return server.getLocalPort(); }
+    public SessionManager sessions() { return sessions; }
+
+    // Accept on a background thread and return immediately
+    public GameServer start() {
+        Thread acceptor = new Thread(this::acceptLoop, "neon-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        return this;
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket s = server.accept();
+                s.setTcpNoDelay(true);
+                connections.execute(() -> serve(s));
+            } catch (IOException ex) {
+                if (running) System.err.println("accept failed: " + ex.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        server.close();
+        connections.shutdownNow();
+        sessions.shutdown();
+    }
+
+    // Virtual thread per task when available (looked up reflectively so this still builds on 8-17)
+    static ExecutorService perConnectionExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            return Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(null, r, "neon-conn", 256 * 1024);
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    static boolean virtualThreads() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException ex) {
+            return false;
+        }
+    }
+
+    private void serve(Socket socket) {
+        clients.incrementAndGet();
+        Connection c = null;
+        try (Socket s = socket) {
+            c = new Connection(new BufferedWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.US_ASCII)));
+            BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.US_ASCII));
+            String line;
+            while ((line = in.readLine()) != null) {
+                long received = System.nanoTime();
+                if (!handle(c, line.trim(), received)) break;
+            }
+        } catch (SocketException ex) {
+            // client went away
+        } catch (IOException ex) {
+            System.err.println("connection failed: " + ex.getMessage());
+        } finally {
+            if (c != null && c.match != null) sessions.leave(c.match, c);
+            clients.decrementAndGet();
+        }
+    }
+
+    // One request; false closes the connection
+    private boolean handle(Connection c, String line, long received) {
+        if (line.isEmpty()) return true;
+        String[] tok = line.split("\\s+");
+        try {
+            switch (tok[0].toUpperCase(Locale.ROOT)) {
+                case "NEW": {
+                    Match.Mode mode = Match.Mode.valueOf(tok.length > 1 ? tok[1].toUpperCase(Locale.ROOT) : "PVC");
+                    MnkRules rules = tok.length > 2 ? MnkRules.forName(tok[2]) : MnkRules.CLASSIC;
+                    if (c.match != null) sessions.leave(c.match, c);
+                    c.match = sessions.create(mode, rules, c);
+                    c.send("MATCH " + c.match.id() + " X " + rules.token());
+                    break;
+                }
+                case "JOIN": {
+                    if (tok.length < 2) { c.send("ERR usage: JOIN id"); break; }
+                    Match m = sessions.join(Long.parseLong(tok[1]), c);
+                    if (m == null) { c.send("ERR no open seat in " + tok[1]); break; }
+                    if (c.match != null) sessions.leave(c.match, c);
+                    c.match = m;
+                    c.send("MATCH " + m.id() + " O " + m.session.rules().token());
+                    synchronized (m) {
+                        if (m.x != null) m.x.send("JOINED " + m.id());
+                    }
+                    break;
+                }
+                case "MOVE": {
+                    if (c.match == null) { c.send("ERR no match"); break; }
+                    if (tok.length < 2) { c.send("ERR usage: MOVE cell"); break; }
+                    String err = sessions.move(c.match, c, Integer.parseInt(tok[1]), received);
+                    if (err != null) c.send(err);
+                    break;
+                }
+                case "STATE":
+                    c.send(c.match == null ? "ERR no match" : c.match.describe());
+                    break;
+                case "STATS":
+                    c.send(stats());
+                    break;
+                case "LEAVE":
+                    if (c.match != null) {
+                        sessions.leave(c.match, c);
+                        c.send("LEFT " + c.match.id());
+                        c.match = null;
+                    }
+                    break;
+                case "PING":
+                    c.send("PONG");
+                    break;
+                case "QUIT":
+                    c.send("BYE");
+                    return false;
+                default:
+                    c.send("ERR unknown command " + tok[0]);
+            }
+        } catch (IllegalArgumentException ex) {   // also NumberFormatException
+            c.send("ERR " + ex.getMessage());
+        }
+        return true;
+    }
+
+    // Single line so load tools can grep it; latencies are MOVE receipt -> last reply
+    public String stats() {
+        LatencyHistogram h = sessions.moveLatency();
+        return String.format(Locale.ROOT,
+                "STATS clients=%d matches=%d moves=%d busy=%d aiQueue=%d n=%d p50_us=%.1f p99_us=%.1f mean_us=%.1f",
+                clients.get(), sessions.activeMatches(), sessions.moves(), sessions.rejected(),
+                sessions.aiQueueDepth(), h.count(), h.percentile(50) / 1e3, h.percentile(99) / 1e3,
+                h.meanNanos() / 1e3);
+    }
+
+    // One client socket; send() may be called from AI threads, hence the lock
+    private static final class Connection implements Match.Player {
+        private final Writer out;
+        Match match;    // handler thread only
+
+        Connection(Writer out) { this.out = out; }
+
+        @Override
+        public void send(String line) {
+            synchronized (out) {
+                try {
+                    out.write(line);
+                    out.write('\n');
+                    out.flush();
+                } catch (IOException ex) {
+                    // reader side notices the dead socket and cleans up
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = 7777;
+        int workers = Runtime.getRuntime().availableProcessors();
+        int queue = 256;
+        long budget = Long.getLong("neon.server.budgetMs", 100);
+        boolean useTablebase = true;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--port": port = Integer.parseInt(args[++i]); break;
+                case "--ai-workers": workers = Integer.parseInt(args[++i]); break;
+                case "--ai-queue": queue = Integer.parseInt(args[++i]); break;
+                case "--budget": budget = Long.parseLong(args[++i]); break;
+                case "--no-tablebase": useTablebase = false; break;
+                default: throw new IllegalArgumentException("unknown option " + args[i]);
+            }
+        }
+        Tablebase tb = useTablebase ? Tablebase.openOrGenerate(Tablebase.defaultPath()) : null;
+        GameServer s = new GameServer(port, new SessionManager(workers, queue, budget, tb)).start();
+        System.out.printf("GameServer on port %d: %d AI workers, queue %d, budget %d ms, %s threads%n",
+                s.port(), workers, queue, budget, virtualThreads() ? "virtual" : "platform");
+        Thread.currentThread().join();
+    }
+}
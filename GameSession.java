@@ -0,0 +1,90 @@
+/**
+ * GameSession.java
+ * Rules of one match, without any Swing: whose turn it is, move legality and the outcome.
+ *
+ * The UI, the self-play runner and anything else that hosts games drive a
+ * session and react to the returned {@link Outcome}; the board underneath is a
+ * {@link BitBoard} for 3x3, an {@link UltimateBoard} for ultimate and an
+ * {@link MnkBoard} for the other variants. Moves go through a {@link MoveStack},
+ * so a session can step back and forth along its history.
+ */
+public final class GameSession {
+
+    public enum Outcome {
+        ONGOING, X_WINS, O_WINS, DRAW;
+
+        public static Outcome winFor(int side) {
+            return side == GameState.X ? X_WINS : O_WINS;
+        }
+    }
+
+    private final MnkRules rules;
+    private final GameState board;
+    private final MoveStack history;
+    private Outcome outcome = Outcome.ONGOING;
+
+    public GameSession(MnkRules rules) {
+        this.rules = rules;
+        this.board = newBoard(rules);
+        this.history = new MoveStack(board);
+    }
+
+    public static GameState newBoard(MnkRules rules) {
+        if (rules.nested) return new UltimateBoard();
+        return rules == MnkRules.CLASSIC ? new BitBoard() : new MnkBoard(rules);
+    }
+
+    public MnkRules rules() { return rules; }
+    public GameState board() { return board; }
+    public Outcome outcome() { return outcome; }
+    public boolean isActive() { return outcome == Outcome.ONGOING; }
+    public int current() { return board.toMove(); }
+    public int moves() { return history.size(); }
+    public int lastMove() { return history.lastCell(); }
+
+    // Plies recorded, including undone ones that can still be redone
+    public int historyLength() { return history.length(); }
+    public boolean canUndo() { return history.canUndo(); }
+    public boolean canRedo() { return history.canRedo(); }
+
+    // Cells played so far, oldest first
+    public int[] history() { return history.cells(); }
+
+    public boolean isLegal(int cell) {
+        return isActive() && cell >= 0 && cell < board.size() && board.isLegal(cell);
+    }
+
+    // Play cell for the side to move and return the resulting outcome
+    public Outcome play(int cell) {
+        if (!isLegal(cell)) throw new IllegalArgumentException("illegal move " + cell + " in " + outcome + " game");
+        history.make(cell);
+        return settle();
+    }
+
+    // Jump to ply 0 .. historyLength() of the timeline
+    public Outcome seek(int ply) {
+        history.seek(ply);
+        return settle();
+    }
+
+    public void reset() {
+        board.clear();
+        history.clear();
+        outcome = Outcome.ONGOING;
+    }
+
+    // Outcome of the position now on the board, after a move in either direction
+    private Outcome settle() {
+        int w = board.winner();
+        outcome = w != GameState.EMPTY ? Outcome.winFor(w) : board.isFull() ? Outcome.DRAW : Outcome.ONGOING;
+        return outcome;
+    }
+
+    public int[] winningCells() {
+        return board.winningCells();
+    }
+
+    public static String symbol(int side) {
+        return side == GameState.X ? "X" : side == GameState.O ? "O" : "";
+    }
+}
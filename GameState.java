@@ -0,0 +1,61 @@
+/**
+ * GameState.java
+ * What the UI needs from a board, whatever its size: cells, moves, and the result.
+ * Implemented by {@link BitBoard} (3x3), {@link MnkBoard} (any m,n,k rule set)
+ * and {@link UltimateBoard} (nested 3x3 boards).
+ */
+public interface GameState {
+
+    int EMPTY = 0, X = 1, O = 2;
+
+    int rows();
+    int cols();
+
+    default int size() {
+        return rows() * cols();
+    }
+
+    int cell(int i);
+
+    default boolean isEmpty(int i) {
+        return cell(i) == EMPTY;
+    }
+
+    // Whether the side to move may play i; any empty cell unless the rules restrict it
+    default boolean isLegal(int i) {
+        return isEmpty(i);
+    }
+
+    // Cells the side to move may play; returns the count (0 once someone has won)
+    default int legalMoves(int[] out) {
+        if (winner() != EMPTY) return 0;
+        int n = 0;
+        for (int i = 0, size = size(); i < size; i++) if (isLegal(i)) out[n++] = i;
+        return n;
+    }
+
+    int toMove();
+
+    // Place a stone for side; the side to move becomes the opponent
+    void play(int i, int side);
+
+    // Exact inverse of play(i, side)
+    void undo(int i, int side);
+
+    void clear();
+
+    // X, O, or EMPTY while nobody has completed a line
+    int winner();
+
+    boolean isFull();
+
+    // Cells of the completed line, or an empty array
+    int[] winningCells();
+
+    // Independent snapshot, e.g. to hand to the AI thread
+    GameState copy();
+
+    static int opponent(int side) {
+        return side == X ? O : X;
+    }
+}
@@ -0,0 +1,74 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LatencyHistogram.java
+ * Lock-free log-linear histogram of nanosecond durations.
+ *
+ * Values below 64 get their own bucket; above that each power of two is split
+ * into 64 sub-buckets, so percentiles are within ~1.6% of the true value.
+ * record() is a couple of shifts and one atomic add, cheap enough for hot paths.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 6;
+    private static final int SUB = 1 << SUB_BITS;
+    private static final int BUCKETS = SUB + (64 - SUB_BITS) * SUB;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts.incrementAndGet(index(nanos));
+        total.increment();
+        sum.add(nanos);
+    }
+
+    public long count() { return total.sum(); }
+    public long sum() { return sum.sum(); }
+
+    public double meanNanos() {
+        long n = count();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    // Upper edge of the bucket holding the p-th percentile (0 < p <= 100), in nanoseconds
+    public long percentile(double p) {
+        long n = count();
+        if (n == 0) return 0;
+        long rank = (long) Math.ceil(n * p / 100.0), seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) return upper(i);
+        }
+        return upper(BUCKETS - 1);
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+        total.reset();
+        sum.reset();
+    }
+
+    static int index(long v) {
+        if (v < SUB) return (int) v;
+        int exp = 63 - Long.numberOfLeadingZeros(v);            // >= SUB_BITS
+        int sub = (int) (v >>> (exp - SUB_BITS)) & (SUB - 1);
+        return SUB + (exp - SUB_BITS) * SUB + sub;
+    }
+
+    static long upper(int i) {
+        if (i < SUB) return i;
+        int exp = (i - SUB) / SUB + SUB_BITS, sub = (i - SUB) % SUB;
+        long base = (1L << exp) + ((long) sub << (exp - SUB_BITS));
+        return base + (1L << (exp - SUB_BITS)) - 1;
+    }
+
+    // "n=.. p50=..us p99=..us max-bucket" style summary
+    public String summary() {
+        return String.format("n=%d mean=%.1fus p50=%.1fus p99=%.1fus p99.9=%.1fus",
+                count(), meanNanos() / 1e3, percentile(50) / 1e3, percentile(99) / 1e3, percentile(99.9) / 1e3);
+    }
+}
@@ -0,0 +1,128 @@
+import java.awt.*;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Launcher.java
+ * Startup-optimised entry point: a splash on screen first, then the game, then a warm engine.
+ *
+ * <pre>
+ * java Launcher            splash, game, startup report on stdout
+ * java Launcher --train    same, then warm every variant's engine and exit (CDS / AOT training run)
+ * </pre>
+ *
+ * The splash is a bare AWT frame, so it paints before any Swing class is loaded.
+ * The game frame is built on the EDT behind it and replaces it on its first
+ * paint; the game then defers what is not on screen yet (win particles,
+ * tablebase, engine warm-up) until after that paint. The report gives the
+ * splash and game first-paint times from JVM start and the latency of the
+ * first AI move.
+ *
+ * A training run records the classes (and on JDK 24+, AOT-linked code) the
+ * game needs, so later launches map them from an archive instead of loading
+ * and verifying them; see run-kiosk.sh.
+ */
+public final class Launcher {
+
+    private static final long T0 = System.nanoTime();
+
+    private static volatile boolean launched;
+    private static Frame splash;
+    private static long splashNanos, gameNanos;
+    private static boolean aiReported;
+
+    private Launcher() {}
+
+    public static void main(String[] args) {
+        boolean train = args.length > 0 && args[0].equals("--train");
+        launched = true;
+        if (GraphicsEnvironment.isHeadless()) {
+            if (!train) throw new HeadlessException("the game needs a display; --train warms the engines headless");
+            trainEngines();
+            return;
+        }
+        EventQueue.invokeLater(Launcher::showSplash);
+        EventQueue.invokeLater(NeonTicTacToeFull::new);
+        if (train) {
+            trainEngines();
+            EventQueue.invokeLater(() -> System.exit(0));
+        }
+    }
+
+    private static void showSplash() {
+        Frame f = new Frame("Neon Tic Tac Toe") {
+            @Override
+            public void paint(Graphics g) {
+                int w = getWidth(), h = getHeight();
+                g.setColor(Color.BLACK);
+                g.fillRect(0, 0, w, h);
+                g.setFont(new Font("Segoe UI", Font.BOLD, 44));
+                FontMetrics fm = g.getFontMetrics();
+                String title = "Neon Tic Tac Toe";
+                int x = (w - fm.stringWidth(title)) / 2, y = h / 2 + fm.getAscent() / 3;
+                for (int r = 3; r >= 1; r--) {                  // cheap glow: offset copies, dimmer further out
+                    g.setColor(new Color(0, 255, 247, 40 * (4 - r)));
+                    g.drawString(title, x - r, y);
+                    g.drawString(title, x + r, y);
+                }
+                g.setColor(new Color(0, 255, 247));
+                g.drawString(title, x, y);
+                if (splashNanos == 0) splashNanos = System.nanoTime();
+            }
+        };
+        f.setUndecorated(true);
+        f.setBackground(Color.BLACK);
+        f.setSize(640, 220);
+        f.setLocationRelativeTo(null);
+        f.setVisible(true);
+        // paint now: the native paint event would queue behind the game's construction
+        Graphics g = f.getGraphics();
+        if (g != null) {
+            f.paint(g);
+            g.dispose();
+            Toolkit.getDefaultToolkit().sync();
+        }
+        splash = f;
+    }
+
+    // Every variant's engine through a few searches and one real move request, so the
+    // archive holds the search classes and the lambdas and futures of the move path
+    private static void trainEngines() {
+        AiPlayer ai = new AiPlayer();
+        for (MnkRules r : MnkRules.VARIANTS) {
+            ai.warmUp(r, 300).join();   // one at a time: a new warm-up stops the last
+            GameState b = GameSession.newBoard(r);
+            b.play(b.size() / 2, b.toMove());
+            ai.move(b, 50).join();
+        }
+        ai.shutdown();
+    }
+
+    // ---- hooks from the game (EDT) ----
+
+    // The game frame painted for the first time
+    static void gamePainted() {
+        if (!launched || gameNanos != 0) return;
+        gameNanos = System.nanoTime();
+        if (splash != null) {
+            splash.dispose();
+            splash = null;
+        }
+        System.out.printf("Startup: splash painted %d ms, game painted %d ms after JVM start%n",
+                sinceJvmStart(splashNanos), sinceJvmStart(gameNanos));
+    }
+
+    // The first AI move took nanos from request to answer
+    static void aiMoved(long nanos) {
+        if (!launched || aiReported) return;
+        aiReported = true;
+        System.out.printf("Startup: first AI move %.1f ms%n", nanos / 1e6);
+    }
+
+    private static long sinceJvmStart(long nanos) {
+        if (nanos == 0) return -1;
+        // read only once the frame is up; the management classes cost a few ms to load
+        long jvmStart = ManagementFactory.getRuntimeMXBean().getStartTime();
+        long launcherStart = System.currentTimeMillis() - (System.nanoTime() - T0) / 1_000_000;
+        return launcherStart - jvmStart + (nanos - T0) / 1_000_000;
+    }
+}
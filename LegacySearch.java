@@ -0,0 +1,87 @@
+/**
+ * LegacySearch.java
+ * The original char[] minimax (no pruning) and its helpers, moved out of the UI as-is.
+ *
+ * Nothing in the game calls these any more; they stay as the reference
+ * implementation the bitboard search, tablebase and benchmarks are checked against.
+ * Boards are 9 chars: 'X', 'O' or ' '. Scores are from O's side.
+ */
+public final class LegacySearch {
+
+    // win patterns
+    private static final int[][] winPatterns = {
+            {0,1,2},{3,4,5},{6,7,8},
+            {0,3,6},{1,4,7},{2,5,8},
+            {0,4,8},{2,4,6}
+    };
+
+    private LegacySearch() {}
+
+    // Helper to check winner used by minimax
+    public static char getWinner(char[] arrBoard) {
+        // arrBoard length 9, indexes 0..8
+        for (int[] p : winPatterns) {
+            String a = String.valueOf(arrBoard[p[0]]);
+            String b = String.valueOf(arrBoard[p[1]]);
+            String c = String.valueOf(arrBoard[p[2]]);
+            if (a.charAt(0) != ' ' && a.equals(b) && b.equals(c)) return a.charAt(0);
+        }
+        return ' ';
+    }
+
+    public static char getWinner(String[] sboard) {
+        for (int[] p : winPatterns) {
+            if (!sboard[p[0]].equals("") && sboard[p[0]].equals(sboard[p[1]]) && sboard[p[1]].equals(sboard[p[2]])) {
+                return sboard[p[0]].charAt(0);
+            }
+        }
+        return ' ';
+    }
+
+    // Minimax helper works on char[][] version; convert when calling
+    public static int minimaxBoard(char[] b, int depth, boolean isMax) {
+        char w = getWinner(b);
+        if (w == 'O') return 10 - depth;
+        if (w == 'X') return depth - 10;
+        boolean full = true;
+        for (char c : b) if (c == ' ') { full = false; break; }
+        if (full) return 0;
+
+        if (isMax) {
+            int best = Integer.MIN_VALUE;
+            for (int i = 0; i < 9; i++) if (b[i] == ' ') {
+                b[i] = 'O';
+                best = Math.max(best, minimaxBoard(b, depth+1, false));
+                b[i] = ' ';
+            }
+            return best;
+        } else {
+            int best = Integer.MAX_VALUE;
+            for (int i = 0; i < 9; i++) if (b[i] == ' ') {
+                b[i] = 'X';
+                best = Math.min(best, minimaxBoard(b, depth+1, true));
+                b[i] = ' ';
+            }
+            return best;
+        }
+    }
+
+    // Minimax wrapper used earlier expects char[][]; below convenient conversion and call
+    public static int minimax(char[] boardFlat, int depth, boolean isMaximizing) {
+        return minimaxBoard(boardFlat, depth, isMaximizing);
+    }
+
+    // convert String[] board to char[] flatten
+    public static char[] flattenBoard(String[] sb) {
+        char[] out = new char[9];
+        for (int i=0;i<9;i++) out[i] = sb[i].equals("") ? ' ' : sb[i].charAt(0);
+        return out;
+    }
+
+    // char[] view of a BitBoard, for feeding the legacy search
+    public static char[] toChars(BitBoard b) {
+        char[] out = new char[9];
+        for (int i = 0; i < 9; i++) out[i] = b.cell(i) == GameState.X ? 'X' : b.cell(i) == GameState.O ? 'O' : ' ';
+        return out;
+    }
+}
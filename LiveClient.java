@@ -0,0 +1,200 @@
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.Socket;
+
+/**
+ * LiveClient.java
+ * Blocking client for {@link LiveServer}: one player (or spectator) seat, events on a reader thread.
+ *
+ * The client keeps the number of moves it has applied. MOVED frames are
+ * handed on in order; a repeat is dropped and a gap triggers a RESYNC, so the
+ * listener only ever sees a snapshot followed by consecutive moves. When the
+ * connection drops the client reconnects with growing back-off and takes its
+ * seat back (or resumes watching); the server answers with a snapshot, which
+ * replaces whatever the listener had.
+ */
+public final class LiveClient implements Closeable {
+
+    private static final int RECONNECT_TRIES = 8;
+    private static final long RECONNECT_BACKOFF_MS = 250;
+
+    // Called on the reader thread
+    public interface Listener {
+        void welcome(int gameId, int side);
+        void snapshot(MnkRules rules, int[] moves);   // the whole game so far
+        void moved(int seq, int cell);                 // the next move, seq == moves applied so far
+        void rejected(int seq);                        // our move was stale or illegal; a snapshot follows
+        void error(int code);
+        void connectionLost(boolean reconnecting);
+    }
+
+    private final String host;
+    private final int port;
+    private final Listener listener;
+    private volatile Socket socket;
+    private volatile DataOutputStream out;
+    private volatile boolean closed;
+    private volatile int gameId, side = -1;   // side -1 until seated, EMPTY when watching
+    private volatile int token;                // proves the seat is ours when rejoining
+    private volatile int applied;              // moves handed to the listener
+    private boolean resyncing;                 // reader thread only
+
+    private LiveClient(String host, int port, Listener listener) {
+        this.host = host;
+        this.port = port;
+        this.listener = listener;
+    }
+
+    public static LiveClient connect(String host, int port, Listener listener) throws IOException {
+        LiveClient c = new LiveClient(host, port, listener);
+        c.open();
+        Thread t = new Thread(c::readLoop, "neon-live-client");
+        t.setDaemon(true);
+        t.start();
+        return c;
+    }
+
+    public int gameId() { return gameId; }
+    public int side() { return side; }
+    public int moves() { return applied; }
+
+    public void create(MnkRules rules) throws IOException {
+        send(new byte[] {LiveServer.CREATE, (byte) variantIndex(rules)});
+    }
+
+    // side: GameState.X / O, or 0 for whichever seat is free; only a seat nobody has held yet
+    public void join(int game, int side) throws IOException {
+        join(game, side, 0);
+    }
+
+    private void join(int game, int side, int token) throws IOException {
+        send(new byte[] {LiveServer.JOIN, (byte) (game >> 24), (byte) (game >> 16), (byte) (game >> 8), (byte) game, (byte) side,
+                (byte) (token >> 24), (byte) (token >> 16), (byte) (token >> 8), (byte) token});
+    }
+
+    public void watch(int game) throws IOException {
+        send(new byte[] {LiveServer.WATCH, (byte) (game >> 24), (byte) (game >> 16), (byte) (game >> 8), (byte) game});
+    }
+
+    // Propose cell as the next move; it counts once it comes back as MOVED
+    public void move(int cell) throws IOException {
+        int seq = applied;
+        send(new byte[] {LiveServer.MOVE, (byte) (seq >> 8), (byte) seq, (byte) cell});
+    }
+
+    public void resync() throws IOException {
+        send(new byte[] {LiveServer.RESYNC});
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Socket s = socket;
+        if (s != null) {
+            try {
+                s.close();
+            } catch (IOException ignored) {
+                // closing anyway
+            }
+        }
+    }
+
+    private void open() throws IOException {
+        Socket s = new Socket(host, port);
+        s.setTcpNoDelay(true);
+        out = new DataOutputStream(s.getOutputStream());
+        socket = s;
+    }
+
+    private void send(byte[] frame) throws IOException {
+        DataOutputStream o = out;
+        synchronized (this) {
+            o.write(frame);
+            o.flush();
+        }
+    }
+
+    private void readLoop() {
+        while (!closed) {
+            try {
+                read(new DataInputStream(new BufferedInputStream(socket.getInputStream())));
+            } catch (IOException ex) {
+                // dropped: fall through to reconnect
+            }
+            if (closed) return;
+            boolean retry = side >= 0;
+            listener.connectionLost(retry);
+            if (!retry || !reconnect()) return;
+        }
+    }
+
+    private void read(DataInputStream in) throws IOException {
+        while (true) {
+            int type = in.readByte();
+            switch ((byte) type) {
+                case LiveServer.WELCOME:
+                    gameId = in.readInt();
+                    side = in.readByte();
+                    token = in.readInt();
+                    listener.welcome(gameId, side);
+                    break;
+                case LiveServer.SNAPSHOT: {
+                    MnkRules rules = MnkRules.VARIANTS[in.readByte()];
+                    int[] moves = new int[in.readUnsignedShort()];
+                    for (int i = 0; i < moves.length; i++) moves[i] = in.readUnsignedByte();
+                    applied = moves.length;
+                    resyncing = false;
+                    listener.snapshot(rules, moves);
+                    break;
+                }
+                case LiveServer.MOVED: {
+                    int seq = in.readUnsignedShort(), cell = in.readUnsignedByte();
+                    if (resyncing || seq < applied) break;   // a repeat, or the snapshot will cover it
+                    if (seq > applied) {
+                        resyncing = true;
+                        resync();
+                        break;
+                    }
+                    applied = seq + 1;
+                    listener.moved(seq, cell);
+                    break;
+                }
+                case LiveServer.REJECT:
+                    listener.rejected(in.readUnsignedShort());
+                    break;
+                case LiveServer.ERROR:
+                    listener.error(in.readUnsignedByte());
+                    break;
+                default:
+                    throw new EOFException("unknown frame " + type);
+            }
+        }
+    }
+
+    // Back to the same seat (or game, when watching); false after RECONNECT_TRIES failures
+    private boolean reconnect() {
+        for (int attempt = 1; attempt <= RECONNECT_TRIES && !closed; attempt++) {
+            try {
+                Thread.sleep(RECONNECT_BACKOFF_MS * attempt);
+                open();
+                if (side == GameState.EMPTY) watch(gameId);
+                else join(gameId, side, token);
+                return true;
+            } catch (IOException ex) {
+                // server still away: try again
+            } catch (InterruptedException ex) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    static int variantIndex(MnkRules rules) {
+        for (int i = 0; i < MnkRules.VARIANTS.length; i++) if (MnkRules.VARIANTS[i] == rules) return i;
+        throw new IllegalArgumentException("not a shared variant: " + rules);
+    }
+}
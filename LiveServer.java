@@ -0,0 +1,460 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.security.SecureRandom;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LiveServer.java
+ * Online PvP with spectators: a single-threaded NIO server speaking a binary protocol of tiny frames.
+ *
+ * <pre>
+ * client -> server                         server -> client
+ * CREATE  01 variant                       WELCOME  81 game:4 side token:4  (X = 1, O = 2, spectator = 0)
+ * JOIN    02 game:4 side token:4           SNAPSHOT 82 variant n:2 cell*n   (the game so far)
+ * WATCH   03 game:4                        MOVED    83 seq:2 cell           (move number seq, from 0)
+ * MOVE    04 seq:2 cell                    REJECT   84 seq:2                (then a SNAPSHOT)
+ * RESYNC  05                               ERROR    85 code
+ * </pre>
+ *
+ * A move is a one-byte delta (its cell) with a sequence number that is also its
+ * ply, so a client applies MOVED frames in order, drops repeats and asks for a
+ * RESYNC on a gap. MOVE carries the seq the sender expects; a stale or illegal
+ * one is rejected and answered with a snapshot. A seat's WELCOME carries a
+ * random token: a JOIN with side 0 (any free seat) or token 0 only takes a seat
+ * nobody has held yet, and taking back a seat left by a dropped connection
+ * needs its token, so a reconnect cannot be hijacked by guessing the game id.
+ * Every join, watch or resync starts with a SNAPSHOT: the variant and the move
+ * list, one byte per move, which replays the board exactly (Ultimate's forced
+ * board included).
+ *
+ * Games are bounded: a connection keeps at most -Dneon.live.gamesPerConn
+ * (default 4) open games it created, the server -Dneon.live.maxGames (default
+ * 10000), and an unfinished game with both seats empty for -Dneon.live.graceMs
+ * (default 120000) is dropped, its spectators told NO_GAME.
+ *
+ * Each game keeps its MOVED frames in one byte array sized for the longest
+ * game, at offset seq * 4. A connection watching it holds a ByteBuffer view of
+ * that array and its own position in it, so a move is appended once and
+ * fanned out by moving each view's limit and writing what the socket takes;
+ * a slow viewer just keeps its position and gets OP_WRITE interest. Nothing is
+ * copied or allocated per viewer or per move. All state belongs to the
+ * selector thread.
+ */
+public final class LiveServer implements Closeable {
+
+    static final byte CREATE = 1, JOIN = 2, WATCH = 3, MOVE = 4, RESYNC = 5;
+    static final byte WELCOME = (byte) 0x81, SNAPSHOT = (byte) 0x82, MOVED = (byte) 0x83,
+            REJECT = (byte) 0x84, ERROR = (byte) 0x85;
+    static final int MOVED_BYTES = 4, WELCOME_BYTES = 10;
+    static final int NO_GAME = 1, SEAT_TAKEN = 2, BAD_VARIANT = 3, NOT_PLAYING = 4, BAD_FRAME = 5, TOO_MANY_GAMES = 6;
+
+    private static final int GAMES_PER_CONN = Integer.getInteger("neon.live.gamesPerConn", 4);
+    private static final int MAX_GAMES = Integer.getInteger("neon.live.maxGames", 10_000);
+    private static final long GRACE_NANOS = Long.getLong("neon.live.graceMs", 120_000) * 1_000_000L;
+    private static final long SWEEP_MS = 1000;
+
+    private final ServerSocketChannel server;
+    private final Selector selector;
+    private final Map<Integer, Game> games = new HashMap<>();
+    private int nextId = 1;
+    private final SecureRandom tokens = new SecureRandom();
+    private long lastSweep = System.nanoTime();
+    private volatile boolean running = true;
+
+    // Metrics
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicInteger spectators = new AtomicInteger();
+    private final LongAdder moves = new LongAdder();
+    private final LongAdder bytesSent = new LongAdder();
+    private final LatencyHistogram fanOutTimes = new LatencyHistogram();
+
+    private static final class Game {
+        final int id;
+        final int variant;
+        final Conn creator;
+        final GameSession session;
+        final byte[] log;                       // MOVED frames, seq * MOVED_BYTES apart
+        int logEnd;
+        Conn x, o;
+        final int[] token = new int[3];         // per side; 0 until the seat is first taken
+        long vacantSince;                       // nanoTime both seats emptied, 0 while seated
+        final List<Conn> viewers = new ArrayList<>();   // players and spectators
+        byte[] snapshot;                        // cached for snapshotSeq
+        int snapshotSeq = -1;
+
+        Game(int id, int variant, Conn creator) {
+            this.id = id;
+            this.variant = variant;
+            this.creator = creator;
+            session = new GameSession(MnkRules.VARIANTS[variant]);
+            log = new byte[session.board().size() * MOVED_BYTES];
+        }
+    }
+
+    private static final class Conn {
+        final SocketChannel ch;
+        SelectionKey key;
+        final ByteBuffer in = ByteBuffer.allocate(64);
+        final ArrayDeque<ByteBuffer> pending = new ArrayDeque<>();   // own frames, sent before the log
+        Game game;
+        int side;                               // GameState.X / O, EMPTY while spectating
+        ByteBuffer logView;                     // the game's log; position = next byte to send
+        int created;                            // open games this connection created
+
+        Conn(SocketChannel ch) { this.ch = ch; }
+    }
+
+    public LiveServer(int port) throws IOException {
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        server.bind(new InetSocketAddress(port), 4096);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+        if (Metrics.ENABLED) registerMetrics();
+    }
+
+    private void registerMetrics() {
+        Metrics.gauge("neon_live_connections", "Open live-play connections", connections::get);
+        Metrics.gauge("neon_live_spectators", "Connections watching a game", spectators::get);
+        Metrics.counter("neon_live_moves_total", "Moves played online", moves::sum);
+        Metrics.counter("neon_live_sent_bytes_total", "Bytes written to live-play sockets", bytesSent::sum);
+        Metrics.summary("neon_live_fanout_seconds", "Time to hand one move to every viewer's socket", 1e-9, fanOutTimes);
+    }
+
+    public int port() { return server.socket().getLocalPort(); }
+    public int connections() { return connections.get(); }
+    public int spectators() { return spectators.get(); }
+    public long moves() { return moves.sum(); }
+    public LatencyHistogram fanOutTimes() { return fanOutTimes; }
+
+    // Serve on a background thread and return immediately
+    public LiveServer start() {
+        Thread t = new Thread(this::loop, "neon-live");
+        t.setDaemon(true);
+        t.start();
+        return this;
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        selector.wakeup();
+        server.close();
+    }
+
+    private void loop() {
+        try {
+            while (running) {
+                selector.select(SWEEP_MS);
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey k = it.next();
+                    it.remove();
+                    if (!k.isValid()) continue;
+                    if (k.isAcceptable()) accept();
+                    else {
+                        Conn c = (Conn) k.attachment();
+                        if (k.isWritable()) flush(c);
+                        if (k.isValid() && k.isReadable()) read(c);
+                    }
+                }
+                if (System.nanoTime() - lastSweep > SWEEP_MS * 1_000_000L) sweep();
+            }
+        } catch (IOException ex) {
+            if (running) System.err.println("live server stopped: " + ex.getMessage());
+        } finally {
+            for (SelectionKey k : selector.keys()) closeQuietly(k.channel());
+            closeQuietly(selector);
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel ch;
+        while ((ch = server.accept()) != null) {
+            ch.configureBlocking(false);
+            ch.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            Conn c = new Conn(ch);
+            c.key = ch.register(selector, SelectionKey.OP_READ, c);
+            connections.incrementAndGet();
+        }
+    }
+
+    private void read(Conn c) {
+        int n;
+        try {
+            n = c.ch.read(c.in);
+        } catch (IOException ex) {
+            n = -1;
+        }
+        if (n < 0) {
+            drop(c);
+            return;
+        }
+        ByteBuffer in = c.in;
+        in.flip();
+        while (in.hasRemaining() && c.key.isValid()) {
+            int size = requestSize(in.get(in.position()));
+            if (size < 0) {
+                error(c, BAD_FRAME);
+                flush(c);
+                drop(c);
+                return;
+            }
+            if (in.remaining() < size) break;
+            handle(c, in);
+        }
+        in.compact();
+    }
+
+    static int requestSize(byte type) {
+        switch (type) {
+            case CREATE: return 2;
+            case JOIN: return 10;
+            case WATCH: return 5;
+            case MOVE: return 4;
+            case RESYNC: return 1;
+            default: return -1;
+        }
+    }
+
+    private void handle(Conn c, ByteBuffer in) {
+        byte type = in.get();
+        switch (type) {
+            case CREATE: {
+                int variant = in.get();
+                if (variant < 0 || variant >= MnkRules.VARIANTS.length) {
+                    error(c, BAD_VARIANT);
+                    break;
+                }
+                if (c.created >= GAMES_PER_CONN || games.size() >= MAX_GAMES) {
+                    error(c, TOO_MANY_GAMES);
+                    break;
+                }
+                Game g = new Game(nextId++, variant, c);
+                games.put(g.id, g);
+                c.created++;
+                attach(c, g, GameState.X);
+                break;
+            }
+            case JOIN: {
+                Game g = games.get(in.getInt());
+                int side = in.get(), token = in.getInt();
+                if (g == null) {
+                    error(c, NO_GAME);
+                    break;
+                }
+                if (side == 0) side = g.x == c || g.token[GameState.X] == 0 ? GameState.X : GameState.O;
+                if (side != GameState.X && side != GameState.O) {
+                    error(c, BAD_FRAME);
+                    break;
+                }
+                Conn seat = side == GameState.X ? g.x : g.o;
+                // a new seat is free to anyone; a seat held before only to its token
+                boolean mine = seat == c || (seat == null && (g.token[side] == 0 || g.token[side] == token));
+                if (!mine) {
+                    error(c, SEAT_TAKEN);
+                    break;
+                }
+                attach(c, g, side);
+                break;
+            }
+            case WATCH: {
+                Game g = games.get(in.getInt());
+                if (g == null) error(c, NO_GAME);
+                else attach(c, g, GameState.EMPTY);
+                break;
+            }
+            case MOVE: {
+                int seq = in.getShort() & 0xFFFF, cell = in.get() & 0xFF;
+                Game g = c.game;
+                if (g == null || c.side == GameState.EMPTY) {
+                    error(c, NOT_PLAYING);
+                    break;
+                }
+                GameSession s = g.session;
+                if (seq != s.moves() || s.current() != c.side || !s.isLegal(cell)) {
+                    c.pending.add(frame(REJECT, s.moves() >> 8, s.moves()));
+                    c.pending.add(snapshot(g));
+                    break;
+                }
+                s.play(cell);
+                int at = seq * MOVED_BYTES;
+                g.log[at] = MOVED;
+                g.log[at + 1] = (byte) (seq >> 8);
+                g.log[at + 2] = (byte) seq;
+                g.log[at + 3] = (byte) cell;
+                g.logEnd = at + MOVED_BYTES;
+                moves.increment();
+                fanOut(g);
+                return;
+            }
+            case RESYNC:
+                if (c.game == null) error(c, NOT_PLAYING);
+                else c.pending.add(snapshot(c.game));
+                break;
+        }
+        flush(c);
+    }
+
+    // Seat (or seat as a spectator) c in g, then WELCOME and a SNAPSHOT; the log view starts after it
+    private void attach(Conn c, Game g, int side) {
+        detach(c);
+        c.game = g;
+        c.side = side;
+        if (side == GameState.X) g.x = c;
+        else if (side == GameState.O) g.o = c;
+        else spectators.incrementAndGet();
+        if (side != GameState.EMPTY) {
+            while (g.token[side] == 0) g.token[side] = tokens.nextInt();
+            g.vacantSince = 0;
+        }
+        g.viewers.add(c);
+        c.logView = ByteBuffer.wrap(g.log);
+        c.logView.position(g.logEnd).limit(g.logEnd);
+        ByteBuffer welcome = ByteBuffer.allocate(WELCOME_BYTES);
+        welcome.put(WELCOME).putInt(g.id).put((byte) side).putInt(side == GameState.EMPTY ? 0 : g.token[side]).flip();
+        c.pending.add(welcome);
+        c.pending.add(snapshot(g));
+    }
+
+    private void detach(Conn c) {
+        Game g = c.game;
+        if (g == null) return;
+        if (g.x == c) g.x = null;
+        if (g.o == c) g.o = null;
+        if (c.side == GameState.EMPTY) spectators.decrementAndGet();
+        g.viewers.remove(c);
+        c.game = null;
+        c.logView = null;
+        // a finished game nobody looks at is gone; an open one waits for its players to reconnect
+        if (g.viewers.isEmpty() && !g.session.isActive()) removeGame(g);
+        else if (g.x == null && g.o == null && g.vacantSince == 0) g.vacantSince = System.nanoTime();
+    }
+
+    private void removeGame(Game g) {
+        if (games.remove(g.id) != null) g.creator.created--;
+    }
+
+    // Drop unfinished games whose players have been gone longer than the grace period
+    private void sweep() {
+        long now = System.nanoTime();
+        lastSweep = now;
+        List<Game> expired = new ArrayList<>();
+        for (Game g : games.values()) {
+            if (g.vacantSince != 0 && g.x == null && g.o == null && now - g.vacantSince > GRACE_NANOS) expired.add(g);
+        }
+        for (Game g : expired) {
+            for (Conn c : new ArrayList<>(g.viewers)) {
+                detach(c);
+                error(c, NO_GAME);
+                flush(c);
+            }
+            removeGame(g);
+        }
+    }
+
+    // The game's snapshot frame, rebuilt once per move and shared by everyone who asks
+    private static ByteBuffer snapshot(Game g) {
+        int n = g.session.moves();
+        if (g.snapshotSeq != n) {
+            byte[] s = new byte[4 + n];
+            s[0] = SNAPSHOT;
+            s[1] = (byte) g.variant;
+            s[2] = (byte) (n >> 8);
+            s[3] = (byte) n;
+            for (int i = 0; i < n; i++) s[4 + i] = g.log[i * MOVED_BYTES + 3];
+            g.snapshot = s;
+            g.snapshotSeq = n;
+        }
+        return ByteBuffer.wrap(g.snapshot).asReadOnlyBuffer();
+    }
+
+    private static ByteBuffer frame(byte type, int... bytes) {
+        ByteBuffer b = ByteBuffer.allocate(1 + bytes.length);
+        b.put(type);
+        for (int v : bytes) b.put((byte) v);
+        b.flip();
+        return b;
+    }
+
+    private void error(Conn c, int code) {
+        c.pending.add(frame(ERROR, code));
+    }
+
+    // New log bytes: extend every view and write to the sockets not already waiting for OP_WRITE
+    private void fanOut(Game g) {
+        long t0 = System.nanoTime();
+        List<Conn> viewers = g.viewers;
+        for (int i = 0; i < viewers.size(); i++) {
+            Conn c = viewers.get(i);
+            c.logView.limit(g.logEnd);
+            if ((c.key.interestOps() & SelectionKey.OP_WRITE) == 0 && !flush(c)) i--;   // dropped
+        }
+        fanOutTimes.record(System.nanoTime() - t0);
+    }
+
+    // Write own frames, then the log; false if the connection died
+    private boolean flush(Conn c) {
+        try {
+            while (!c.pending.isEmpty()) {
+                ByteBuffer b = c.pending.peek();
+                bytesSent.add(c.ch.write(b));
+                if (b.hasRemaining()) {
+                    c.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    return true;
+                }
+                c.pending.poll();
+            }
+            if (c.logView != null && c.logView.hasRemaining()) {
+                bytesSent.add(c.ch.write(c.logView));
+                if (c.logView.hasRemaining()) {
+                    c.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    return true;
+                }
+            }
+            if (c.key.isValid()) c.key.interestOps(SelectionKey.OP_READ);
+            return true;
+        } catch (IOException ex) {
+            drop(c);
+            return false;
+        }
+    }
+
+    private void drop(Conn c) {
+        if (!c.key.isValid()) return;
+        detach(c);
+        c.key.cancel();
+        closeQuietly(c.ch);
+        connections.decrementAndGet();
+    }
+
+    private static void closeQuietly(Closeable c) {
+        try {
+            c.close();
+        } catch (IOException ignored) {
+            // closing anyway
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 7788;
+        LiveServer s = new LiveServer(port).start();
+        System.out.printf("LiveServer on port %d%n", s.port());
+        Thread.currentThread().join();
+    }
+}
@@ -0,0 +1,169 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LoadGenerator.java
+ * Opens many client connections against a GameServer, plays random PVC games on
+ * each and reports round-trip and server-side move latency percentiles.
+ *
+ * <pre>
+ * java LoadGenerator [--clients N] [--games G] [--variant 3x3|4x4|5x5|15x15|ultimate]
+ *                    [--host H --port P]   (omit --port to start a server in-process)
+ *                    [--ai-workers W] [--ai-queue Q] [--budget MS]
+ * </pre>
+ *
+ * A round trip is MOVE sent -> the computer's reply (or END) received. BUSY
+ * replies are retried after a short backoff and counted, not timed.
+ */
+public final class LoadGenerator {
+
+    private final String host;
+    private final int port;
+    private final MnkRules rules;
+    private final int games;
+    private final LatencyHistogram rtt = new LatencyHistogram();
+    private final AtomicLong busy = new AtomicLong();
+    private final AtomicLong finished = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    LoadGenerator(String host, int port, MnkRules rules, int games) {
+        this.host = host;
+        this.port = port;
+        this.rules = rules;
+        this.games = games;
+    }
+
+    // One simulated player: plays its games back to back on a single connection
+    private void client(long seed) {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        GameSession mirror = new GameSession(rules);
+        int[] free = new int[rules.cells()];
+        try (Socket s = new Socket(host, port)) {
+            s.setTcpNoDelay(true);
+            OutputStream out = s.getOutputStream();
+            BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.US_ASCII));
+            for (int g = 0; g < games; g++) {
+                send(out, "NEW PVC " + rules.token());
+                expect(in.readLine(), "MATCH");
+                mirror.reset();
+                while (mirror.isActive()) {
+                    GameState b = mirror.board();
+                    int n = b.legalMoves(free);
+                    int mv = free[rnd.nextInt(n)];
+                    long t0 = System.nanoTime();
+                    send(out, "MOVE " + mv);
+                    String reply = in.readLine();
+                    for (int backoff = 1; "BUSY".equals(reply); backoff = Math.min(64, backoff * 2)) {
+                        busy.incrementAndGet();
+                        Thread.sleep(backoff + rnd.nextInt(backoff));
+                        t0 = System.nanoTime();
+                        send(out, "MOVE " + mv);
+                        reply = in.readLine();
+                    }
+                    apply(mirror, expect(reply, "MOVED"));
+                    if (mirror.isActive()) apply(mirror, expect(in.readLine(), "MOVED"));
+                    rtt.record(System.nanoTime() - t0);
+                    if (!mirror.isActive()) expect(in.readLine(), "END");
+                }
+                finished.incrementAndGet();
+            }
+            send(out, "QUIT");
+        } catch (IOException | RuntimeException ex) {
+            failures.incrementAndGet();
+            System.err.println("client failed: " + ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void apply(GameSession mirror, String moved) {
+        mirror.play(Integer.parseInt(moved.substring(moved.lastIndexOf(' ') + 1)));
+    }
+
+    private static String expect(String line, String prefix) throws IOException {
+        if (line == null) throw new IOException("connection closed, expected " + prefix);
+        if (!line.startsWith(prefix)) throw new IOException("expected " + prefix + ", got " + line);
+        return line;
+    }
+
+    private static void send(OutputStream out, String line) throws IOException {
+        out.write((line + "\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    private String serverStats() throws IOException {
+        try (Socket s = new Socket(host, port)) {
+            OutputStream out = s.getOutputStream();
+            BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.US_ASCII));
+            send(out, "STATS");
+            return in.readLine();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        String host = "localhost";
+        int port = -1;
+        int clients = 200;
+        int games = 5;
+        MnkRules rules = MnkRules.CLASSIC;
+        int workers = Runtime.getRuntime().availableProcessors();
+        int queue = 256;
+        long budget = Long.getLong("neon.server.budgetMs", 100);
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--host": host = args[++i]; break;
+                case "--port": port = Integer.parseInt(args[++i]); break;
+                case "--clients": clients = Integer.parseInt(args[++i]); break;
+                case "--games": games = Integer.parseInt(args[++i]); break;
+                case "--variant": rules = MnkRules.forName(args[++i]); break;
+                case "--ai-workers": workers = Integer.parseInt(args[++i]); break;
+                case "--ai-queue": queue = Integer.parseInt(args[++i]); break;
+                case "--budget": budget = Long.parseLong(args[++i]); break;
+                default: throw new IllegalArgumentException("unknown option " + args[i]);
+            }
+        }
+
+        GameServer embedded = null;
+        if (port < 0) {
+            Tablebase tb = rules == MnkRules.CLASSIC ? Tablebase.openOrGenerate(Tablebase.defaultPath()) : null;
+            embedded = new GameServer(0, new SessionManager(workers, queue, budget, tb)).start();
+            port = embedded.port();
+            host = "localhost";
+            System.out.printf("embedded server on port %d: %d AI workers, queue %d, budget %d ms, %s threads%n",
+                    port, workers, queue, budget, GameServer.virtualThreads() ? "virtual" : "platform");
+        }
+
+        LoadGenerator load = new LoadGenerator(host, port, rules, games);
+        System.out.printf("LoadGenerator: %d clients x %d %s games against %s:%d%n", clients, games, rules, host, port);
+        ExecutorService pool = GameServer.perConnectionExecutor();
+        CountDownLatch done = new CountDownLatch(clients);
+        long t0 = System.nanoTime();
+        for (int c = 0; c < clients; c++) {
+            long seed = 0x5DEECE66DL * (c + 1);
+            pool.execute(() -> {
+                try {
+                    load.client(seed);
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        double secs = (System.nanoTime() - t0) / 1e9;
+        pool.shutdownNow();
+
+        System.out.printf("games %d in %.2fs (%.0f games/s), failures %d, BUSY retries %d%n",
+                load.finished.get(), secs, load.finished.get() / secs, load.failures.get(), load.busy.get());
+        System.out.println("client round trip: " + load.rtt.summary());
+        System.out.println("server: " + load.serverStats());
+        if (embedded != null) embedded.close();
+    }
+}
@@ -0,0 +1,58 @@
+/**
+ * Match.java
+ * Server-side state of one hosted game: its session, mode and seated players.
+ *
+ * All reads and writes of a match happen while holding its monitor; players
+ * are notified through {@link Player#send(String)}, which must not block for long.
+ */
+public final class Match {
+
+    public enum Mode { PVP, PVC }
+
+    // Whatever sits in a seat: a network connection, a test stub...
+    public interface Player {
+        void send(String line);
+    }
+
+    final long id;
+    final Mode mode;
+    final GameSession session;
+    Player x, o;           // o stays null in PVC (the server plays O)
+    boolean aiThinking;
+    boolean closed;
+
+    Match(long id, Mode mode, MnkRules rules) {
+        this.id = id;
+        this.mode = mode;
+        this.session = new GameSession(rules);
+    }
+
+    public long id() { return id; }
+    public Mode mode() { return mode; }
+
+    synchronized int sideOf(Player p) {
+        return p == x ? GameState.X : p == o ? GameState.O : GameState.EMPTY;
+    }
+
+    synchronized boolean isFull() {
+        return mode == Mode.PVC || o != null;
+    }
+
+    // Tell every seated player
+    synchronized void broadcast(String line) {
+        if (x != null) x.send(line);
+        if (o != null) o.send(line);
+    }
+
+    // "STATE <id> <cells .XO> <to move> <outcome>"
+    synchronized String describe() {
+        GameState b = session.board();
+        StringBuilder cells = new StringBuilder(b.size());
+        for (int i = 0; i < b.size(); i++) {
+            int c = b.cell(i);
+            cells.append(c == GameState.X ? 'X' : c == GameState.O ? 'O' : '.');
+        }
+        return "STATE " + id + " " + session.rules().token() + " " + cells + " "
+                + GameSession.symbol(session.current()) + " " + session.outcome();
+    }
+}
@@ -0,0 +1,385 @@
+import java.util.Locale;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * MctsSearch.java
+ * Monte Carlo Tree Search (UCT) with random playouts, for any m,n,k variant
+ * and for ultimate, whose playouts draw from the board's legal moves.
+ *
+ * Nodes live in an arena of parallel primitive arrays: an expanded node owns
+ * a contiguous block of children, so a node is just an index and the tree
+ * costs no objects. Workers share the tree without locks: a worker descending
+ * through a node bumps its visit count before the playout result is known
+ * (virtual loss), which steers the others to different lines; results are
+ * added on the way back up, and expansion is claimed with a CAS.
+ *
+ * Between moves the subtree under the two moves just played is kept as the
+ * new root (tree reuse), until the arena fills and it starts over.
+ * Difficulty is a playout budget; MAX searches until the time budget.
+ *
+ * {@code java MctsSearch [variant] [budgetMs] [workers]} prints playouts/s
+ * next to alpha-beta nodes/s on the same positions.
+ */
+public final class MctsSearch implements AiStrategy {
+
+    public enum Difficulty {
+        EASY(200), MEDIUM(2_000), HARD(20_000), MAX(0);
+
+        public final int playouts;   // 0 = until the time budget runs out
+
+        Difficulty(int playouts) { this.playouts = playouts; }
+
+        public static Difficulty forName(String name) {
+            try {
+                return valueOf(name.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException ex) {
+                throw new IllegalArgumentException("unknown difficulty " + name + " (easy, medium, hard, max)");
+            }
+        }
+    }
+
+    private static final double EXPLORATION = 1.0;
+    private static final int LEAF = 0, EXPANDING = 1, EXPANDED = 2;
+
+    private final MnkRules rules;
+    private final int workers;
+    private final Difficulty difficulty;
+    private final ExecutorService pool;      // workers - 1 helpers; the caller is the last worker
+
+    // Arena: node i is the move move[i] with children first[i] .. first[i]+count[i]-1
+    private final int capacity;
+    private final int[] first;
+    private final short[] move, count;
+    private final AtomicIntegerArray state, visits;
+    private final AtomicLongArray reward;    // 2 per win, 1 per draw, for the player who moved into the node
+    private final AtomicInteger size = new AtomicInteger();
+
+    private int root = -1;
+    private GameState rootBoard;              // position at root, for tree reuse
+    private final AtomicLong playouts = new AtomicLong();
+    private long lastPlayouts, lastNanos;
+    private int reusedVisits;
+
+    public MctsSearch(MnkRules rules, int workers, Difficulty difficulty) {
+        this(rules, workers, difficulty, Integer.getInteger("neon.mcts.nodes", 1 << 19));
+    }
+
+    public MctsSearch(MnkRules rules, int workers, Difficulty difficulty, int capacity) {
+        if (workers < 1) throw new IllegalArgumentException("workers must be >= 1: " + workers);
+        this.rules = rules;
+        this.workers = workers;
+        this.difficulty = difficulty;
+        this.capacity = capacity;
+        first = new int[capacity];
+        move = new short[capacity];
+        count = new short[capacity];
+        state = new AtomicIntegerArray(capacity);
+        visits = new AtomicIntegerArray(capacity);
+        reward = new AtomicLongArray(capacity);
+        pool = workers > 1 ? Executors.newFixedThreadPool(workers - 1, r -> {
+            Thread t = new Thread(r, "neon-mcts");
+            t.setDaemon(true);
+            return t;
+        }) : null;
+    }
+
+    @Override
+    public String name() { return "mcts:" + difficulty.name().toLowerCase(Locale.ROOT); }
+
+    public Difficulty difficulty() { return difficulty; }
+    public long lastPlayouts() { return lastPlayouts; }
+    public double playoutsPerSecond() { return lastNanos == 0 ? 0 : lastPlayouts * 1e9 / lastNanos; }
+    public int treeSize() { return size.get(); }
+    public int reusedVisits() { return reusedVisits; }   // root visits inherited from the last search
+
+    @Override
+    public void shutdown() {
+        if (pool != null) pool.shutdownNow();
+    }
+
+    @Override
+    public int bestMove(GameState board, long budgetMillis, AtomicBoolean cancel) {
+        if (board.winner() != GameState.EMPTY || board.isFull()) return -1;
+        long t0 = System.nanoTime();
+        long deadline = budgetMillis > 0 ? t0 + budgetMillis * 1_000_000L : Long.MAX_VALUE;
+        int target = difficulty.playouts;
+        if (target == 0 && budgetMillis <= 0) target = Difficulty.HARD.playouts;   // no limit at all: bound it
+
+        reroot(board);
+        reusedVisits = visits.get(root);
+        playouts.set(0);
+        final int limit = target;
+        Runnable work = () -> {
+            GameState b = board.copy();
+            SplittableRandom rnd = new SplittableRandom(System.nanoTime() ^ Thread.currentThread().getId());
+            int[] path = new int[b.size() + 1];
+            int[] moves = new int[b.size()];
+            int[] empties = new int[b.size()];
+            while (true) {
+                long n = playouts.incrementAndGet();
+                if (limit > 0 && n > limit) break;
+                iterate(b, rnd, path, moves, empties);
+                if ((n & 63) == 0 && (System.nanoTime() > deadline || (cancel != null && cancel.get()))) break;
+            }
+        };
+        Future<?>[] helpers = new Future<?>[workers - 1];
+        for (int i = 0; i < helpers.length; i++) helpers[i] = pool.submit(work);
+        work.run();
+        for (Future<?> f : helpers) {
+            try {
+                f.get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (java.util.concurrent.ExecutionException ex) {
+                throw new IllegalStateException("mcts worker failed", ex.getCause());
+            }
+        }
+        lastPlayouts = limit > 0 ? Math.min(limit, playouts.get()) : playouts.get();
+        lastNanos = System.nanoTime() - t0;
+
+        // robust child: most visited, reward breaks ties
+        int best = -1, bestVisits = -1;
+        long bestReward = -1;
+        for (int c = first[root], end = c + count[root]; c < end; c++) {
+            int v = visits.get(c);
+            long r = reward.get(c);
+            if (v > bestVisits || (v == bestVisits && r > bestReward)) {
+                best = c;
+                bestVisits = v;
+                bestReward = r;
+            }
+        }
+        return best < 0 ? firstLegal(board) : move[best];
+    }
+
+    // One selection / expansion / playout / backup pass. b is at the root position on entry and exit.
+    private void iterate(GameState b, SplittableRandom rnd, int[] path, int[] moves, int[] empties) {
+        int rootSide = b.toMove();
+        int node = root, depth = 0;
+        path[0] = root;
+        visits.incrementAndGet(root);
+        int winner = GameState.EMPTY;
+        boolean over = false;
+
+        // selection
+        while (state.get(node) == EXPANDED) {
+            node = select(node);
+            visits.incrementAndGet(node);                // virtual loss until the result is in
+            b.play(move[node], b.toMove());
+            path[++depth] = node;
+            if (b.winner() != GameState.EMPTY || b.isFull()) {
+                winner = b.winner();
+                over = true;
+                break;
+            }
+        }
+
+        // expansion: a leaf seen before grows its children, then one of them is tried
+        if (!over && (node == root || visits.get(node) > 1) && state.compareAndSet(node, LEAF, EXPANDING)) {
+            if (expand(node, b, moves)) {
+                node = first[node] + rnd.nextInt(count[node]);
+                visits.incrementAndGet(node);
+                b.play(move[node], b.toMove());
+                path[++depth] = node;
+                if (b.winner() != GameState.EMPTY || b.isFull()) {
+                    winner = b.winner();
+                    over = true;
+                }
+            }
+        }
+
+        // playout
+        if (!over) {
+            winner = b instanceof UltimateBoard ? playoutLegal(b, rnd, moves, empties) : playout(b, rnd, empties, depth, path);
+        }
+
+        // backup, then unwind the tree moves
+        for (int i = depth; i >= 1; i--) {
+            int n = path[i];
+            int mover = (i & 1) == 1 ? rootSide : GameState.opponent(rootSide);
+            reward.addAndGet(n, winner == mover ? 2 : winner == GameState.EMPTY ? 1 : 0);
+            b.undo(move[n], mover);
+        }
+    }
+
+    // UCT over the children of an expanded node; unvisited children first
+    private int select(int node) {
+        int c = first[node], end = c + count[node];
+        double logN = Math.log(Math.max(1, visits.get(node)));
+        int best = c;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (; c < end; c++) {
+            int v = visits.get(c);
+            if (v == 0) return c;
+            double score = reward.get(c) / (2.0 * v) + EXPLORATION * Math.sqrt(logN / v);
+            if (score > bestScore) {
+                bestScore = score;
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    // Claimed leaf -> children block (false if the arena is full; the node then stays a leaf)
+    private boolean expand(int node, GameState b, int[] moves) {
+        int n = candidates(b, moves);
+        int start = n == 0 ? -1 : size.getAndAdd(n);
+        if (start < 0 || start + n > capacity) {
+            state.set(node, LEAF);
+            return false;
+        }
+        for (int i = 0; i < n; i++) {
+            int c = start + i;
+            move[c] = (short) moves[i];
+            count[c] = 0;
+            state.set(c, LEAF);
+            visits.set(c, 0);
+            reward.set(c, 0);
+        }
+        first[node] = start;
+        count[node] = (short) n;
+        state.set(node, EXPANDED);                       // publishes the block to other workers
+        return true;
+    }
+
+    // Moves worth a child: every legal cell, or the ones near stones on big boards
+    private int candidates(GameState b, int[] out) {
+        MnkBoard mb = b instanceof MnkBoard ? (MnkBoard) b : null;
+        if (mb == null) return b.legalMoves(out);
+        boolean near = rules.restrictToNeighbourhood() && mb.stones() > 0;
+        int n = 0;
+        for (int i = 0; i < b.size(); i++) {
+            if (b.isEmpty(i) && (!near || mb.hasNeighbour(i))) out[n++] = i;
+        }
+        return n;
+    }
+
+    // Random moves to the end; a side that can complete a line next move does so
+    private int playout(GameState b, SplittableRandom rnd, int[] empties, int depth, int[] path) {
+        int n = 0;
+        for (int i = 0; i < b.size(); i++) if (b.isEmpty(i)) empties[n++] = i;
+        MnkBoard mb = b instanceof MnkBoard ? (MnkBoard) b : null;
+        int played = 0, start = n;
+        int winner = GameState.EMPTY;
+        while (n > 0) {
+            int side = b.toMove();
+            if (mb != null && mb.threats(side) > 0) {
+                winner = side;
+                break;
+            }
+            int k = rnd.nextInt(n);
+            int cell = empties[k];
+            empties[k] = empties[--n];
+            empties[n] = cell;                           // played cells pile up at the tail, in order
+            b.play(cell, side);
+            played++;
+            if (b.winner() != GameState.EMPTY) {
+                winner = b.winner();
+                break;
+            }
+        }
+        // undo the playout moves, newest first
+        for (int i = start - played; i < start; i++) {
+            int cell = empties[i];
+            b.undo(cell, b.cell(cell));
+        }
+        return winner;
+    }
+
+    // Random legal moves to the end, for boards that restrict where the next move goes
+    private static int playoutLegal(GameState b, SplittableRandom rnd, int[] legal, int[] played) {
+        int n = 0, winner = GameState.EMPTY;
+        for (int count; (count = b.legalMoves(legal)) > 0; ) {
+            int cell = legal[rnd.nextInt(count)];
+            b.play(cell, b.toMove());
+            played[n++] = cell;
+            if (b.winner() != GameState.EMPTY) {
+                winner = b.winner();
+                break;
+            }
+        }
+        while (n > 0) {
+            int cell = played[--n];
+            b.undo(cell, b.cell(cell));
+        }
+        return winner;
+    }
+
+    // Keep the subtree for board if it is the root position plus up to two moves
+    private void reroot(GameState board) {
+        if (root >= 0 && rootBoard != null && size.get() < capacity * 3 / 4) {
+            int node = descend(board);
+            if (node >= 0) {
+                root = node;
+                rootBoard = board.copy();
+                return;
+            }
+        }
+        size.set(1);
+        root = 0;
+        count[0] = 0;
+        state.set(0, LEAF);
+        visits.set(0, 0);
+        reward.set(0, 0);
+        rootBoard = board.copy();
+    }
+
+    private int descend(GameState board) {
+        if (board.size() != rootBoard.size()) return -1;
+        int a = -1, b = -1, added = 0;
+        for (int i = 0; i < board.size(); i++) {
+            int was = rootBoard.cell(i), now = board.cell(i);
+            if (was == now) continue;
+            if (was != GameState.EMPTY || ++added > 2) return -1;
+            if (now == rootBoard.toMove()) a = i; else b = i;
+        }
+        if (added == 0) return root;
+        if (added == 1) return a >= 0 ? child(root, a) : -1;   // one move: must be the root side's
+        if (a < 0 || b < 0) return -1;
+        int mid = child(root, a);
+        return mid < 0 ? -1 : child(mid, b);
+    }
+
+    private int child(int node, int cell) {
+        if (state.get(node) != EXPANDED) return -1;
+        for (int c = first[node], end = c + count[node]; c < end; c++) if (move[c] == cell) return c;
+        return -1;
+    }
+
+    private static int firstLegal(GameState b) {
+        for (int i = 0; i < b.size(); i++) if (b.isLegal(i)) return i;
+        return -1;
+    }
+
+    // ---- benchmark ----
+
+    public static void main(String[] args) {
+        MnkRules rules = args.length > 0 ? MnkRules.forName(args[0]) : MnkRules.FIVE;
+        long budget = args.length > 1 ? Long.parseLong(args[1]) : 500;
+        int workers = args.length > 2 ? Integer.parseInt(args[2]) : ParallelSearch.defaultWorkers();
+        Random rnd = new Random(7);
+        MctsSearch mcts = new MctsSearch(rules, workers, Difficulty.MAX);
+        ParallelSearch ab = new ParallelSearch(rules, workers);
+        System.out.printf("%s, %d ms per move, %d workers%n", rules, budget, workers);
+        System.out.printf("%-8s %14s %10s %14s %10s%n", "stones", "playouts/s", "mcts", "ab nodes/s", "alphabeta");
+        for (int stones = 2; stones <= 8; stones += 2) {
+            MnkBoard b = ParallelSearch.randomPosition(rules, rnd, stones);
+            int m1 = mcts.bestMove(b, budget, null);
+            long t0 = System.nanoTime();
+            int m2 = ab.bestMove(b, budget);
+            double secs = (System.nanoTime() - t0) / 1e9;
+            System.out.printf("%-8d %14.0f %10d %14.0f %10d%n", stones, mcts.playoutsPerSecond(), m1, ab.nodes() / secs, m2);
+        }
+        mcts.shutdown();
+        ab.shutdown();
+    }
+}
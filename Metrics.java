@@ -0,0 +1,199 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Metrics.java
+ * Process-wide metrics registry, served as Prometheus text on a local HTTP port.
+ *
+ * Off unless {@code -Dneon.metrics.port=<port>} is set (bind address
+ * {@code -Dneon.metrics.host}, default 127.0.0.1); the endpoint is
+ * {@code http://host:port/metrics}. Hot paths guard their instrumentation with
+ * {@link #ENABLED}, a static final the JIT folds away, so a disabled build pays
+ * nothing: no clock reads, no counters, no registration.
+ *
+ * Counters are LongAdders, latencies are {@link LatencyHistogram}s exported as
+ * summaries (p50/p90/p99/p99.9, sum and count), and gauges are sampled from a
+ * supplier at scrape time, so recording never takes a lock.
+ */
+public final class Metrics {
+
+    public static final boolean ENABLED = Integer.getInteger("neon.metrics.port", 0) > 0;
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private static final class Family {
+        final String help, type;
+        final Map<String, Object> series = new LinkedHashMap<>();   // labels -> value source
+        final Map<String, Double> scale = new LinkedHashMap<>();    // summaries: unit per recorded value
+
+        Family(String help, String type) {
+            this.help = help;
+            this.type = type;
+        }
+    }
+
+    private static final Map<String, Family> families = new LinkedHashMap<>();
+    private static volatile HttpServer server;
+
+    static {
+        if (ENABLED) {
+            try {
+                start(System.getProperty("neon.metrics.host", "127.0.0.1"), Integer.getInteger("neon.metrics.port"));
+            } catch (IOException ex) {
+                System.err.println("Metrics endpoint unavailable: " + ex.getMessage());
+            }
+        }
+    }
+
+    private Metrics() {}
+
+    // Serve /metrics; the property-driven path calls this once at class load
+    static synchronized void start(String host, int port) throws IOException {
+        if (server != null) return;
+        HttpServer s = HttpServer.create(new InetSocketAddress(host, port), 16);
+        s.createContext("/metrics", ex -> {
+            byte[] body = scrape().getBytes(StandardCharsets.UTF_8);
+            ex.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            ex.sendResponseHeaders(200, body.length);
+            try (OutputStream out = ex.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        s.setExecutor(Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "neon-metrics");
+            t.setDaemon(true);
+            return t;
+        }));
+        // the dispatcher thread inherits daemon status from the thread that starts it,
+        // so start from a daemon thread and the endpoint never keeps the JVM alive
+        Thread starter = new Thread(s::start, "neon-metrics-start");
+        starter.setDaemon(true);
+        starter.start();
+        try {
+            starter.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        server = s;
+        System.out.println("Metrics: http://" + host + ":" + s.getAddress().getPort() + "/metrics");
+    }
+
+    // ---- registration (get-or-create; labels are key, value pairs) ----
+
+    public static LongAdder counter(String name, String help, String... labels) {
+        return (LongAdder) series(name, help, "counter", labels(labels), LongAdder::new);
+    }
+
+    // A counter something else already keeps, read at scrape time
+    public static void counter(String name, String help, LongSupplier value, String... labels) {
+        replace(name, help, "counter", labels(labels), value);
+    }
+
+    public static void gauge(String name, String help, DoubleSupplier value, String... labels) {
+        replace(name, help, "gauge", labels(labels), value);
+    }
+
+    // Summary of recorded values; scale converts them for export (1e-9: nanoseconds to seconds)
+    public static LatencyHistogram summary(String name, String help, double scale, String... labels) {
+        String key = labels(labels);
+        synchronized (families) {
+            LatencyHistogram h = (LatencyHistogram) series(name, help, "summary", key, LatencyHistogram::new);
+            families.get(name).scale.put(key, scale);
+            return h;
+        }
+    }
+
+    // Export a histogram that already exists (e.g. one a component keeps for its own stats)
+    public static void summary(String name, String help, double scale, LatencyHistogram h, String... labels) {
+        String key = labels(labels);
+        synchronized (families) {
+            replace(name, help, "summary", key, h);
+            families.get(name).scale.put(key, scale);
+        }
+    }
+
+    private static Object series(String name, String help, String type, String key,
+                                 java.util.function.Supplier<Object> create) {
+        synchronized (families) {
+            return family(name, help, type).series.computeIfAbsent(key, k -> create.get());
+        }
+    }
+
+    private static void replace(String name, String help, String type, String key, Object source) {
+        synchronized (families) {
+            family(name, help, type).series.put(key, source);
+        }
+    }
+
+    private static Family family(String name, String help, String type) {
+        Family f = families.computeIfAbsent(name, n -> new Family(help, type));
+        if (!f.type.equals(type)) throw new IllegalArgumentException(name + " is a " + f.type + ", not a " + type);
+        return f;
+    }
+
+    private static String labels(String... kv) {
+        if (kv.length % 2 != 0) throw new IllegalArgumentException("labels come in key, value pairs");
+        if (kv.length == 0) return "";
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < kv.length; i += 2) {
+            sb.append(i == 0 ? "" : ",").append(kv[i]).append("=\"")
+                    .append(kv[i + 1].replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+        }
+        return sb.toString();
+    }
+
+    // ---- exposition ----
+
+    // Prometheus text format 0.0.4
+    public static String scrape() {
+        StringBuilder sb = new StringBuilder(4096);
+        synchronized (families) {
+            for (Map.Entry<String, Family> e : families.entrySet()) {
+                String name = e.getKey();
+                Family f = e.getValue();
+                sb.append("# HELP ").append(name).append(' ').append(f.help).append('\n');
+                sb.append("# TYPE ").append(name).append(' ').append(f.type).append('\n');
+                for (Map.Entry<String, Object> s : f.series.entrySet()) {
+                    String labels = s.getKey();
+                    Object v = s.getValue();
+                    if (v instanceof LatencyHistogram) {
+                        LatencyHistogram h = (LatencyHistogram) v;
+                        double scale = f.scale.get(labels);
+                        String sep = labels.isEmpty() ? "" : ",";
+                        for (double q : QUANTILES) {
+                            line(sb, name, labels + sep + "quantile=\"" + q + "\"", h.percentile(q * 100) * scale);
+                        }
+                        line(sb, name + "_sum", labels, h.sum() * scale);
+                        line(sb, name + "_count", labels, h.count());
+                    } else if (v instanceof LongAdder) {
+                        line(sb, name, labels, ((LongAdder) v).sum());
+                    } else if (v instanceof LongSupplier) {
+                        line(sb, name, labels, ((LongSupplier) v).getAsLong());
+                    } else {
+                        line(sb, name, labels, ((DoubleSupplier) v).getAsDouble());
+                    }
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void line(StringBuilder sb, String name, String labels, double value) {
+        sb.append(name);
+        if (!labels.isEmpty()) sb.append('{').append(labels).append('}');
+        sb.append(' ');
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) sb.append((long) value);
+        else sb.append(value);
+        sb.append('\n');
+    }
+}
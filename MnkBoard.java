@@ -0,0 +1,168 @@
+import java.util.Arrays;
+
+/**
+ * MnkBoard.java
+ * Mutable board for an {@link MnkRules} variant with incremental bookkeeping.
+ *
+ * Every move touches only the win lines through its cell: per-line stone counts,
+ * the winner, the Zobrist hash, the heuristic score (sum of open-line weights,
+ * from X's side), the number of open threats (lines one stone short of k) per
+ * side, and the "stones nearby" counters used for candidate moves. undo() is the
+ * exact inverse, so searches make/unmake on one board without copying.
+ */
+public final class MnkBoard implements GameState {
+
+    final MnkRules rules;
+    private final byte[] cells;
+    private final byte[] lineX, lineO;   // stones per win line
+    private final byte[] near;           // stones within NEAR_RADIUS of each cell
+    private final int[] threats = new int[3];
+    private int stones;
+    private int toMove = X;
+    private int winner = EMPTY;
+    private int winLine = -1;
+    private int score;                   // heuristic, positive favours X
+    private long hash;
+
+    public MnkBoard(MnkRules rules) {
+        this.rules = rules;
+        cells = new byte[rules.cells()];
+        lineX = new byte[rules.lineCount()];
+        lineO = new byte[rules.lineCount()];
+        near = new byte[rules.cells()];
+    }
+
+    private MnkBoard(MnkBoard b) {
+        rules = b.rules;
+        cells = b.cells.clone();
+        lineX = b.lineX.clone();
+        lineO = b.lineO.clone();
+        near = b.near.clone();
+        System.arraycopy(b.threats, 0, threats, 0, 3);
+        stones = b.stones;
+        toMove = b.toMove;
+        winner = b.winner;
+        winLine = b.winLine;
+        score = b.score;
+        hash = b.hash;
+    }
+
+    @Override
+    public MnkBoard copy() {
+        return new MnkBoard(this);
+    }
+
+    public MnkRules rules() { return rules; }
+    @Override public int rows() { return rules.rows; }
+    @Override public int cols() { return rules.cols; }
+    @Override public int size() { return cells.length; }
+    @Override public int cell(int i) { return cells[i]; }
+    @Override public boolean isEmpty(int i) { return cells[i] == EMPTY; }
+    @Override public int toMove() { return toMove; }
+    @Override public int winner() { return winner; }
+    @Override public boolean isFull() { return stones == cells.length; }
+
+    public int stones() { return stones; }
+    public long hash() { return hash; }
+    public int threats(int side) { return threats[side]; }
+    boolean hasNeighbour(int i) { return near[i] != 0; }
+
+    // Heuristic value for side: open-line weights, X minus O or the reverse
+    public int evaluate(int side) {
+        return side == X ? score : -score;
+    }
+
+    @Override
+    public int[] winningCells() {
+        return winLine < 0 ? new int[0] : rules.lines[winLine].clone();
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(cells, (byte) EMPTY);
+        Arrays.fill(lineX, (byte) 0);
+        Arrays.fill(lineO, (byte) 0);
+        Arrays.fill(near, (byte) 0);
+        Arrays.fill(threats, 0);
+        stones = 0;
+        toMove = X;
+        winner = EMPTY;
+        winLine = -1;
+        score = 0;
+        hash = 0;
+    }
+
+    @Override
+    public void play(int i, int side) {
+        cells[i] = (byte) side;
+        stones++;
+        hash ^= rules.zobrist[i][side];
+        toMove = GameState.opponent(side);
+        for (int n : rules.neighbours[i]) near[n]++;
+
+        int k = rules.k;
+        for (int l : rules.linesThrough[i]) {
+            int x = lineX[l], o = lineO[l];
+            unscore(x, o);
+            if (side == X) lineX[l] = (byte) ++x; else lineO[l] = (byte) ++o;
+            rescore(x, o);
+            if (winner == EMPTY && (x == k || o == k)) {
+                winner = side;
+                winLine = l;
+            }
+        }
+    }
+
+    @Override
+    public void undo(int i, int side) {
+        cells[i] = EMPTY;
+        stones--;
+        hash ^= rules.zobrist[i][side];
+        toMove = side;
+        for (int n : rules.neighbours[i]) near[n]--;
+
+        for (int l : rules.linesThrough[i]) {
+            int x = lineX[l], o = lineO[l];
+            unscore(x, o);
+            if (side == X) lineX[l] = (byte) --x; else lineO[l] = (byte) --o;
+            rescore(x, o);
+        }
+        if (winLine >= 0 && lineX[winLine] < rules.k && lineO[winLine] < rules.k) {
+            winner = EMPTY;
+            winLine = -1;
+        }
+    }
+
+    // Move-ordering hint for side playing cell i: own line growth, then blocks
+    int moveScore(int i, int side) {
+        int k = rules.k;
+        long s = 0;
+        int[] w = rules.weight;
+        for (int l : rules.linesThrough[i]) {
+            int own = side == X ? lineX[l] : lineO[l];
+            int opp = side == X ? lineO[l] : lineX[l];
+            if (opp == 0) s += own == k - 1 ? 1 << 28 : w[own + 1];
+            if (own == 0 && opp > 0) s += opp == k - 1 ? 1 << 26 : w[opp + 1] >> 1;
+        }
+        return (int) Math.min(s, Integer.MAX_VALUE / 2);  // leaves room for the history bonus
+    }
+
+    private void unscore(int x, int o) {
+        score -= lineValue(x, o);
+        int k1 = rules.k - 1;
+        if (o == 0 && x == k1) threats[X]--;
+        if (x == 0 && o == k1) threats[O]--;
+    }
+
+    private void rescore(int x, int o) {
+        score += lineValue(x, o);
+        int k1 = rules.k - 1;
+        if (o == 0 && x == k1) threats[X]++;
+        if (x == 0 && o == k1) threats[O]++;
+    }
+
+    private int lineValue(int x, int o) {
+        if (x > 0 && o > 0) return 0;  // dead line
+        return x > 0 ? rules.weight[x] : o > 0 ? -rules.weight[o] : 0;
+    }
+}
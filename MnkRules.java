@@ -0,0 +1,124 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * MnkRules.java
+ * Immutable m,n,k rule set: a rows x cols board where k in a row wins.
+ *
+ * Win lines are generated once (every horizontal, vertical and diagonal run of
+ * length k) together with the reverse index "lines through each cell", so boards
+ * can update their line counters in O(lines through cell) per move.
+ *
+ * {@link #ULTIMATE} is the nested variant: the same 9x9 cells and k=3, but played
+ * by {@link UltimateBoard}'s rules, so its generated lines are not used.
+ */
+public final class MnkRules {
+
+    public static final MnkRules CLASSIC = new MnkRules(3, 3, 3, "3x3");
+    public static final MnkRules FOUR = new MnkRules(4, 4, 4, "4x4");
+    public static final MnkRules FIVE = new MnkRules(5, 5, 4, "5x5 (4 in a row)");
+    public static final MnkRules GOMOKU = new MnkRules(15, 15, 5, "15x15 Gomoku");
+    public static final MnkRules ULTIMATE = new MnkRules(9, 9, 3, "Ultimate (9 x 3x3)", true);
+
+    public static final MnkRules[] VARIANTS = {CLASSIC, FOUR, FIVE, GOMOKU, ULTIMATE};
+
+    public final int rows, cols, k;
+    public final String name;
+    public final boolean nested;  // ultimate: nine 3x3 boards, see UltimateBoard
+
+    final int[][] lines;          // cells of each win line
+    final int[][] linesThrough;   // line indices through each cell
+    final long[][] zobrist;       // [cell][side] random keys
+    final int[][] neighbours;     // cells within NEAR_RADIUS of each cell (itself excluded)
+    final int[] weight;           // heuristic weight of an open line holding c stones
+
+    // candidate moves on large boards are limited to cells this close to a stone
+    static final int NEAR_RADIUS = 2;
+
+    public MnkRules(int rows, int cols, int k, String name) {
+        this(rows, cols, k, name, false);
+    }
+
+    private MnkRules(int rows, int cols, int k, String name, boolean nested) {
+        if (rows < 1 || cols < 1 || k < 2 || (k > rows && k > cols))
+            throw new IllegalArgumentException("no line of " + k + " fits on " + rows + "x" + cols);
+        if (rows * cols > 255) throw new IllegalArgumentException("board too large: " + rows + "x" + cols);
+        this.rows = rows;
+        this.cols = cols;
+        this.k = k;
+        this.name = name;
+        this.nested = nested;
+
+        int[][] dirs = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+        List<int[]> found = new ArrayList<>();
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                for (int[] d : dirs) {
+                    int er = r + d[0] * (k - 1), ec = c + d[1] * (k - 1);
+                    if (er < 0 || er >= rows || ec < 0 || ec >= cols) continue;
+                    int[] line = new int[k];
+                    for (int i = 0; i < k; i++) line[i] = (r + d[0] * i) * cols + (c + d[1] * i);
+                    found.add(line);
+                }
+            }
+        }
+        lines = found.toArray(new int[0][]);
+
+        int cells = rows * cols;
+        int[] counts = new int[cells];
+        for (int[] line : lines) for (int cell : line) counts[cell]++;
+        linesThrough = new int[cells][];
+        for (int i = 0; i < cells; i++) linesThrough[i] = new int[counts[i]];
+        int[] fill = new int[cells];
+        for (int l = 0; l < lines.length; l++) for (int cell : lines[l]) linesThrough[cell][fill[cell]++] = l;
+
+        // fixed seed so hashes are stable between runs (useful when comparing searches)
+        SplittableRandom rnd = new SplittableRandom(0x5EED_0000L + rows * 1_000_003L + cols * 1_009L + k);
+        zobrist = new long[cells][3];
+        for (int i = 0; i < cells; i++) {
+            zobrist[i][GameState.X] = rnd.nextLong();
+            zobrist[i][GameState.O] = rnd.nextLong();
+        }
+
+        neighbours = new int[cells][];
+        for (int i = 0; i < cells; i++) {
+            int r0 = i / cols, c0 = i % cols, n = 0;
+            int[] buf = new int[(2 * NEAR_RADIUS + 1) * (2 * NEAR_RADIUS + 1)];
+            for (int r = Math.max(0, r0 - NEAR_RADIUS); r <= Math.min(rows - 1, r0 + NEAR_RADIUS); r++)
+                for (int c = Math.max(0, c0 - NEAR_RADIUS); c <= Math.min(cols - 1, c0 + NEAR_RADIUS); c++)
+                    if (r != r0 || c != c0) buf[n++] = r * cols + c;
+            neighbours[i] = java.util.Arrays.copyOf(buf, n);
+        }
+
+        // 1, 8, 64, ... per stone in an open line, capped so sums stay well inside an int
+        weight = new int[k + 1];
+        for (int c = 1; c <= k; c++) weight[c] = 1 << Math.min(3 * (c - 1), 18);
+    }
+
+    // Small boards are searched over every empty cell, large ones only near stones
+    boolean restrictToNeighbourhood() {
+        return rows * cols > 25;
+    }
+
+    // Variant by name prefix or token: "3x3", "4x4", "5x5", "15x15" or "ultimate"
+    public static MnkRules forName(String name) {
+        for (MnkRules r : VARIANTS) if (r.name.startsWith(name) || r.token().equals(name)) return r;
+        throw new IllegalArgumentException("unknown variant " + name + " (3x3, 4x4, 5x5, 15x15, ultimate)");
+    }
+
+    // Short name accepted by forName
+    public String token() {
+        return nested ? "ultimate" : rows + "x" + cols;
+    }
+
+    public int cells() { return rows * cols; }
+    public int lineCount() { return lines.length; }
+
+    public int[] line(int l) { return lines[l].clone(); }
+
+    @Override
+    public String toString() {
+        return name + " [" + rows + "x" + cols + ", k=" + k + "]";
+    }
+}
@@ -0,0 +1,268 @@
+/**
+ * MnkSearch.java
+ * Iterative-deepening negamax alpha-beta for {@link MnkBoard} under a time budget.
+ *
+ * Each iteration searches one ply deeper than the last until the deadline, the
+ * depth limit, or a forced result. Moves are ordered TT move first, then by the
+ * board's threat-based move score plus a history bonus; leaves use the board's
+ * incremental evaluation. If time runs out mid-iteration the best root move found
+ * so far is kept, so the caller always gets a legal move back.
+ *
+ * Not thread-safe: one instance per searching thread. Make/unmake runs on the
+ * caller's board, which is restored before bestMove returns. Several instances
+ * may share one table and a stop flag; see {@link ParallelSearch}. The set of
+ * moves searched at a node depends only on the position, so for a fixed depth
+ * the result does not depend on which thread filled the table first.
+ */
+public final class MnkSearch {
+
+    public static final int WIN = 1_000_000_000;      // score of a win at ply 0
+    static final int MATE_BOUND = WIN - 1_000;        // anything above is a forced win
+    private static final int INF = Integer.MAX_VALUE - 1;
+
+    private final MnkRules rules;
+    private final TranspositionTable tt;
+    private final int[][] moveBuf, orderBuf;          // per-ply move lists, no allocation while searching
+    private final int[] history;
+    private int maxBranch;
+    private java.util.concurrent.atomic.AtomicBoolean sharedStop;   // set by ParallelSearch
+    private java.util.concurrent.atomic.AtomicBoolean cancel;       // set by the caller, only read here
+
+    private long nodes;
+    private long cutoffs;
+    private long deadline;
+    private boolean stopped;
+    private int completedDepth;
+    private int lastScore;
+
+    public MnkSearch(MnkRules rules) {
+        this(rules, new TranspositionTable(rules.cells() > 25 ? 20 : 18));
+    }
+
+    public MnkSearch(MnkRules rules, TranspositionTable tt) {
+        this.rules = rules;
+        this.tt = tt;
+        int cells = rules.cells();
+        moveBuf = new int[cells + 1][cells];
+        orderBuf = new int[cells + 1][cells];
+        history = new int[cells];
+        maxBranch = rules.restrictToNeighbourhood() ? 16 : 0;
+    }
+
+    // Keep only the best n ordered moves per node (0 = all); only worth it on big boards
+    public MnkSearch maxBranch(int n) {
+        maxBranch = n;
+        return this;
+    }
+
+    public long nodes() { return nodes; }
+    public long cutoffs() { return cutoffs; }   // beta cutoffs, including transposition table ones
+    public int completedDepth() { return completedDepth; }
+    public int lastScore() { return lastScore; }
+    public TranspositionTable table() { return tt; }
+    public int maxBranch() { return maxBranch; }
+
+    // Best move for the side to move, searching until budgetMillis runs out
+    public int bestMove(MnkBoard board, long budgetMillis) {
+        return bestMove(board, budgetMillis, board.size() - board.stones());
+    }
+
+    // Same, but stop at maxDepth plies even if time remains (budget <= 0 means no deadline)
+    public int bestMove(MnkBoard board, long budgetMillis, int maxDepth) {
+        return bestMove(board, budgetMillis, maxDepth, null);
+    }
+
+    // Same, also stopping soon after cancel is set; the best move so far is returned
+    public int bestMove(MnkBoard board, long budgetMillis, int maxDepth, java.util.concurrent.atomic.AtomicBoolean cancel) {
+        start(budgetMillis > 0 ? System.nanoTime() + budgetMillis * 1_000_000L : Long.MAX_VALUE, null, cancel);
+        completedDepth = 0;
+        tt.newSearch();
+
+        if (board.winner() != GameState.EMPTY || board.isFull()) return -1;
+        int[] moves = moveBuf[0];
+        int n = generate(board, moves, orderBuf[0], -1);
+        if (n == 0) return -1;
+        int best = moves[0];
+        lastScore = 0;
+        if (n == 1) return best;
+
+        for (int depth = 1; depth <= maxDepth && !stopped; depth++) {
+            int alpha = -INF, iterBest = -1, iterScore = -INF;
+            int side = board.toMove();
+            for (int m = 0; m < n; m++) {
+                int mv = moves[m];
+                board.play(mv, side);
+                int v = -negamax(board, depth - 1, -INF, -alpha, 1);
+                board.undo(mv, side);
+                if (stopped) break;
+                if (v > iterScore) {
+                    iterScore = v;
+                    iterBest = mv;
+                }
+                if (v > alpha) alpha = v;
+            }
+            if (iterBest >= 0) {
+                best = iterBest;
+                lastScore = iterScore;
+                moveToFront(moves, n, best);
+            }
+            if (stopped) break;
+            completedDepth = depth;
+            if (Math.abs(lastScore) >= MATE_BOUND) break;   // forced result, deeper won't change it
+        }
+        return best;
+    }
+
+    // ---- hooks for ParallelSearch ----
+
+    void start(long deadlineNanos, java.util.concurrent.atomic.AtomicBoolean stop,
+               java.util.concurrent.atomic.AtomicBoolean cancel) {
+        nodes = 0;
+        cutoffs = 0;
+        stopped = false;
+        deadline = deadlineNanos;
+        sharedStop = stop;
+        this.cancel = cancel;
+        java.util.Arrays.fill(history, 0);
+    }
+
+    boolean stopped() { return stopped; }
+
+    // Ordered root moves for the side to move
+    int rootMoves(MnkBoard b, int[] out) {
+        return generate(b, out, orderBuf[0], -1);
+    }
+
+    // Score of root move mv for the side that plays it, searched depth - 1 plies below
+    int searchRootMove(MnkBoard b, int mv, int depth, int alpha, int beta) {
+        int side = b.toMove();
+        b.play(mv, side);
+        int v = -negamax(b, depth - 1, -beta, -alpha, 1);
+        b.undo(mv, side);
+        return v;
+    }
+
+    private int negamax(MnkBoard b, int depth, int alpha, int beta, int ply) {
+        if (b.winner() != GameState.EMPTY) return -(WIN - ply);   // the previous move completed a line
+        if (b.isFull()) return 0;
+        int side = b.toMove();
+        if (b.threats(side) > 0) return WIN - ply - 1;      // we complete a line next move
+        if (depth <= 0) return b.evaluate(side);
+
+        if ((++nodes & 1023) == 0 && (System.nanoTime() > deadline || (sharedStop != null && sharedStop.get())
+                || (cancel != null && cancel.get()))) {
+            stopped = true;
+            if (sharedStop != null) sharedStop.set(true);
+        }
+        if (stopped) return 0;
+
+        long key = b.hash();
+        int ttMove = -1;
+        long e = tt.probe(key);
+        if (e != 0) {
+            ttMove = TranspositionTable.move(e);
+            if (TranspositionTable.generation(e) == tt.generation() && TranspositionTable.depth(e) >= depth) {
+                int v = fromTable(TranspositionTable.value(e), ply);
+                switch (TranspositionTable.flag(e)) {
+                    case TranspositionTable.EXACT: return v;
+                    case TranspositionTable.LOWER: if (v > alpha) alpha = v; break;
+                    case TranspositionTable.UPPER: if (v < beta) beta = v; break;
+                }
+                if (alpha >= beta) {
+                    cutoffs++;
+                    return v;
+                }
+            }
+        }
+
+        int[] moves = moveBuf[ply];
+        int n = generate(b, moves, orderBuf[ply], ttMove);
+        int alphaOrig = alpha;
+        int best = -INF, bestMove = -1;
+        for (int m = 0; m < n; m++) {
+            int mv = moves[m];
+            b.play(mv, side);
+            int v = -negamax(b, depth - 1, -beta, -alpha, ply + 1);
+            b.undo(mv, side);
+            if (stopped) return 0;
+            if (v > best) {
+                best = v;
+                bestMove = mv;
+            }
+            if (v > alpha) alpha = v;
+            if (alpha >= beta) {
+                cutoffs++;
+                if (history[mv] < 1 << 24) history[mv] += depth * depth;
+                break;
+            }
+        }
+
+        int flag = best <= alphaOrig ? TranspositionTable.UPPER
+                : best >= beta ? TranspositionTable.LOWER
+                : TranspositionTable.EXACT;
+        tt.store(key, toTable(best, ply), flag, depth, bestMove);
+        return best;
+    }
+
+    // Candidate moves, best first. The kept set is the top maxBranch by static move
+    // score (ties by cell index), so it depends on the position alone; history and
+    // the TT move only reorder it. Returns the count.
+    private int generate(MnkBoard b, int[] moves, int[] order, int ttMove) {
+        int side = b.toMove();
+        boolean local = rules.restrictToNeighbourhood() && b.stones() > 0;
+        int n = 0;
+        for (int i = 0, size = b.size(); i < size; i++) {
+            if (!b.isEmpty(i) || (local && !b.hasNeighbour(i))) continue;
+            n = insert(moves, order, n, i, b.moveScore(i, side));
+        }
+        if (maxBranch > 0 && n > maxBranch) n = maxBranch;
+
+        int kept = n;
+        n = 0;
+        int first = -1;
+        for (int m = 0; m < kept; m++) {
+            int mv = moves[m];
+            if (mv == ttMove) first = mv;
+            else n = insert(moves, order, n, mv, order[m] + history[mv]);
+        }
+        if (first >= 0) {
+            System.arraycopy(moves, 0, moves, 1, n);
+            moves[0] = first;
+            n++;
+        }
+        return n;
+    }
+
+    // Stable insertion into a descending list of n entries; lists are short. Safe to
+    // call while re-ranking moves[0..n) in place because slot n is already consumed.
+    private static int insert(int[] moves, int[] order, int n, int mv, int s) {
+        int j = n;
+        while (j > 0 && order[j - 1] < s) {
+            order[j] = order[j - 1];
+            moves[j] = moves[j - 1];
+            j--;
+        }
+        order[j] = s;
+        moves[j] = mv;
+        return n + 1;
+    }
+
+    private static void moveToFront(int[] moves, int n, int mv) {
+        for (int i = 0; i < n; i++) {
+            if (moves[i] == mv) {
+                System.arraycopy(moves, 0, moves, 1, i);
+                moves[0] = mv;
+                return;
+            }
+        }
+    }
+
+    // Win/loss scores count plies from the root; store them relative to the node
+    private static int toTable(int v, int ply) {
+        return v >= MATE_BOUND ? v + ply : v <= -MATE_BOUND ? v - ply : v;
+    }
+
+    private static int fromTable(int v, int ply) {
+        return v >= MATE_BOUND ? v - ply : v <= -MATE_BOUND ? v + ply : v;
+    }
+}
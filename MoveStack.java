@@ -0,0 +1,85 @@
+/**
+ * MoveStack.java
+ * Make/unmake history of one board as encoded primitive moves, with O(1) undo and redo.
+ *
+ * A move is one int, {@code cell | side << 8}, and every transition goes
+ * through the board's own play/undo, the same allocation-free path the
+ * searches use. Undone moves stay above the top of the stack until a
+ * different move is made, so redo() and seek() can walk the whole timeline;
+ * making the move that is next in the redo tail keeps the tail. The stack
+ * starts from whatever position the board is in when it is created.
+ */
+public final class MoveStack {
+
+    private final GameState board;
+    private final int[] moves;
+    private int top;   // moves applied to the board
+    private int end;   // moves recorded, top..end-1 can be redone
+
+    public MoveStack(GameState board) {
+        this.board = board;
+        moves = new int[board.size()];
+    }
+
+    public static int encode(int cell, int side) { return cell | side << 8; }
+    public static int cell(int move) { return move & 0xFF; }
+    public static int side(int move) { return move >>> 8; }
+
+    public GameState board() { return board; }
+    public int size() { return top; }
+    public int length() { return end; }
+    public boolean canUndo() { return top > 0; }
+    public boolean canRedo() { return top < end; }
+
+    // Encoded move at ply (0-based), applied or in the redo tail
+    public int move(int ply) { return moves[ply]; }
+
+    // Last applied cell, or -1
+    public int lastCell() { return top == 0 ? -1 : cell(moves[top - 1]); }
+
+    // Play cell for the side to move; a different move than the redo tail's next one drops the tail
+    public void make(int cell) {
+        int m = encode(cell, board.toMove());
+        board.play(cell, side(m));
+        if (top == end || moves[top] != m) end = top + 1;
+        moves[top++] = m;
+    }
+
+    // Take back the last move; it stays available to redo
+    public int unmake() {
+        int m = moves[--top];
+        board.undo(cell(m), side(m));
+        return m;
+    }
+
+    public int redo() {
+        int m = moves[top++];
+        board.play(cell(m), side(m));
+        return m;
+    }
+
+    // Move along the timeline to ply, 0 .. length()
+    public void seek(int ply) {
+        if (ply < 0 || ply > end) throw new IllegalArgumentException("ply " + ply + " outside 0.." + end);
+        while (top > ply) unmake();
+        while (top < ply) redo();
+    }
+
+    // Unmake everything and forget it: the board is back where the stack started
+    public void rewind() {
+        while (top > 0) unmake();
+        end = 0;
+    }
+
+    // The board was cleared underneath: forget the history without replaying it
+    public void clear() {
+        top = end = 0;
+    }
+
+    // Applied cells, oldest first
+    public int[] cells() {
+        int[] out = new int[top];
+        for (int i = 0; i < top; i++) out[i] = cell(moves[i]);
+        return out;
+    }
+}
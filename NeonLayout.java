@@ -0,0 +1,127 @@
+import java.awt.*;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * NeonLayout.java
+ * Resolution-independent layout: components are placed on a fixed design canvas that is scaled to fit the container.
+ *
+ * Each component is added with its design-space bounds (a Rectangle on a
+ * designWidth x designHeight canvas). The canvas is scaled uniformly to the
+ * container, centred, and fonts scale with it from the size they had at the
+ * first layout. The scale is snapped to STEP so dragging a window edge only
+ * moves anything when the size really changed; layoutContainer is a no-op
+ * otherwise. Listeners hear about each new scale once, together with the
+ * screen's DPI scale, so pixel caches are rebuilt once per size instead of per
+ * frame.
+ */
+public final class NeonLayout implements LayoutManager2 {
+
+    // Called on the EDT after components moved to a new scale
+    public interface ScaleListener {
+        void scaleChanged(float scale, float deviceScale);
+    }
+
+    private static final float STEP = 1 / 32f;
+    private static final float MIN_SCALE = 0.5f;
+
+    private final int designWidth, designHeight;
+    private final ScaleListener listener;
+    private final Map<Component, Rectangle> bounds = new IdentityHashMap<>();
+    private final Map<Component, Float> fontSizes = new IdentityHashMap<>();
+    private int lastWidth = -1, lastHeight = -1;
+    private float scale, deviceScale;
+
+    public NeonLayout(int designWidth, int designHeight, ScaleListener listener) {
+        this.designWidth = designWidth;
+        this.designHeight = designHeight;
+        this.listener = listener;
+    }
+
+    public float scale() { return scale; }
+
+    @Override
+    public void addLayoutComponent(Component comp, Object constraints) {
+        if (!(constraints instanceof Rectangle)) {
+            throw new IllegalArgumentException("NeonLayout needs design bounds (a Rectangle), got " + constraints);
+        }
+        bounds.put(comp, new Rectangle((Rectangle) constraints));
+        lastWidth = -1;   // place it on the next layout
+    }
+
+    @Override
+    public void addLayoutComponent(String name, Component comp) {
+        throw new IllegalArgumentException("NeonLayout needs design bounds (a Rectangle)");
+    }
+
+    @Override
+    public void removeLayoutComponent(Component comp) {
+        bounds.remove(comp);
+        fontSizes.remove(comp);
+    }
+
+    @Override
+    public void layoutContainer(Container parent) {
+        Insets in = parent.getInsets();
+        int w = parent.getWidth() - in.left - in.right, h = parent.getHeight() - in.top - in.bottom;
+        float ds = deviceScale(parent);
+        if (w == lastWidth && h == lastHeight && ds == deviceScale) return;
+        lastWidth = w;
+        lastHeight = h;
+
+        float fit = Math.min((float) w / designWidth, (float) h / designHeight);
+        float s = Math.max(MIN_SCALE, (float) Math.floor(fit / STEP) * STEP);
+        int x0 = in.left + Math.round((w - designWidth * s) / 2);
+        int y0 = in.top + Math.round((h - designHeight * s) / 2);
+        for (Map.Entry<Component, Rectangle> e : bounds.entrySet()) {
+            Component c = e.getKey();
+            Rectangle r = e.getValue();
+            // edges rounded independently so neighbours keep their gaps exactly
+            int left = x0 + Math.round(r.x * s), top = y0 + Math.round(r.y * s);
+            c.setBounds(left, top, x0 + Math.round((r.x + r.width) * s) - left, y0 + Math.round((r.y + r.height) * s) - top);
+        }
+        if (s == scale && ds == deviceScale) return;
+        scale = s;
+        deviceScale = ds;
+        for (Component c : bounds.keySet()) {
+            Font f = c.getFont();
+            if (f == null) continue;
+            Float base = fontSizes.get(c);
+            if (base == null) fontSizes.put(c, base = f.getSize2D());
+            c.setFont(f.deriveFont(base * s));
+        }
+        if (listener != null) listener.scaleChanged(s, ds);
+    }
+
+    // Device pixels per user-space unit: 2 on a 200% display with Java 9+, 1 on Java 8
+    private static float deviceScale(Container parent) {
+        GraphicsConfiguration gc = parent.getGraphicsConfiguration();
+        return gc == null ? 1f : (float) gc.getDefaultTransform().getScaleX();
+    }
+
+    @Override
+    public Dimension preferredLayoutSize(Container parent) {
+        Insets in = parent.getInsets();
+        return new Dimension(designWidth + in.left + in.right, designHeight + in.top + in.bottom);
+    }
+
+    @Override
+    public Dimension minimumLayoutSize(Container parent) {
+        Insets in = parent.getInsets();
+        return new Dimension(Math.round(designWidth * MIN_SCALE) + in.left + in.right,
+                Math.round(designHeight * MIN_SCALE) + in.top + in.bottom);
+    }
+
+    @Override
+    public Dimension maximumLayoutSize(Container target) {
+        return new Dimension(Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    @Override public float getLayoutAlignmentX(Container target) { return 0.5f; }
+    @Override public float getLayoutAlignmentY(Container target) { return 0.5f; }
+
+    @Override
+    public void invalidateLayout(Container target) {
+        // the cached size stays valid: only a real size change moves anything
+    }
+}
@@ -15,27 +15,52 @@ import java.util.concurrent.*;
 public class NeonTicTacToeFull extends JFrame {
 
     // UI components
-    private final NeonCell[] cells = new NeonCell[9];
+    private NeonCell[] cells = new NeonCell[9];
     private final JLabel titleLabel = new JLabel("Neon Tic Tac Toe", SwingConstants.CENTER);
     private final JButton pvpBtn = new JButton("Player vs Player");
     private final JButton pvcBtn = new JButton("Player vs Computer");
     private final JButton restartBtn = new JButton("Restart Game");
     private final JButton exitBtn = new JButton("Exit");
+    private final JButton boardBtn = new JButton("Board: 3x3");
+    private final JButton replayBtn = new JButton("Replay");
+    private final JButton leagueBtn = new JButton("Start League");
+    private final JButton analysisBtn = new JButton("Analysis: Off");
+    private final JButton undoBtn = new JButton("Undo");
+    private final JButton redoBtn = new JButton("Redo");
+    private final JSlider timeline = new JSlider(0, 0, 0);   // ply shown, 0 .. moves recorded
+    private boolean syncingTimeline;                          // set while the code moves the slider
+    private final JPanel gridHolder = new JPanel();
     private final JLabel turnLabel = new JLabel("Current Turn: X", SwingConstants.CENTER);
 
-    // Game state
-    private final String[] board = new String[9]; // "", "X", "O"
-    private String currentPlayer = "X";
-    private boolean gameActive = true;
+    // Game state (rules live in the headless GameSession)
+    private GameSession session = new GameSession(MnkRules.CLASSIC);
     private boolean pvcMode = false;
+    private boolean replaying = false;
+    // this game's result is on the scoreboard, league and journal; an ending reached
+    // again after an undo is not counted a second time
+    private boolean resultRecorded;
+
+    // every move is appended to the game journal (null when disabled or unavailable)
+    private final GameJournal journal = openJournal();
 
     // Score
-    private int xWins = 0, oWins = 0, draws = 0;
+    private final Scoreboard scoreboard = new Scoreboard();
     private final JLabel scoreLabel = new JLabel("X: 0   O: 0   Draws: 0", SwingConstants.CENTER);
 
+    // Championship ladder of AI configurations running in the background; your PvC
+    // games count against the computer entrant. Null while no league runs.
+    private Tournament league;
+    private Tournament.Entrant leagueYou, leagueComputer;
+    private final java.util.concurrent.atomic.AtomicBoolean standingsQueued = new java.util.concurrent.atomic.AtomicBoolean();
+
     // AI
-    private final ScheduledExecutorService aiExecutor = Executors.newSingleThreadScheduledExecutor();
-    private final Random rand = new Random();
+    private final AiPlayer ai = new AiPlayer();
+    private CompletableFuture<Integer> pendingAi; // the move being computed, null otherwise
+    // per-move AI budget: search deadline on large boards, think delay for the instant 3x3 lookup
+    private final long aiBudgetMs = Long.getLong("neon.ai.budgetMs", 420);
+    // throwaway searches after the first paint so the first real move runs on compiled code
+    private final long aiWarmUpMs = Long.getLong("neon.ai.warmUpMs", 300);
+    private boolean painted;
 
     // Visuals
     private Color bgColor = Color.decode("#000000");
@@ -43,117 +68,310 @@ public class NeonTicTacToeFull extends JFrame {
     private Color neonX = new Color(255, 0, 64);
     private Color neonO = new Color(0, 255, 255);
     private Color cellBg = Color.decode("#111111");
-
-    // win patterns
-    private final int[][] winPatterns = {
-            {0,1,2},{3,4,5},{6,7,8},
-            {0,3,6},{1,4,7},{2,5,8},
-            {0,4,8},{2,4,6}
-    };
-
-    // animation timers map
-    private final Map<Integer, javax.swing.Timer> pulseTimers = new HashMap<>();
-
-    // particles for win effect
-    private final List<Particle> particles = Collections.synchronizedList(new ArrayList<>());
-    private final javax.swing.Timer repaintTimer;
+    private final Color flashBg = new Color(8,8,8);
+    private final Color flashCell = new Color(18,18,18);
+    private final Color drawCell = new Color(40,40,40);
+    private final Color dimAccent = neonAccent.darker().darker().darker();
+
+    // one frame clock for pulses, flashes and particles; idle when nothing animates
+    private final Animator animator = new Animator(16);
+
+    // cached glow / X / O tiles for the cells
+    private final SpriteCache sprites = new SpriteCache(bgColor);
+    private float layoutScale = 1f;   // design canvas -> window, set by NeonLayout
+
+    // particles for win effect, simulated off the EDT and drawn on the glass pane;
+    // built in the background after the first paint, null until then
+    private ParticleSystem particles;
+    private final int burstSize = Integer.getInteger("neon.fx.burst", 600);
+    private final boolean fxStats = Boolean.getBoolean("neon.fx.stats");
+    private final ParticleLayer particleLayer = new ParticleLayer();
+    private final Animator.FrameHook particleFrame = this::particleFrame;
+    private final LatencyHistogram cellPaintTimes = new LatencyHistogram();   // filled with metrics on
+    private final LatencyHistogram edtLag = new LatencyHistogram();           // filled with metrics on
+
+    // click and victory sounds, mixed on the audio thread
+    private final AudioEngine audio = new AudioEngine(Integer.getInteger("neon.audio.voices", 8));
+
+    // online game on a LiveServer (-Dneon.online=host:port[/game]); null when playing locally.
+    // Local clicks only propose moves: the board changes when the server echoes them.
+    private LiveClient online;
+    private int onlineSide = GameState.EMPTY;
+
+    // analysis overlay (Analysis button, or -Dneon.analysis=true): every candidate cell is
+    // tinted by its score and hovering shows the line it leads to. Searched on the
+    // analysis thread after each move; results of an older position are dropped here.
+    private final Analyzer analyzer = new Analyzer();
+    private final long analysisBudgetMs = Long.getLong("neon.analysis.ms", 2000);
+    private boolean analysisOn = Boolean.getBoolean("neon.analysis");
+    private int analysisRequest;   // bumped whenever the position changes
 
     public NeonTicTacToeFull() {
         setTitle("Neon Tic Tac Toe - Demo");
         setDefaultCloseOperation(EXIT_ON_CLOSE);
         setExtendedState(JFrame.MAXIMIZED_BOTH); // maximize to fullscreen
         // keep window decoration so Exit works reliably
-        setLayout(null);
+        setLayout(new NeonLayout(DESIGN_WIDTH, DESIGN_HEIGHT, this::layoutScaled));
         getContentPane().setBackground(bgColor);
 
-        // initialize board strings
-        Arrays.fill(board, "");
-
         initUI();
+        // the window's close box exits without the Exit button; flush the journal either way
+        Runtime.getRuntime().addShutdownHook(new Thread(this::closeJournal, "neon-journal-close"));
 
-        // Repaint timer for particle animations and smooth visuals
-        repaintTimer = new javax.swing.Timer(33, e -> {
-            updateParticles();
-            repaint();
-        });
-        repaintTimer.start();
+        setGlassPane(particleLayer);
+        particleLayer.setVisible(true);
+
+        animator.addFrameHook(particleFrame);
+        if (Metrics.ENABLED) registerMetrics();
 
         resetGame();
         setVisible(true);
+
+        String net = System.getProperty("neon.online");
+        if (net != null) startOnline(net);
     }
 
-    private void initUI() {
-        int w = Toolkit.getDefaultToolkit().getScreenSize().width;
+    // First frame is on screen: now build what is not visible yet and warm up the AI
+    private void afterFirstPaint() {
+        Launcher.gamePainted();
+        ai.loadTablebase();
+        ai.warmUp(session.rules(), aiWarmUpMs);
+        Thread t = new Thread(() -> {
+            ParticleSystem p = newParticles();
+            SwingUtilities.invokeLater(() -> installParticles(p));
+        }, "neon-startup");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private ParticleSystem newParticles() {
+        return new ParticleSystem(Integer.getInteger("neon.fx.maxParticles", 65536), neonX, neonO);
+    }
 
+    private void installParticles(ParticleSystem p) {
+        if (particles != null) {
+            p.shutdown();
+            return;
+        }
+        particles = p;
+        if (Metrics.ENABLED) registerParticleMetrics();
+    }
+
+    // The particle system, built here if a win comes before the background build
+    private ParticleSystem particles() {
+        if (particles == null) installParticles(newParticles());
+        return particles;
+    }
+
+    // Bounds below are on this canvas; NeonLayout scales it to the window
+    private static final int DESIGN_WIDTH = 880, DESIGN_HEIGHT = 940;
+
+    private void initUI() {
         // Title
         titleLabel.setFont(new Font("Segoe UI", Font.BOLD, 48));
         titleLabel.setForeground(neonAccent);
-        titleLabel.setBounds((w-700)/2, 20, 700, 70);
-        add(titleLabel);
+        add(titleLabel, new Rectangle(90, 20, 700, 70));
 
         // Buttons
-        pvpBtn.setBounds((w-700)/2, 110, 320, 48);
-        pvcBtn.setBounds((w-700)/2 + 360, 110, 320, 48);
         styleControl(pvpBtn);
         styleControl(pvcBtn);
-        add(pvpBtn);
-        add(pvcBtn);
+        styleControl(leagueBtn);
+        add(pvpBtn, new Rectangle(90, 110, 220, 48));
+        add(pvcBtn, new Rectangle(330, 110, 220, 48));
+        add(leagueBtn, new Rectangle(570, 110, 220, 48));
 
         // Grid panel
-        JPanel gridHolder = new JPanel();
         gridHolder.setOpaque(false);
-        int gridSize = 520;
-        gridHolder.setBounds((w-gridSize)/2, 190, gridSize, gridSize);
-        gridHolder.setLayout(new GridLayout(3,3,20,20));
-        add(gridHolder);
-
-        for (int i = 0; i < 9; i++) {
-            NeonCell c = new NeonCell(i);
-            cells[i] = c;
-            gridHolder.add(c);
-        }
+        add(gridHolder, new Rectangle(180, 190, 520, 520));
+        buildGrid();
 
         // Turn, score, restart, exit
         turnLabel.setFont(new Font("Segoe UI", Font.BOLD, 24));
         turnLabel.setForeground(Color.GREEN);
-        turnLabel.setBounds((w-400)/2, 740, 400, 30);
-        add(turnLabel);
+        add(turnLabel, new Rectangle(240, 740, 400, 30));
 
         scoreLabel.setFont(new Font("Segoe UI", Font.BOLD, 16));
         scoreLabel.setForeground(neonAccent);
-        scoreLabel.setBounds((w-400)/2, 770, 400, 24);
-        add(scoreLabel);
-
-        restartBtn.setBounds((w-300)/2, 820, 160, 44);
-        exitBtn.setBounds((w-300)/2 + 180, 820, 120, 44);
+        add(scoreLabel, new Rectangle(240, 770, 400, 24));
+
+        // History: undo / redo and a timeline to scrub through the game
+        styleControl(undoBtn);
+        styleControl(redoBtn);
+        timeline.setOpaque(false);
+        timeline.setFocusable(false);
+        timeline.setForeground(neonAccent);
+        add(undoBtn, new Rectangle(240, 810, 80, 36));
+        add(timeline, new Rectangle(330, 810, 220, 36));
+        add(redoBtn, new Rectangle(560, 810, 80, 36));
+
+        styleControl(boardBtn);
+        styleControl(replayBtn);
+        styleControl(analysisBtn);
         styleControl(restartBtn);
         styleControl(exitBtn);
-        add(restartBtn);
-        add(exitBtn);
+        add(boardBtn, new Rectangle(43, 870, 200, 44));
+        add(replayBtn, new Rectangle(259, 870, 130, 44));
+        add(analysisBtn, new Rectangle(405, 870, 140, 44));
+        add(restartBtn, new Rectangle(561, 870, 150, 44));
+        add(exitBtn, new Rectangle(727, 870, 110, 44));
+        if (analysisOn) analysisBtn.setText("Analysis: On");
 
         // Actions
         pvpBtn.addActionListener(e -> {
+            leaveOnline();
             pvcMode = false;
             resetGame();
             clickBeep();
         });
         pvcBtn.addActionListener(e -> {
+            leaveOnline();
             pvcMode = true;
             resetGame();
             clickBeep();
         });
+        boardBtn.addActionListener(e -> {
+            leaveOnline();
+            MnkRules[] all = MnkRules.VARIANTS;
+            for (int i = 0; i < all.length; i++) {
+                if (all[i] == session.rules()) {
+                    setVariant(all[(i + 1) % all.length]);
+                    break;
+                }
+            }
+            clickBeep();
+        });
+        replayBtn.addActionListener(e -> {
+            leaveOnline();
+            replayLastGame();
+            clickBeep();
+        });
+        undoBtn.addActionListener(e -> {
+            undoMove();
+            clickBeep();
+        });
+        redoBtn.addActionListener(e -> {
+            redoMove();
+            clickBeep();
+        });
+        timeline.addChangeListener(e -> {
+            if (!syncingTimeline) showPly(timeline.getValue(), !timeline.getValueIsAdjusting());
+        });
+        bindKey(KeyStroke.getKeyStroke(KeyEvent.VK_Z, InputEvent.CTRL_DOWN_MASK), "undo", this::undoMove);
+        bindKey(KeyStroke.getKeyStroke(KeyEvent.VK_Y, InputEvent.CTRL_DOWN_MASK), "redo", this::redoMove);
+        analysisBtn.addActionListener(e -> {
+            analysisOn = !analysisOn;
+            analysisBtn.setText(analysisOn ? "Analysis: On" : "Analysis: Off");
+            requestAnalysis();
+            clickBeep();
+        });
+        leagueBtn.addActionListener(e -> {
+            if (league == null) startLeague();
+            else stopLeague();
+            clickBeep();
+        });
         restartBtn.addActionListener(e -> {
-            animateRestart();
+            if (online != null) resyncOnline();   // a shared game is not ours to restart
+            else animateRestart();
             clickBeep();
         });
         exitBtn.addActionListener(e -> {
-            aiExecutor.shutdownNow();
-            repaintTimer.stop();
+            closeJournal();
+            stopLeague();
+            leaveOnline();
+            ai.shutdown();
+            analyzer.shutdown();
+            audio.shutdown();
+            animator.stop();
+            if (particles != null) particles.shutdown();
             dispose();
             System.exit(0);
         });
     }
 
+    // The window reached a new layout scale: tiles of the old cell size are dead weight,
+    // and the cells re-rasterise once at their new size on the next paint
+    private void layoutScaled(float scale, float deviceScale) {
+        layoutScale = scale;
+        sprites.clear();
+        sprites.setDeviceScale(deviceScale);
+        if (cells != null) applyGaps();
+    }
+
+    // One NeonCell per board cell; gaps shrink as the board grows
+    private void buildGrid() {
+        MnkRules variant = session.rules();
+        gridHolder.removeAll();
+        if (variant.nested) {
+            buildNestedGrid();
+            return;
+        }
+        gridHolder.setLayout(new GridLayout(variant.rows, variant.cols));
+        cells = new NeonCell[variant.cells()];
+        for (int i = 0; i < cells.length; i++) {
+            NeonCell c = new NeonCell(i);
+            cells[i] = c;
+            gridHolder.add(c);
+        }
+        applyGaps();
+    }
+
+    // Ultimate: a 3x3 of small 3x3 grids, each its own panel so the boards read apart
+    private void buildNestedGrid() {
+        gridHolder.setLayout(new GridLayout(3, 3));
+        cells = new NeonCell[UltimateBoard.CELLS];
+        for (int s = 0; s < 9; s++) {
+            JPanel sub = new JPanel(new GridLayout(3, 3));
+            sub.setOpaque(false);
+            for (int c = 0; c < 9; c++) {
+                int i = UltimateBoard.CELL[s][c];
+                cells[i] = new NeonCell(i);
+                sub.add(cells[i]);
+            }
+            gridHolder.add(sub);
+        }
+        applyGaps();
+    }
+
+    // Grid gaps at the current layout scale
+    private void applyGaps() {
+        MnkRules variant = session.rules();
+        int gap = variant.nested ? 14 : variant.cols <= 3 ? 20 : variant.cols <= 5 ? 12 : 3;
+        setGap(gridHolder, gap);
+        if (variant.nested) {
+            for (Component sub : gridHolder.getComponents()) setGap((Container) sub, 2);
+        }
+        gridHolder.revalidate();
+    }
+
+    private void setGap(Container c, int gap) {
+        GridLayout g = (GridLayout) c.getLayout();
+        int px = Math.max(1, Math.round(gap * layoutScale));
+        g.setHgap(px);
+        g.setVgap(px);
+    }
+
+    // Ultimate: light the cells the next move may go to, tint the small boards already won
+    private void showPlayableCells() {
+        if (!(session.board() instanceof UltimateBoard)) return;
+        UltimateBoard b = (UltimateBoard) session.board();
+        for (int i = 0; i < cells.length; i++) {
+            int won = b.status(UltimateBoard.SUB[i]);
+            if (won == UltimateBoard.X_WON || won == UltimateBoard.O_WON) {
+                cells[i].setBackground(brighter(cellBg, won == UltimateBoard.X_WON ? neonX : neonO));
+            }
+            if (b.isEmpty(i)) cells[i].setBorderColor(b.isLegal(i) ? neonAccent : dimAccent, 3);
+        }
+    }
+
+    private void setVariant(MnkRules rules) {
+        stopLeague();   // ratings are per variant
+        session = new GameSession(rules);
+        boardBtn.setText("Board: " + rules.name);
+        sprites.clear();
+        buildGrid();
+        resetGame();
+    }
+
     private void styleControl(AbstractButton b) {
         b.setFocusPainted(false);
         b.setForeground(neonAccent);
@@ -172,56 +390,77 @@ public class NeonTicTacToeFull extends JFrame {
     }
 
     private void resetGame() {
-        Arrays.fill(board, "");
-        currentPlayer = "X";
-        gameActive = true;
-        turnLabel.setText("Current Turn: " + currentPlayer);
-        stopAllPulses();
-        particles.clear();
-
-        for (int i = 0; i < 9; i++) {
+        cancelAi();
+        if (journal != null) journal.end(GameSession.Outcome.ONGOING); // abandoned mid-game
+        animator.cancel(this, "replay");
+        replaying = false;
+        resultRecorded = false;
+        session.reset();
+        turnLabel.setText("Current Turn: " + currentPlayer());
+        // effects of the previous game must not land on the new board
+        animator.cancelKind("pulse");
+        animator.cancelKind("flash");
+        animator.cancel(this, "draw");
+        if (particles != null) particles.clear();
+        animator.wake(particleFrame);
+
+        for (int i = 0; i < cells.length; i++) {
             cells[i].setState("");
             cells[i].setEnabled(true);
             cells[i].setBackground(cellBg);
             cells[i].setBorderColor(neonAccent, 4);
         }
+        showPlayableCells();
+        updateTimeline();
+        requestAnalysis();
     }
 
+    // three dark flashes over 480 ms, then a fresh board
     private void animateRestart() {
-        javax.swing.Timer t = new javax.swing.Timer(80, null);
-        final int[] step = {0};
-        t.addActionListener(e -> {
-            step[0]++;
-            if (step[0] % 2 == 0) {
-                getContentPane().setBackground(new Color(8,8,8));
-                for (NeonCell c : cells) c.setBackground(new Color(18,18,18));
-            } else {
-                getContentPane().setBackground(bgColor);
-                for (NeonCell c : cells) c.setBackground(cellBg);
-            }
-            if (step[0] >= 6) {
-                t.stop();
-                resetGame();
-            }
+        animator.play(this, "restart", 480, Animator.Easing.LINEAR, t -> {
+            boolean dark = (1 + (int) (t * 6)) % 2 == 0;
+            getContentPane().setBackground(dark ? flashBg : bgColor);
+            for (NeonCell c : cells) c.setBackground(dark ? flashCell : cellBg);
+        }, () -> {
+            getContentPane().setBackground(bgColor);
+            resetGame();
         });
-        t.start();
     }
 
     private void makeMove(int index, String player) {
-        if (!gameActive) return;
-        if (!board[index].equals("")) return;
-
-        board[index] = player;
+        if (!session.isLegal(index)) return;
+        if (session.current() != side(player)) return;
+
+        GameSession.Outcome outcome = session.play(index);
+        boolean firstResult = !session.isActive() && !resultRecorded;
+        if (!session.isActive()) resultRecorded = true;
+        if (journal != null && !replaying && (session.isActive() || firstResult)) {
+            if (session.moves() == 1 && online == null) journal.begin(session.rules());
+            if (journal.inGame()) {
+                journal.move(index);
+                if (!session.isActive()) journal.end(outcome);
+            } else if (!session.isActive()) {
+                // not streamed (taken back part-way, or online, where a resync can replace
+                // the game): the finished game goes in whole
+                journal.appendGame(session.rules(), session.history(), session.moves(), outcome);
+            }
+        }
+        updateTimeline();
         cells[index].setState(player);
         cells[index].setEnabled(false);
         startPulse(index);
+        showPlayableCells();
+        requestAnalysis();
 
         // play click
         clickBeep();
 
-        if (checkWin(player)) {
-            gameActive = false;
-            if ("X".equals(player)) xWins++; else oWins++;
+        if (firstResult && pvcMode && !replaying && league != null) {
+            league.record(leagueYou, leagueComputer, outcome);   // you are X
+        }
+
+        if (outcome == GameSession.Outcome.X_WINS || outcome == GameSession.Outcome.O_WINS) {
+            if (firstResult) scoreboard.record(outcome);
             updateScore();
             turnLabel.setText(player + " Wins!");
             winParticles(player);
@@ -230,9 +469,8 @@ public class NeonTicTacToeFull extends JFrame {
             return;
         }
 
-        if (checkDraw()) {
-            gameActive = false;
-            draws++;
+        if (outcome == GameSession.Outcome.DRAW) {
+            if (firstResult) scoreboard.record(outcome);
             updateScore();
             turnLabel.setText("It's a Draw!");
             animateDraw();
@@ -240,138 +478,394 @@ public class NeonTicTacToeFull extends JFrame {
             return;
         }
 
-        currentPlayer = currentPlayer.equals("X") ? "O" : "X";
-        turnLabel.setText("Current Turn: " + currentPlayer);
+        turnLabel.setText("Current Turn: " + currentPlayer());
 
-        if (pvcMode && "O".equals(currentPlayer) && gameActive) {
+        if (replaying) {
+            turnLabel.setText("Replay - " + currentPlayer() + " to move");
+        } else if (pvcMode && "O".equals(currentPlayer())) {
             turnLabel.setText("Computer thinking...");
             scheduleAiMove();
+        } else if (pvcMode) {
+            ai.ponder(session.board(), aiBudgetMs);
         }
     }
 
+    private String currentPlayer() {
+        return GameSession.symbol(session.current());
+    }
+
     private void scheduleAiMove() {
-        aiExecutor.schedule(() -> {
-            int move = minimaxBestMove("O", "X");
-            if (move == -1) move = fallbackMove();
-            final int m = move;
-            SwingUtilities.invokeLater(() -> makeMove(m, "O"));
-        }, 420, TimeUnit.MILLISECONDS);
+        // the AI searches its own snapshot; the EDT keeps the live board
+        long started = System.nanoTime();
+        // the 3x3 lookup is instant, so it waits out the budget for pacing; searches spend it
+        long pace = session.rules() == MnkRules.CLASSIC ? aiBudgetMs : 0;
+        CompletableFuture<Integer> f = ai.move(session.board(), aiBudgetMs);
+        pendingAi = f;
+        f.whenComplete((move, ex) -> SwingUtilities.invokeLater(() -> {
+            if (f != pendingAi) return;   // cancelled by a restart or mode switch
+            pendingAi = null;
+            Launcher.aiMoved(System.nanoTime() - started);
+            if (ex != null) System.err.println("AI move failed, playing first free cell: " + ex);
+            int mv = ex != null || move == -1 ? fallbackMove() : move;
+            long wait = pace - (System.nanoTime() - started) / 1_000_000;
+            if (wait <= 0) makeMove(mv, "O");
+            else animator.play(this, "think", wait, Animator.Easing.LINEAR, t -> {}, () -> makeMove(mv, "O"));
+        }));
     }
 
-    private int fallbackMove() {
-        for (int i=0;i<9;i++) if (board[i].equals("")) return i;
-        return -1;
+    // ---- history ----
+
+    // Back one move; in PvC back to your previous turn, taking the computer's reply with it
+    private void undoMove() {
+        if (!historyEnabled() || !session.canUndo()) return;
+        int ply = session.moves() - 1;
+        if (pvcMode) ply &= ~1;   // X (you) moves at even plies
+        showPly(ply, true);
     }
 
-    // Minimax with alpha-beta
-    private int minimaxBestMove(String ai, String human) {
-        int bestScore = Integer.MIN_VALUE;
-        int bestMove = -1;
-        for (int i = 0; i < 9; i++) {
-            if (board[i].equals("")) {
-                board[i] = ai;
-                int score = minimax(0, false, ai, human, Integer.MIN_VALUE, Integer.MAX_VALUE);
-                board[i] = "";
-                if (score > bestScore) {
-                    bestScore = score;
-                    bestMove = i;
-                }
+    private void redoMove() {
+        if (!historyEnabled() || !session.canRedo()) return;
+        int ply = session.moves() + 1;
+        if (pvcMode) ply = Math.min(session.historyLength(), ply + 1);
+        showPly(ply, true);
+    }
+
+    // Not while a replay plays or in a shared online game
+    private boolean historyEnabled() {
+        return online == null && !replaying;
+    }
+
+    // Show the position after ply moves. Once settled (not mid-drag) in PvC with the
+    // computer to move, it plays from there; the same move as before keeps the redo tail.
+    private void showPly(int ply, boolean settled) {
+        if (!historyEnabled()) {
+            updateTimeline();
+            return;
+        }
+        cancelAi();
+        if (ply != session.moves()) {
+            if (journal != null) journal.end(GameSession.Outcome.ONGOING);   // mid-game: the streamed game is abandoned
+            animator.cancelKind("pulse");
+            animator.cancelKind("flash");
+            animator.cancel(this, "draw");
+            if (particles != null) particles.clear();
+            session.seek(ply);
+            syncCells();
+        }
+        updateTimeline();
+        GameSession.Outcome outcome = session.outcome();
+        if (outcome == GameSession.Outcome.DRAW) turnLabel.setText("It's a Draw!");
+        else if (!session.isActive()) turnLabel.setText(GameSession.symbol(session.board().winner()) + " Wins!");
+        else if (settled && pvcMode && session.current() == GameState.O) {
+            turnLabel.setText("Computer thinking...");
+            scheduleAiMove();
+        } else {
+            turnLabel.setText("Current Turn: " + currentPlayer()
+                    + (session.canRedo() ? "  (move " + session.moves() + " of " + session.historyLength() + ")" : ""));
+        }
+        requestAnalysis();
+    }
+
+    // Cells from the board after a jump along the timeline
+    private void syncCells() {
+        GameState b = session.board();
+        for (int i = 0; i < cells.length; i++) {
+            cells[i].setState(GameSession.symbol(b.cell(i)));
+            cells[i].setEnabled(b.isEmpty(i));
+            cells[i].setBackground(cellBg);
+            cells[i].setBorderColor(neonAccent, 4);
+        }
+        showPlayableCells();
+        if (b.winner() != GameState.EMPTY) {
+            Color lit = brighter(cellBg, b.winner() == GameState.X ? neonX : neonO);
+            for (int i : session.winningCells()) cells[i].setBackground(lit);
+        }
+    }
+
+    private void updateTimeline() {
+        syncingTimeline = true;
+        timeline.setMaximum(session.historyLength());
+        timeline.setValue(session.moves());
+        syncingTimeline = false;
+        boolean on = historyEnabled();
+        timeline.setEnabled(on && session.historyLength() > 0);
+        undoBtn.setEnabled(on && session.canUndo());
+        redoBtn.setEnabled(on && session.canRedo());
+    }
+
+    private void bindKey(KeyStroke key, String name, Runnable action) {
+        getRootPane().getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(key, name);
+        getRootPane().getActionMap().put(name, new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                action.run();
             }
+        });
+    }
+
+    // ---- analysis overlay ----
+
+    // Analyse the position now on the board, or just clear the overlay when there is
+    // nothing to show: analysis off, game over, a replay, or the computer to move
+    private void requestAnalysis() {
+        int request = ++analysisRequest;
+        for (NeonCell c : cells) c.setAnalysis(Float.NaN, null, null);
+        if (!analysisOn || !session.isActive() || replaying || (pvcMode && session.current() == GameState.O)) {
+            analyzer.cancel();
+            return;
         }
-        return bestMove;
+        analyzer.analyze(session.board(), session.rules(), analysisBudgetMs, a -> SwingUtilities.invokeLater(() -> {
+            if (request == analysisRequest) showAnalysis(a);
+        }));
     }
 
-    private int minimax(int depth, boolean isMax, String ai, String human, int alpha, int beta) {
-        if (isLineWin(ai)) return 10 - depth;
-        if (isLineWin(human)) return depth - 10;
-        if (isBoardFull()) return 0;
+    // Heat is the score's rank among the candidates: green for the best, red for the worst
+    private void showAnalysis(Analyzer.Analysis a) {
+        int[] ranked = new int[cells.length];
+        int n = 0;
+        for (int i = 0; i < cells.length; i++) if (a.score(i) != Analyzer.NONE) ranked[n++] = a.score(i);
+        Arrays.sort(ranked, 0, n);
+        int distinct = 0;
+        for (int i = 0; i < n; i++) if (i == 0 || ranked[i] != ranked[distinct - 1]) ranked[distinct++] = ranked[i];
+        for (int i = 0; i < cells.length; i++) {
+            int v = a.score(i);
+            if (v == Analyzer.NONE) {
+                cells[i].setAnalysis(Float.NaN, null, null);
+                continue;
+            }
+            float heat = distinct == 1 ? 1f : Arrays.binarySearch(ranked, 0, distinct, v) / (float) (distinct - 1);
+            String label = Analyzer.Analysis.isWin(v) ? "W" + Analyzer.Analysis.matePlies(v)
+                    : Analyzer.Analysis.isLoss(v) ? "L" + Analyzer.Analysis.matePlies(v) : String.valueOf(v);
+            StringBuilder pv = new StringBuilder("depth " + a.depth + ": ");
+            for (int mv : a.pv(i)) pv.append(square(mv)).append(' ');
+            cells[i].setAnalysis(heat, label, pv.toString().trim());
+        }
+    }
 
-        if (isMax) {
-            int maxEval = Integer.MIN_VALUE;
-            for (int i = 0; i < 9; i++) if (board[i].equals("")) {
-                board[i] = ai;
-                int eval = minimax(depth + 1, false, ai, human, alpha, beta);
-                board[i] = "";
-                maxEval = Math.max(maxEval, eval);
-                alpha = Math.max(alpha, eval);
-                if (beta <= alpha) break;
+    // Column letter and row number, a1 top-left
+    private String square(int cell) {
+        int cols = session.rules().cols;
+        return (char) ('a' + cell % cols) + String.valueOf(cell / cols + 1);
+    }
+
+    // ---- online play ----
+
+    // "host:port" starts a game of -Dneon.online.variant (default 3x3), "host:port/id" joins game id
+    private void startOnline(String spec) {
+        String[] parts = spec.split("/", 2);
+        int colon = parts[0].lastIndexOf(':');
+        String host = parts[0].substring(0, colon);
+        int port = Integer.parseInt(parts[0].substring(colon + 1));
+        int game = parts.length > 1 ? Integer.parseInt(parts[1]) : 0;
+        MnkRules rules = MnkRules.forName(System.getProperty("neon.online.variant", "3x3"));
+        pvcMode = false;
+        turnLabel.setText("Connecting to " + parts[0] + "...");
+        Thread t = new Thread(() -> {
+            try {
+                LiveClient c = LiveClient.connect(host, port, new OnlineListener());
+                SwingUtilities.invokeLater(() -> online = c);
+                if (game > 0) c.join(game, 0);
+                else c.create(rules);
+            } catch (java.io.IOException ex) {
+                SwingUtilities.invokeLater(() -> turnLabel.setText("Cannot reach " + parts[0] + ": " + ex.getMessage()));
             }
-            return maxEval;
-        } else {
-            int minEval = Integer.MAX_VALUE;
-            for (int i = 0; i < 9; i++) if (board[i].equals("")) {
-                board[i] = human;
-                int eval = minimax(depth + 1, true, ai, human, alpha, beta);
-                board[i] = "";
-                minEval = Math.min(minEval, eval);
-                beta = Math.min(beta, eval);
-                if (beta <= alpha) break;
+        }, "neon-online-connect");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private void leaveOnline() {
+        if (online == null) return;
+        online.close();
+        online = null;
+        onlineSide = GameState.EMPTY;
+        updateTimeline();
+    }
+
+    private void proposeOnline(int cell) {
+        try {
+            online.move(cell);
+        } catch (java.io.IOException ex) {
+            turnLabel.setText("Move not sent: " + ex.getMessage());
+        }
+    }
+
+    private void resyncOnline() {
+        try {
+            online.resync();
+        } catch (java.io.IOException ex) {
+            turnLabel.setText("Resync failed: " + ex.getMessage());
+        }
+    }
+
+    // The server's whole game, applied quietly: a resync (restart, gap, reconnect) must not
+    // journal, score or celebrate the game again. Only a live MOVED that ends it counts.
+    private void applySnapshot(MnkRules rules, int[] moves) {
+        if (journal != null) journal.end(GameSession.Outcome.ONGOING);   // a local game left behind
+        if (rules != session.rules()) {
+            stopLeague();
+            session = new GameSession(rules);
+            boardBtn.setText("Board: " + rules.name);
+            sprites.clear();
+            buildGrid();
+        }
+        cancelAi();
+        animator.cancel(this, "replay");
+        replaying = false;
+        animator.cancelKind("pulse");
+        animator.cancelKind("flash");
+        animator.cancel(this, "draw");
+        if (particles != null) particles.clear();
+        session.reset();
+        for (int mv : moves) if (session.isLegal(mv)) session.play(mv);
+        resultRecorded = !session.isActive();
+        syncCells();
+        updateTimeline();
+        requestAnalysis();
+        if (session.outcome() == GameSession.Outcome.DRAW) turnLabel.setText("It's a Draw!");
+        else if (!session.isActive()) turnLabel.setText(GameSession.symbol(session.board().winner()) + " Wins!");
+        else turnLabel.setText(onlineStatus() + currentPlayer() + " to move");
+    }
+
+    private String onlineStatus() {
+        String who = onlineSide == GameState.EMPTY ? "watching" : "you are " + GameSession.symbol(onlineSide);
+        return "Online game " + online.gameId() + " (" + who + ") - ";
+    }
+
+    // Server events, moved onto the EDT; stale ones from a closed client are dropped there
+    private class OnlineListener implements LiveClient.Listener {
+        @Override
+        public void welcome(int gameId, int side) {
+            SwingUtilities.invokeLater(() -> onlineSide = side);
+        }
+
+        @Override
+        public void snapshot(MnkRules rules, int[] moves) {
+            SwingUtilities.invokeLater(() -> {
+                if (online != null) applySnapshot(rules, moves);
+            });
+        }
+
+        @Override
+        public void moved(int seq, int cell) {
+            SwingUtilities.invokeLater(() -> {
+                if (online == null || seq != session.moves()) return;
+                makeMove(cell, currentPlayer());
+                if (session.isActive()) turnLabel.setText(onlineStatus() + currentPlayer() + " to move");
+            });
+        }
+
+        @Override
+        public void rejected(int seq) {
+            SwingUtilities.invokeLater(() -> turnLabel.setText("Move rejected - resyncing"));
+        }
+
+        @Override
+        public void error(int code) {
+            String msg = code == LiveServer.NO_GAME ? "no such game" : code == LiveServer.SEAT_TAKEN ? "seat taken"
+                    : code == LiveServer.TOO_MANY_GAMES ? "too many open games" : "error " + code;
+            SwingUtilities.invokeLater(() -> turnLabel.setText("Online: " + msg));
+        }
+
+        @Override
+        public void connectionLost(boolean reconnecting) {
+            SwingUtilities.invokeLater(() -> {
+                if (online != null) turnLabel.setText(reconnecting ? "Connection lost - reconnecting..." : "Offline");
+            });
+        }
+    }
+
+    // Play back the newest finished game of this board from the journal, one move per 450 ms
+    private void replayLastGame() {
+        if (journal == null) {
+            turnLabel.setText("Game journal is off");
+            return;
+        }
+        int[] moves;
+        try {
+            moves = journal.lastGame(session.rules());
+        } catch (java.io.IOException ex) {
+            System.err.println("Cannot read the game journal: " + ex);
+            moves = null;
+        }
+        if (moves == null) {
+            turnLabel.setText("No finished " + session.rules().name + " game yet");
+            return;
+        }
+        resetGame();
+        replaying = true;
+        turnLabel.setText("Replay - X to move");
+        replayStep(moves, 0);
+    }
+
+    private void replayStep(int[] moves, int i) {
+        animator.play(this, "replay", 450, Animator.Easing.LINEAR, t -> {}, () -> {
+            makeMove(moves[i], currentPlayer());
+            if (i + 1 < moves.length && session.isActive()) {
+                replayStep(moves, i + 1);
+            } else {
+                replaying = false;
+                updateTimeline();
             }
-            return minEval;
+        });
+    }
+
+    private static GameJournal openJournal() {
+        java.nio.file.Path file = GameJournal.defaultPath();
+        if (file == null) return null;
+        try {
+            return GameJournal.open(file);
+        } catch (java.io.IOException ex) {
+            System.err.println("Game journal disabled: " + ex);
+            return null;
         }
     }
 
-    private boolean isLineWin(String player) {
-        for (int[] p : winPatterns) {
-            if (board[p[0]].equals(player) && board[p[1]].equals(player) && board[p[2]].equals(player)) return true;
+    private void closeJournal() {
+        if (journal == null) return;
+        try {
+            journal.close();
+        } catch (java.io.IOException ex) {
+            System.err.println("Game journal: " + ex);
         }
-        return false;
     }
 
-    private boolean isBoardFull() {
-        for (String s : board) if (s.equals("")) return false;
-        return true;
+    // Forget any move in flight so it cannot land on a new game
+    private void cancelAi() {
+        if (pendingAi != null) pendingAi.cancel(true);
+        pendingAi = null;
+        animator.cancel(this, "think");
+        ai.stopPondering();
     }
 
-    // Check win for current board
-    private boolean checkWin(String player) {
-        return isLineWin(player);
+    private int fallbackMove() {
+        GameState board = session.board();
+        for (int i = 0; i < board.size(); i++) if (board.isLegal(i)) return i;
+        return -1;
     }
 
-    private boolean checkDraw() {
-        return isBoardFull();
+    private static int side(String player) {
+        return "X".equals(player) ? GameState.X : GameState.O;
     }
 
     private void animateWinHighlight(String player) {
-        for (int[] p : winPatterns) {
-            if (board[p[0]].equals(player) && board[p[1]].equals(player) && board[p[2]].equals(player)) {
-                // pulsate these three cells
-                for (int idx : p) {
-                    final int i = idx;
-                    javax.swing.Timer t = new javax.swing.Timer(180, null);
-                    final int[] step = {0};
-                    t.addActionListener(ev -> {
-                        step[0]++;
-                        if (step[0] % 2 == 0) cells[i].setBackground(brighter(cellBg, player.equals("X") ? neonX : neonO));
-                        else cells[i].setBackground(cellBg);
-                        if (step[0] >= 12) {
-                            t.stop();
-                            cells[i].setBackground(cellBg);
-                        }
-                    });
-                    t.start();
-                }
-                break;
-            }
+        // blink the cells of the winning line mask six times over ~2 s
+        Color lit = brighter(cellBg, player.equals("X") ? neonX : neonO);
+        for (final int i : session.winningCells()) {
+            NeonCell cell = cells[i];
+            animator.play(cell, "flash", 2160, Animator.Easing.LINEAR,
+                    t -> cell.setBackground((1 + (int) (t * 12)) % 2 == 0 ? lit : cellBg),
+                    () -> cell.setBackground(cellBg));
         }
     }
 
     private void animateDraw() {
-        javax.swing.Timer t = new javax.swing.Timer(110, null);
-        final int[] step = {0};
-        t.addActionListener(e -> {
-            step[0]++;
-            if (step[0] % 2 == 0) {
-                for (NeonCell c : cells) c.setBackground(new Color(40,40,40));
-            } else {
-                for (NeonCell c : cells) c.setBackground(cellBg);
-            }
-            if (step[0] >= 8) {
-                t.stop();
-                for (NeonCell c : cells) c.setBackground(cellBg);
-            }
+        animator.play(this, "draw", 880, Animator.Easing.LINEAR, t -> {
+            Color bg = (1 + (int) (t * 8)) % 2 == 0 ? drawCell : cellBg;
+            for (NeonCell c : cells) c.setBackground(bg);
+        }, () -> {
+            for (NeonCell c : cells) c.setBackground(cellBg);
         });
-        t.start();
     }
 
     private Color brighter(Color base, Color glow) {
@@ -383,62 +877,147 @@ public class NeonTicTacToeFull extends JFrame {
     }
 
     private void updateScore() {
-        scoreLabel.setText(String.format("X: %d   O: %d   Draws: %d", xWins, oWins, draws));
+        if (league != null) showStandings();
+        else scoreLabel.setText(scoreboard.toString());
     }
 
-    // Pulsate effect on a cell using javax.swing.Timer
-    private void startPulse(int index) {
-        if (pulseTimers.containsKey(index)) {
-            javax.swing.Timer existing = pulseTimers.get(index);
-            if (existing.isRunning()) existing.stop();
-        }
-        final int[] step = {0};
-        javax.swing.Timer t = new javax.swing.Timer(90, null);
-        t.addActionListener(e -> {
-            step[0]++;
-            int thickness = 3 + (step[0] % 6);
-            cells[index].setBorderColor(neonAccent, thickness);
-            if (step[0] >= 12) {
-                t.stop();
-                cells[index].setBorderColor(neonAccent, 3);
-            }
+    // Swiss (or -Dneon.league.pairing=roundrobin) rounds of -Dneon.league.entrants plus the
+    // computer you play against, on the current board, until stopped
+    private void startLeague() {
+        MnkRules rules = session.rules();
+        String computer = System.getProperty("neon.ai.strategy", "alphabeta") + "/" + aiBudgetMs + "ms";
+        List<String> specs = new ArrayList<>(Arrays.asList(
+                System.getProperty("neon.league.entrants", Tournament.defaultEntrants(rules)).split(",")));
+        specs.add(computer);
+        specs.add("human");
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);   // one core for this game
+        Tournament t = new Tournament(rules, specs, Tournament.Pairing.forName(System.getProperty("neon.league.pairing", "swiss")),
+                2, threads, 50, rules == MnkRules.CLASSIC ? 1 : 2, System.nanoTime());
+        // many games a second finish on 3x3: at most one standings refresh waits on the EDT
+        t.listener((tt, x, o, outcome) -> {
+            if (standingsQueued.compareAndSet(false, true)) SwingUtilities.invokeLater(this::showStandings);
         });
-        pulseTimers.put(index, t);
-        t.start();
+        league = t;
+        leagueYou = t.entrant("human");
+        leagueComputer = t.entrant(computer);
+        Thread runner = new Thread(() -> {
+            try {
+                t.run(0);
+            } catch (InterruptedException ignored) {
+                // stopped
+            } catch (RuntimeException ex) {
+                System.err.println("League stopped: " + ex);
+                SwingUtilities.invokeLater(() -> {
+                    if (league != t) return;   // already stopped or replaced
+                    stopLeague();
+                    Throwable why = ex.getCause() != null ? ex.getCause() : ex;
+                    scoreLabel.setText("League stopped: " + (why.getMessage() != null ? why.getMessage() : why.getClass().getSimpleName()));
+                });
+            }
+        }, "neon-league");
+        runner.setDaemon(true);
+        runner.start();
+        leagueBtn.setText("Stop League");
+        showStandings();
+    }
+
+    private void stopLeague() {
+        if (league == null) return;
+        league.stop();
+        league = null;
+        leagueBtn.setText("Start League");
+        scoreLabel.setToolTipText(null);
+        updateScore();
     }
 
-    private void stopAllPulses() {
-        for (javax.swing.Timer t : pulseTimers.values()) if (t.isRunning()) t.stop();
-        pulseTimers.clear();
+    // Top three in the score line, the whole table in its tooltip
+    private void showStandings() {
+        standingsQueued.set(false);
+        Tournament t = league;
+        if (t == null) return;
+        Tournament.Entrant[] table = t.standings();
+        StringBuilder line = new StringBuilder();
+        StringBuilder tip = new StringBuilder("<html>League, ").append(t.gamesPlayed()).append(" games<br>");
+        for (int i = 0; i < table.length; i++) {
+            Tournament.Entrant e = table[i];
+            String name = e == leagueYou ? "You" : e == leagueComputer ? "Computer" : e.name();
+            if (i < 3) line.append(i == 0 ? "" : "   ").append(i + 1).append(". ").append(name).append(' ').append(Math.round(e.rating()));
+            tip.append(String.format("%d. %s  %.0f  (%d-%d-%d)<br>", i + 1, name, e.rating(), e.wins(), e.draws(), e.losses()));
+        }
+        scoreLabel.setText(line.toString());
+        scoreLabel.setToolTipText(tip.append("</html>").toString());
+    }
+
+    // Pulsate a cell border: two eased beats from 3 to 8 px and back over ~1 s
+    private void startPulse(int index) {
+        NeonCell cell = cells[index];
+        animator.play(cell, "pulse", 1080, Animator.Easing.LINEAR, t -> {
+            float beat = (t * 2) % 1f;
+            float swell = Animator.Easing.EASE_IN_OUT.apply(1 - Math.abs(2 * beat - 1));
+            cell.setBorderColor(neonAccent, 3 + Math.round(5 * swell));
+        }, () -> cell.setBorderColor(neonAccent, 3));
     }
 
     // Win particle effects
     private void winParticles(String player) {
-        Color c = player.equals("X") ? neonX : neonO;
-        for (int i=0;i<60;i++) {
-            particles.add(new Particle(getWidth()/2, getHeight()/2, rand.nextDouble()*360, c));
-        }
+        particles().burst(particleLayer.getWidth()/2f, particleLayer.getHeight()/2f, burstSize, player.equals("X") ? 0 : 1);
+        animator.wake(particleFrame);
     }
 
-    private void updateParticles() {
-        synchronized (particles) {
-            Iterator<Particle> it = particles.iterator();
-            while (it.hasNext()) {
-                Particle p = it.next();
-                p.update();
-                if (p.life <= 0) it.remove();
-            }
-        }
+    // Animator hook: show the newest particle frame; false once the burst is over
+    private boolean particleFrame() {
+        if (particles == null) return false;
+        Rectangle dirty = particles.advance();
+        if (dirty != null && !dirty.isEmpty()) particleLayer.repaint(dirty);
+        if (particles.isActive()) return true;
+        if (fxStats) System.out.println(particles.stats());
+        return false;
+    }
+
+    // Scraped from the EDT's point of view: frame and paint times, effects and AI backlog
+    private void registerMetrics() {
+        Metrics.summary("neon_ui_frame_seconds", "EDT time spent in one animation frame", 1e-9, animator.frameTimes());
+        Metrics.counter("neon_ui_frames_total", "Animation frames run", animator::frames);
+        Metrics.gauge("neon_ui_active_tweens", "Animations in progress", animator::activeTweens);
+        Metrics.gauge("neon_ui_clock_running", "1 while the animation timer is ticking", () -> animator.isRunning() ? 1 : 0);
+        Metrics.summary("neon_ui_paint_seconds", "Time to paint one component", 1e-9, cellPaintTimes, "component", "cell");
+        Metrics.gauge("neon_ai_queue_depth", "AI requests waiting for a worker", ai::queueDepth, "pool", "ui");
+        Metrics.counter("neon_ai_ponder_hits_total", "Replies answered from the ponder cache", ai::ponderHits);
+        Metrics.summary("neon_ui_edt_lag_seconds", "Delay before the EDT runs a task posted to it", 1e-9, edtLag);
+        Metrics.counter("neon_audio_sounds_total", "Sounds started", audio::played);
+        Metrics.counter("neon_audio_voices_stolen_total", "Sounds cut short by the polyphony cap", audio::stolen);
+        Metrics.gauge("neon_audio_voices", "Sounds playing", audio::voices);
+        Metrics.summary("neon_audio_mix_seconds", "Time to mix one audio block", 1e-9, audio.mixTimes());
+        startEdtWatch();
+    }
+
+    // Post a probe to the EDT every 50 ms and record how long it waited: anything that
+    // blocks the EDT (a sleep, a long search) shows up as lag
+    private void startEdtWatch() {
+        ScheduledExecutorService watch = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "neon-edt-watch");
+            t.setDaemon(true);
+            return t;
+        });
+        watch.scheduleAtFixedRate(() -> {
+            long posted = System.nanoTime();
+            SwingUtilities.invokeLater(() -> edtLag.record(System.nanoTime() - posted));
+        }, 50, 50, TimeUnit.MILLISECONDS);
+    }
+
+    // Once the particle system exists
+    private void registerParticleMetrics() {
+        Metrics.summary("neon_ui_paint_seconds", "Time to paint one component", 1e-9, particles.paintTimes(), "component", "particles");
+        Metrics.summary("neon_fx_step_seconds", "Particle simulation time per step", 1e-9, particles.stepTimes());
+        Metrics.gauge("neon_fx_particles", "Live win particles", particles::liveParticles);
     }
 
-    // Simple click and victory beeps
+    // Click and victory sounds; queued for the audio thread, never wait on the EDT
     private void clickBeep() {
-        Toolkit.getDefaultToolkit().beep();
+        audio.play(AudioEngine.CLICK);
     }
     private void victoryBeep() {
-        Toolkit.getDefaultToolkit().beep();
-        try { Thread.sleep(100); } catch (InterruptedException ignored) {}
-        Toolkit.getDefaultToolkit().beep();
+        audio.play(AudioEngine.VICTORY);
     }
 
     // Custom painted cell component
@@ -447,27 +1026,34 @@ public class NeonTicTacToeFull extends JFrame {
         private int index;
         private Color borderColor = neonAccent;
         private int borderThickness = 3;
+        private float heat = Float.NaN;   // analysis overlay, 0 worst .. 1 best; NaN for none
+        private String analysisLabel;
 
         NeonCell(int idx) {
             this.index = idx;
             setOpaque(true);
             setBackground(cellBg);
             setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
-            setBorder(BorderFactory.createLineBorder(borderColor, borderThickness, true));
+            setBorder(sprites.border(borderColor, borderThickness));
             addMouseListener(new MouseAdapter() {
                 @Override
                 public void mouseEntered(MouseEvent e) {
-                    if (gameActive && state.equals("")) setBorderColor(neonAccent, borderThickness+2);
+                    if (session.isLegal(index)) setBorderColor(neonAccent, borderThickness+2);
                 }
                 @Override
                 public void mouseExited(MouseEvent e) {
-                    if (gameActive && state.equals("")) setBorderColor(neonAccent, borderThickness);
+                    if (session.isLegal(index)) setBorderColor(neonAccent, borderThickness);
                 }
                 @Override
                 public void mouseClicked(MouseEvent e) {
-                    if (!gameActive) return;
-                    if (!state.equals("")) return;
-                    makeMove(index, currentPlayer);
+                    if (!session.isActive() || replaying) return;
+                    if (!session.isLegal(index)) return;
+                    if (online != null) {
+                        if (session.current() == onlineSide) proposeOnline(index);
+                        return;
+                    }
+                    if (pvcMode && session.current() == GameState.O) return; // computer's turn
+                    makeMove(index, currentPlayer());
                 }
             });
         }
@@ -477,171 +1063,73 @@ public class NeonTicTacToeFull extends JFrame {
             repaint();
         }
 
+        // pv becomes the tooltip
+        void setAnalysis(float heat, String label, String pv) {
+            if (Float.isNaN(heat) && Float.isNaN(this.heat)) return;
+            this.heat = heat;
+            this.analysisLabel = label;
+            setToolTipText(pv);
+            repaint();
+        }
+
         void setBorderColor(Color c, int thickness) {
+            if (c.equals(borderColor) && thickness == borderThickness && getBorder() != null) return;
             this.borderColor = c;
             this.borderThickness = thickness;
-            setBorder(BorderFactory.createLineBorder(borderColor, borderThickness, true));
-            repaint();
+            setBorder(sprites.border(borderColor, borderThickness));
         }
 
         @Override
         public void paintComponent(Graphics g) {
-            super.paintComponent(g);
-            // background
-            Graphics2D g2 = (Graphics2D) g.create();
-            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-
+            long t0 = Metrics.ENABLED ? System.nanoTime() : 0;
+            if (!painted) {
+                painted = true;
+                SwingUtilities.invokeLater(NeonTicTacToeFull.this::afterFirstPaint);
+            }
+            Graphics2D g2 = (Graphics2D) g;
             int w = getWidth();
             int h = getHeight();
 
-            // soft inner glow
-            for (int i=5;i>=1;i--) {
-                int a = (int)(12 + (6-i)*18);
-                g2.setColor(new Color(borderColor.getRed(), borderColor.getGreen(), borderColor.getBlue(), Math.min(200,a)));
-                g2.fillRoundRect(3-i, 3-i, w-6+(i*2), h-6+(i*2), 18, 18);
-            }
+            // backdrop + soft inner glow, pre-rendered at device resolution
+            g2.drawImage(sprites.glow(w, h, borderColor), 0, 0, w, h, null);
 
             // draw inner panel (dark)
+            Object aa = g2.getRenderingHint(RenderingHints.KEY_ANTIALIASING);
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
             g2.setColor(getBackground());
             g2.fillRoundRect(6,6,w-12,h-12,14,14);
+            if (!Float.isNaN(heat)) paintAnalysis(g2, w, h);
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, aa);
 
             // draw symbol
-            if ("X".equals(state)) drawNeonX(g2,w,h);
-            else if ("O".equals(state)) drawNeonO(g2,w,h);
-
-            g2.dispose();
-        }
-
-        private void drawNeonX(Graphics2D g2, int w, int h) {
-            int pad = Math.min(w,h)/6;
-            // glow layers
-            for (int glow = 16; glow >= 4; glow -= 3) {
-                g2.setStroke(new BasicStroke(glow, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
-                g2.setColor(new Color(neonX.getRed(), neonX.getGreen(), neonX.getBlue(), 30));
-                g2.drawLine(pad, pad, w-pad, h-pad);
-                g2.drawLine(w-pad, pad, pad, h-pad);
-            }
-            // main X
-            g2.setStroke(new BasicStroke(8f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
-            g2.setColor(neonX);
-            g2.drawLine(pad, pad, w-pad, h-pad);
-            g2.drawLine(w-pad, pad, pad, h-pad);
-        }
-
-        private void drawNeonO(Graphics2D g2,int w,int h) {
-            int size = Math.min(w,h) - w/4;
-            int x = (w-size)/2;
-            int y = (h-size)/2;
-            // glow rings
-            for (int glow=18; glow>=6; glow-=3) {
-                g2.setStroke(new BasicStroke(glow, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
-                g2.setColor(new Color(neonO.getRed(), neonO.getGreen(), neonO.getBlue(), 24));
-                g2.drawOval(x-(glow/4), y-(glow/4), size+(glow/2), size+(glow/2));
-            }
-            g2.setStroke(new BasicStroke(8f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
-            g2.setColor(neonO);
-            g2.drawOval(x,y,size,size);
-        }
-    }
-
-    // Particle for win effect
-    private class Particle {
-        double x, y, vx, vy;
-        int life = 80;
-        Color color;
-        Particle(double x,double y,double angle, Color c) {
-            this.x = x; this.y = y;
-            double rad = Math.toRadians(angle);
-            this.vx = Math.cos(rad) * (2 + rand.nextDouble()*6);
-            this.vy = Math.sin(rad) * (2 + rand.nextDouble()*6);
-            this.color = c;
-        }
-        void update() {
-            x += vx; y += vy;
-            vx *= 0.98; vy *= 0.98;
-            life--;
-        }
-    }
-
-    // Utility: update board cell states (call when painting)
-    @Override
-    public void paint(Graphics g) {
-        super.paint(g);
-        // draw particles on top layer
-        Graphics2D g2 = (Graphics2D) g.create();
-        synchronized (particles) {
-            for (Particle p : particles) {
-                int alpha = (int) (255.0 * Math.max(0, p.life / 80.0));
-                g2.setColor(new Color(p.color.getRed(), p.color.getGreen(), p.color.getBlue(), Math.max(0, alpha)));
-                g2.fillOval((int)p.x, (int)p.y, 6, 6);
-            }
-        }
-    }
-
-    // Mouse & keyboard handling delegated to components (cells) - no extra listeners here
-
-    // Helper to check winner used by minimax
-    private char getWinner(char[] arrBoard) {
-        // arrBoard length 9, indexes 0..8
-        for (int[] p : winPatterns) {
-            String a = String.valueOf(arrBoard[p[0]]);
-            String b = String.valueOf(arrBoard[p[1]]);
-            String c = String.valueOf(arrBoard[p[2]]);
-            if (a.charAt(0) != ' ' && a.equals(b) && b.equals(c)) return a.charAt(0);
+            if ("X".equals(state)) g2.drawImage(sprites.x(w, h, neonX), 0, 0, w, h, null);
+            else if ("O".equals(state)) g2.drawImage(sprites.o(w, h, neonO), 0, 0, w, h, null);
+            if (Metrics.ENABLED) cellPaintTimes.record(System.nanoTime() - t0);
         }
-        return ' ';
-    }
 
-    private char getWinner(String[] sboard) {
-        for (int[] p : winPatterns) {
-            if (!sboard[p[0]].equals("") && sboard[p[0]].equals(sboard[p[1]]) && sboard[p[1]].equals(sboard[p[2]])) {
-                return sboard[p[0]].charAt(0);
-            }
+        // translucent red -> green tint and the score along the bottom edge
+        private void paintAnalysis(Graphics2D g2, int w, int h) {
+            g2.setColor(new Color((int) (255 * (1 - heat)), (int) (255 * heat), 64, heat == 1f ? 120 : 70));
+            g2.fillRoundRect(10, 10, w - 20, h - 20, 12, 12);
+            g2.setFont(new Font("Segoe UI", Font.BOLD, Math.max(9, h / 6)));
+            FontMetrics fm = g2.getFontMetrics();
+            g2.setColor(Color.WHITE);
+            g2.drawString(analysisLabel, (w - fm.stringWidth(analysisLabel)) / 2, h - 10 - fm.getDescent());
         }
-        return ' ';
     }
 
-    // Minimax helper works on char[][] version; convert when calling
-    private int minimaxBoard(char[] b, int depth, boolean isMax) {
-        char w = getWinner(b);
-        if (w == 'O') return 10 - depth;
-        if (w == 'X') return depth - 10;
-        boolean full = true;
-        for (char c : b) if (c == ' ') { full = false; break; }
-        if (full) return 0;
+    // Transparent glass pane the particles are drawn on, so a particle step only
+    // repaints the rectangle it touched instead of the whole frame
+    private class ParticleLayer extends JComponent {
+        private static final long serialVersionUID = 1L;
 
-        if (isMax) {
-            int best = Integer.MIN_VALUE;
-            for (int i = 0; i < 9; i++) if (b[i] == ' ') {
-                b[i] = 'O';
-                best = Math.max(best, minimaxBoard(b, depth+1, false));
-                b[i] = ' ';
-            }
-            return best;
-        } else {
-            int best = Integer.MAX_VALUE;
-            for (int i = 0; i < 9; i++) if (b[i] == ' ') {
-                b[i] = 'X';
-                best = Math.min(best, minimaxBoard(b, depth+1, true));
-                b[i] = ' ';
-            }
-            return best;
+        @Override
+        protected void paintComponent(Graphics g) {
+            if (particles != null) particles.paint(g);
         }
     }
 
-    // Minimax wrapper used earlier expects char[][]; below convenient conversion and call
-    private int minimax(char[] boardFlat, int depth, boolean isMaximizing) {
-        return minimaxBoard(boardFlat, depth, isMaximizing);
-    }
-
-    // convert String[] board to char[] flatten
-    private char[] flattenBoard(String[] sb) {
-        char[] out = new char[9];
-        for (int i=0;i<9;i++) out[i] = sb[i].equals("") ? ' ' : sb[i].charAt(0);
-        return out;
-    }
-
-    // main entry for minimax-based move earlier uses minimaxBestMove above
+    // Mouse & keyboard handling delegated to components (cells) - no extra listeners here
 
     // MAIN
     public static void main(String[] args) {
@@ -0,0 +1,230 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ParallelSearch.java
+ * Young Brothers Wait at the root of {@link MnkSearch}, on a ForkJoinPool.
+ *
+ * Each iteration searches the eldest root move (the previous best) alone to get
+ * a bound, then fans the younger brothers out over the workers. Workers have
+ * their own MnkSearch and board copy but share one transposition table, the
+ * rising root alpha and a stop flag.
+ *
+ * Younger brothers are searched with a lower bound one below the shared alpha,
+ * so a move that ties the best comes back exact and the tie goes to the earlier
+ * root move, as in the serial search. Together with MnkSearch's position-only
+ * move selection, a fixed-depth search returns the same move as MnkSearch
+ * whatever the worker count. With one worker it is plain MnkSearch.
+ *
+ * {@code java ParallelSearch [workers] [depth]} prints nodes/s and the speedup
+ * over one thread.
+ */
+public final class ParallelSearch {
+
+    private static final int INF = Integer.MAX_VALUE - 1;
+
+    private final int workers;
+    private final MnkSearch main;            // runs the root loop and the eldest brothers
+    private final MnkSearch[] helpers;       // one workspace per worker...
+    private final MnkBoard[] boards;
+    private final BlockingQueue<Integer> free; // ...handed out to tasks as they start
+    private final ForkJoinPool pool;
+
+    private long nodes;
+    private long cutoffs;
+    private int completedDepth;
+    private int lastScore;
+
+    public ParallelSearch(MnkRules rules, int workers) {
+        if (workers < 1) throw new IllegalArgumentException("workers must be >= 1: " + workers);
+        this.workers = workers;
+        main = new MnkSearch(rules);
+        helpers = new MnkSearch[workers];
+        boards = new MnkBoard[workers];
+        free = new ArrayBlockingQueue<>(workers);
+        for (int i = 0; i < workers; i++) {
+            helpers[i] = new MnkSearch(rules, main.table());
+            free.add(i);
+        }
+        pool = workers > 1 ? new ForkJoinPool(workers) : null;
+    }
+
+    // Worker count from -Dneon.ai.threads, default one per core
+    public static int defaultWorkers() {
+        return Math.max(1, Integer.getInteger("neon.ai.threads", Runtime.getRuntime().availableProcessors()));
+    }
+
+    public int workers() { return workers; }
+    public long nodes() { return nodes; }
+    public long cutoffs() { return cutoffs; }
+    public int completedDepth() { return completedDepth; }
+    public int lastScore() { return lastScore; }
+
+    public void shutdown() {
+        if (pool != null) pool.shutdownNow();
+    }
+
+    public int bestMove(MnkBoard board, long budgetMillis) {
+        return bestMove(board, budgetMillis, board.size() - board.stones());
+    }
+
+    public int bestMove(MnkBoard board, long budgetMillis, int maxDepth) {
+        return bestMove(board, budgetMillis, maxDepth, null);
+    }
+
+    // Setting cancel stops every worker; the best move of the deepest finished iteration comes back
+    public int bestMove(MnkBoard board, long budgetMillis, int maxDepth, AtomicBoolean cancel) {
+        if (pool == null) {
+            int mv = main.bestMove(board, budgetMillis, maxDepth, cancel);
+            nodes = main.nodes();
+            cutoffs = main.cutoffs();
+            completedDepth = main.completedDepth();
+            lastScore = main.lastScore();
+            return mv;
+        }
+
+        long deadline = budgetMillis > 0 ? System.nanoTime() + budgetMillis * 1_000_000L : Long.MAX_VALUE;
+        AtomicBoolean stop = new AtomicBoolean();
+        main.table().newSearch();
+        main.start(deadline, stop, cancel);
+        for (int i = 0; i < workers; i++) {
+            helpers[i].start(deadline, stop, cancel);
+            boards[i] = board.copy();
+        }
+        nodes = 0;
+        cutoffs = 0;
+        completedDepth = 0;
+        lastScore = 0;
+
+        if (board.winner() != GameState.EMPTY || board.isFull()) return -1;
+        int[] moves = new int[board.size()];
+        int n = main.rootMoves(board, moves);
+        if (n == 0) return -1;
+        int best = moves[0];
+        if (n == 1) return best;
+
+        int[] values = new int[n];
+        boolean[] exact = new boolean[n];
+        java.util.Arrays.fill(values, Integer.MIN_VALUE);
+        for (int depth = 1; depth <= maxDepth && !stop.get(); depth++) {
+            // eldest brother alone
+            int v0 = main.searchRootMove(board, moves[0], depth, -INF, INF);
+            if (main.stopped()) break;
+            AtomicInteger alpha = new AtomicInteger(v0);
+            values[0] = v0;
+            exact[0] = true;
+
+            // younger brothers in parallel
+            final int d = depth;
+            List<Future<?>> jobs = new ArrayList<>(n - 1);
+            for (int m = 1; m < n; m++) {
+                final int idx = m, mv = moves[m];
+                jobs.add(pool.submit(() -> {
+                    Integer w = free.poll();   // never empty: at most `workers` tasks run at once
+                    try {
+                        MnkSearch s = helpers[w];
+                        int lo = alpha.get() - 1;
+                        int v = s.searchRootMove(boards[w], mv, d, lo, INF);
+                        if (s.stopped()) return;
+                        values[idx] = v;
+                        exact[idx] = v > lo;
+                        if (exact[idx]) alpha.accumulateAndGet(v, Math::max);
+                    } finally {
+                        free.add(w);
+                    }
+                }));
+            }
+            boolean complete = true;
+            for (Future<?> f : jobs) {
+                try {
+                    f.get();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    stop.set(true);
+                } catch (ExecutionException ex) {
+                    throw new IllegalStateException("search worker failed", ex.getCause());
+                }
+            }
+            if (stop.get()) complete = false;
+
+            // best exact value, earliest root move on ties; unfinished moves are never
+            // exact, so a partial iteration only weighs the ones that completed
+            int iterBest = 0;
+            for (int m = 1; m < n; m++) {
+                if (exact[m] && values[m] > values[iterBest]) iterBest = m;
+            }
+            best = moves[iterBest];
+            lastScore = values[iterBest];
+            System.arraycopy(moves, 0, moves, 1, iterBest);
+            moves[0] = best;
+            java.util.Arrays.fill(values, Integer.MIN_VALUE);
+            java.util.Arrays.fill(exact, false);
+            if (!complete) break;
+            completedDepth = depth;
+            if (Math.abs(lastScore) >= MnkSearch.MATE_BOUND) break;
+        }
+
+        nodes = main.nodes();
+        cutoffs = main.cutoffs();
+        for (MnkSearch s : helpers) {
+            nodes += s.nodes();
+            cutoffs += s.cutoffs();
+        }
+        return best;
+    }
+
+    // ---- benchmark ----
+
+    public static void main(String[] args) {
+        int workers = args.length > 0 ? Integer.parseInt(args[0]) : defaultWorkers();
+        int depth = args.length > 1 ? Integer.parseInt(args[1]) : 6;
+        System.out.printf("ParallelSearch: %d workers vs 1, fixed depth %d, %d cores%n",
+                workers, depth, Runtime.getRuntime().availableProcessors());
+        System.out.println("variant             pos  move1 moveN  nodes/s(1)  nodes/s(N)  speedup");
+        for (MnkRules rules : new MnkRules[]{MnkRules.FOUR, MnkRules.FIVE, MnkRules.GOMOKU}) {
+            ParallelSearch serial = new ParallelSearch(rules, 1);
+            ParallelSearch par = new ParallelSearch(rules, workers);
+            Random rnd = new Random(42);
+            for (int pos = 0; pos < 3; pos++) {
+                MnkBoard b = randomPosition(rules, rnd, 4 + 2 * pos);
+                int d = Math.min(depth, b.size() - b.stones());
+                serial.bestMove(b.copy(), 0, d);             // warm-up
+                long t0 = System.nanoTime();
+                int m1 = serial.bestMove(b.copy(), 0, d);
+                long t1 = System.nanoTime();
+                long n1 = serial.nodes();
+                par.bestMove(b.copy(), 0, d);
+                long t2 = System.nanoTime();
+                int mN = par.bestMove(b.copy(), 0, d);
+                long t3 = System.nanoTime();
+                long nN = par.nodes();
+                System.out.printf("%-18s %4d  %5d %5d  %10.0f  %10.0f  %6.2fx%s%n",
+                        rules.name, pos, m1, mN, n1 / ((t1 - t0) / 1e9), nN / ((t3 - t2) / 1e9),
+                        (double) (t1 - t0) / (t3 - t2), m1 == mN ? "" : "  MOVE MISMATCH");
+            }
+            serial.shutdown();
+            par.shutdown();
+        }
+    }
+
+    // Random non-terminal position with the given number of stones, played near the centre
+    static MnkBoard randomPosition(MnkRules rules, Random rnd, int stones) {
+        MnkBoard b = new MnkBoard(rules);
+        int span = Math.min(rules.rows, 7), r0 = (rules.rows - span) / 2, c0 = (rules.cols - Math.min(rules.cols, 7)) / 2;
+        while (b.stones() < stones) {
+            int i = (r0 + rnd.nextInt(span)) * rules.cols + c0 + rnd.nextInt(Math.min(rules.cols, 7));
+            if (!b.isEmpty(i)) continue;
+            b.play(i, b.toMove());
+            if (b.winner() != GameState.EMPTY || b.threats(b.toMove()) > 0) b.undo(i, GameState.opponent(b.toMove()));
+        }
+        return b;
+    }
+}
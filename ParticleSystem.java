@@ -0,0 +1,233 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ParticleSystem.java
+ * Pooled struct-of-arrays particles for the win bursts.
+ *
+ * Live particles sit in parallel float arrays (x, y, vx, vy, life) sized once
+ * up front; a dead particle is swap-removed with the last live one. The
+ * simulation runs on its own thread and hands finished frames (positions plus
+ * a colour/alpha index) to the painter through a lock-free triple buffer, so
+ * neither side waits for the other and nothing is allocated per particle or
+ * per frame. Each palette colour is baked once into a dot sprite per alpha
+ * level, so painting is one small blit per particle.
+ */
+public final class ParticleSystem {
+
+    public static final int SIZE = 6;              // dot diameter in pixels
+    private static final int LIFE = 80;            // steps a particle lives
+    private static final int LEVELS = 32;          // baked alpha levels per colour
+    private static final long STEP_MS = 33;
+    private static final int FRESH = 4;            // flag bit on the shared triple-buffer index
+
+    // Simulation state, owned by the sim thread
+    private final int capacity;
+    private final float[] x, y, vx, vy, life;
+    private final byte[] colour;
+    private int count;
+    private final SplittableRandom rnd = new SplittableRandom();
+
+    // Frames: the sim fills back, publishes it as the middle buffer, the EDT takes it as front
+    private final Frame[] frames = new Frame[3];
+    private final AtomicInteger middle = new AtomicInteger(1);
+    private int back = 0;     // sim thread
+    private int front = 2;    // EDT
+    private final Rectangle lastBounds = new Rectangle();
+    private final Rectangle dirty = new Rectangle();
+
+    private final BufferedImage[][] dots;          // [palette][alpha level]
+    private final ConcurrentLinkedQueue<float[]> bursts = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean clearRequested = new AtomicBoolean();
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final ScheduledExecutorService clock = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "neon-fx");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Metrics
+    private final LatencyHistogram stepTimes = new LatencyHistogram();
+    private final LatencyHistogram paintTimes = new LatencyHistogram();
+    private volatile int live, peak;
+
+    public ParticleSystem(int capacity, Color... palette) {
+        this.capacity = capacity;
+        x = new float[capacity];
+        y = new float[capacity];
+        vx = new float[capacity];
+        vy = new float[capacity];
+        life = new float[capacity];
+        colour = new byte[capacity];
+        for (int i = 0; i < frames.length; i++) frames[i] = new Frame(capacity);
+        dots = new BufferedImage[palette.length][LEVELS];
+        for (int p = 0; p < palette.length; p++) {
+            for (int l = 0; l < LEVELS; l++) {
+                Color c = palette[p];
+                BufferedImage dot = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_ARGB_PRE);
+                Graphics2D g2 = dot.createGraphics();
+                g2.setColor(new Color(c.getRed(), c.getGreen(), c.getBlue(), l * 255 / (LEVELS - 1)));
+                g2.fillOval(0, 0, SIZE, SIZE);
+                g2.dispose();
+                dots[p][l] = dot;
+            }
+        }
+    }
+
+    // Queue n particles flying out of (cx, cy) in palette colour p; any thread
+    public void burst(float cx, float cy, int n, int p) {
+        bursts.add(new float[] {cx, cy, n, p});
+        wake();
+    }
+
+    public void clear() {
+        clearRequested.set(true);
+        wake();
+    }
+
+    public void shutdown() {
+        clock.shutdownNow();
+    }
+
+    // Start the sim clock if it is parked
+    private void wake() {
+        if (running.compareAndSet(false, true)) clock.execute(this::tick);
+    }
+
+    private void tick() {
+        long t0 = System.nanoTime();
+        if (clearRequested.getAndSet(false)) count = 0;
+        for (float[] b; (b = bursts.poll()) != null; ) spawn(b[0], b[1], (int) b[2], (int) b[3]);
+        step();
+        publish();
+        stepTimes.record(System.nanoTime() - t0);
+        if (count > 0) {
+            clock.schedule(this::tick, STEP_MS, TimeUnit.MILLISECONDS);
+        } else {
+            // park; a burst that slipped in after the poll restarts the clock itself
+            running.set(false);
+            if (!bursts.isEmpty() || clearRequested.get()) wake();
+        }
+    }
+
+    private void spawn(float cx, float cy, int n, int p) {
+        n = Math.min(n, capacity - count);
+        for (int i = 0; i < n; i++, count++) {
+            double rad = rnd.nextDouble() * 2 * Math.PI;
+            double speed = 2 + rnd.nextDouble() * 6;
+            x[count] = cx;
+            y[count] = cy;
+            vx[count] = (float) (Math.cos(rad) * speed);
+            vy[count] = (float) (Math.sin(rad) * speed);
+            life[count] = LIFE;
+            colour[count] = (byte) p;
+        }
+        if (count > peak) peak = count;
+    }
+
+    private void step() {
+        int n = count;
+        for (int i = 0; i < n; ) {
+            float l = life[i] - 1;
+            if (l <= 0) {
+                // swap-remove: the last live particle takes this slot and is stepped next
+                n--;
+                x[i] = x[n]; y[i] = y[n]; vx[i] = vx[n]; vy[i] = vy[n]; life[i] = life[n]; colour[i] = colour[n];
+                continue;
+            }
+            life[i] = l;
+            x[i] += vx[i];
+            y[i] += vy[i];
+            vx[i] *= 0.98f;
+            vy[i] *= 0.98f;
+            i++;
+        }
+        count = n;
+        live = n;
+    }
+
+    private void publish() {
+        Frame f = frames[back];
+        int n = count;
+        float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE, maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            float px = x[i], py = y[i];
+            f.x[i] = px;
+            f.y[i] = py;
+            f.style[i] = (short) (colour[i] * LEVELS + (int) (life[i] * (LEVELS - 1) / LIFE));
+            if (px < minX) minX = px;
+            if (px > maxX) maxX = px;
+            if (py < minY) minY = py;
+            if (py > maxY) maxY = py;
+        }
+        f.count = n;
+        if (n > 0) f.bounds.setBounds((int) minX - 1, (int) minY - 1, (int) (maxX - minX) + SIZE + 3, (int) (maxY - minY) + SIZE + 3);
+        else f.bounds.setBounds(0, 0, 0, 0);
+        back = middle.getAndSet(back | FRESH) & 3;
+    }
+
+    // EDT: adopt the newest finished frame. Returns the area to repaint (old and
+    // new particle bounds; reused between calls) or null if nothing new was published.
+    public Rectangle advance() {
+        if ((middle.get() & FRESH) == 0) return null;
+        dirty.setBounds(lastBounds);
+        front = middle.getAndSet(front) & 3;
+        Frame f = frames[front];
+        if (!f.bounds.isEmpty()) {
+            if (dirty.isEmpty()) dirty.setBounds(f.bounds);
+            else dirty.add(f.bounds);
+        }
+        lastBounds.setBounds(f.bounds);
+        return dirty;
+    }
+
+    // EDT: true while there is something on screen or still to simulate
+    public boolean isActive() {
+        return running.get() || frames[front].count > 0 || (middle.get() & FRESH) != 0;
+    }
+
+    // EDT: draw the current front frame
+    public void paint(Graphics g) {
+        long t0 = System.nanoTime();
+        Frame f = frames[front];
+        Rectangle clip = g.getClipBounds();
+        for (int i = 0; i < f.count; i++) {
+            int px = (int) f.x[i], py = (int) f.y[i];
+            if (clip != null && (px + SIZE < clip.x || py + SIZE < clip.y
+                    || px > clip.x + clip.width || py > clip.y + clip.height)) continue;
+            int s = f.style[i];
+            g.drawImage(dots[s / LEVELS][s % LEVELS], px, py, null);
+        }
+        if (f.count > 0) paintTimes.record(System.nanoTime() - t0);
+    }
+
+    public int liveParticles() { return live; }
+    public int peakParticles() { return peak; }
+    public LatencyHistogram stepTimes() { return stepTimes; }
+    public LatencyHistogram paintTimes() { return paintTimes; }
+
+    public String stats() {
+        return "particles live=" + live + " peak=" + peak + " | step " + stepTimes.summary() + " | paint " + paintTimes.summary();
+    }
+
+    // One published snapshot: positions and colour/alpha index per particle
+    private static final class Frame {
+        final float[] x, y;
+        final short[] style;
+        final Rectangle bounds = new Rectangle();
+        int count;
+
+        Frame(int capacity) {
+            x = new float[capacity];
+            y = new float[capacity];
+            style = new short[capacity];
+        }
+    }
+}
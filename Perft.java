@@ -0,0 +1,526 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Perft.java
+ * Game-tree counts and a differential check of every search backend.
+ *
+ * <pre>
+ * java Perft [variant] [depth] [threads]             leaf nodes and results per ply
+ * java Perft verify [variant] [threads] [positions]  every backend vs a reference solve
+ * </pre>
+ *
+ * Perft walks every move sequence to the given depth (finished games are not
+ * expanded) and counts the positions and the X wins / O wins / draws at each
+ * ply. On 3x3 it runs on both BitBoard and MnkBoard and checks the known totals
+ * (255,168 games: 131,184 / 77,904 / 46,080), so any change to move generation or
+ * win detection that alters the tree shows up at once.
+ *
+ * Verify solves every reachable position with a deliberately naive memoised
+ * negamax (its own win check, no pruning) and asks each backend for the value
+ * and move of each unfinished position: legacy char[] minimax, bitboard
+ * alpha-beta with and without a table, the tablebase, MnkSearch and
+ * ParallelSearch on 3x3; the m,n,k searches on boards up to 16 cells. A move
+ * is correct if it keeps the game value. positions (0 = all) checks a seeded
+ * random sample instead, which keeps 4x4 to seconds.
+ *
+ * Both modes split the work across threads at the top of the tree.
+ */
+public final class Perft {
+
+    // 3x3 per ply: positions reached, then X wins, O wins and draws among them
+    private static final long[][] CLASSIC = {
+            {1, 9, 72, 504, 3024, 15120, 54720, 148176, 200448, 127872},
+            {0, 0, 0, 0, 0, 1440, 0, 47952, 0, 81792},
+            {0, 0, 0, 0, 0, 0, 5328, 0, 72576, 0},
+            {0, 0, 0, 0, 0, 0, 0, 0, 0, 46080},
+    };
+
+    private Perft() {}
+
+    /** Counts per ply: index 0 is the start position. */
+    public static final class Counts {
+        public final long[] nodes, xWins, oWins, draws;
+
+        Counts(int depth) {
+            nodes = new long[depth + 1];
+            xWins = new long[depth + 1];
+            oWins = new long[depth + 1];
+            draws = new long[depth + 1];
+        }
+
+        void add(Counts c) {
+            for (int i = 0; i < nodes.length; i++) {
+                nodes[i] += c.nodes[i];
+                xWins[i] += c.xWins[i];
+                oWins[i] += c.oWins[i];
+                draws[i] += c.draws[i];
+            }
+        }
+
+        public long total() {
+            long n = 0;
+            for (long v : nodes) n += v;
+            return n;
+        }
+
+        boolean sameAs(Counts c) {
+            return java.util.Arrays.equals(nodes, c.nodes) && java.util.Arrays.equals(xWins, c.xWins)
+                    && java.util.Arrays.equals(oWins, c.oWins) && java.util.Arrays.equals(draws, c.draws);
+        }
+    }
+
+    // ---- perft ----
+
+    // Count the tree below the empty board of this variant. The board implementation
+    // comes from newBoard, so the same walk can be run on BitBoard and MnkBoard;
+    // moves are the board's legal ones, so UltimateBoard walks its own rules.
+    public static Counts perft(java.util.function.Supplier<GameState> newBoard, int depth, int threads)
+            throws InterruptedException {
+        GameState root = newBoard.get();
+        depth = Math.min(depth, root.size());
+        Counts total = new Counts(depth);
+        total.nodes[0] = 1;
+        // expand the first plies here until there are enough subtrees to spread
+        int split = 0;
+        for (long n = 1; split < depth && n < threads * 32L; split++) n *= root.size() - split;
+        List<int[]> prefixes = new ArrayList<>();
+        prefixes(root, new int[split], 0, split, depth, total, prefixes);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Counts>> parts = new ArrayList<>();
+            AtomicInteger next = new AtomicInteger();
+            for (int t = 0; t < threads; t++) {
+                final int d = depth, s = split;
+                parts.add(pool.submit(() -> {
+                    Counts c = new Counts(d);
+                    GameState b = newBoard.get();
+                    for (int i; (i = next.getAndIncrement()) < prefixes.size(); ) {
+                        int[] moves = prefixes.get(i);
+                        for (int m : moves) b.play(m, b.toMove());
+                        walk(b, s, d, c);
+                        b.clear();
+                    }
+                    return c;
+                }));
+            }
+            for (Future<Counts> f : parts) total.add(f.get());
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("perft worker failed", ex.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return total;
+    }
+
+    // Count plies 1..split here and collect the unfinished positions at split
+    private static void prefixes(GameState b, int[] path, int ply, int split, int depth, Counts c, List<int[]> out) {
+        if (ply == split) {
+            if (ply < depth) out.add(path.clone());
+            return;
+        }
+        int side = b.toMove();
+        for (int i = 0; i < b.size(); i++) {
+            if (!b.isLegal(i)) continue;
+            b.play(i, side);
+            path[ply] = i;
+            if (!count(b, ply + 1, c)) prefixes(b, path, ply + 1, split, depth, c, out);
+            b.undo(i, side);
+        }
+    }
+
+    private static void walk(GameState b, int ply, int depth, Counts c) {
+        int side = b.toMove();
+        for (int i = 0, n = b.size(); i < n; i++) {
+            if (!b.isLegal(i)) continue;
+            b.play(i, side);
+            if (!count(b, ply + 1, c) && ply + 1 < depth) walk(b, ply + 1, depth, c);
+            b.undo(i, side);
+        }
+    }
+
+    // Tally the position just reached; true if the game is over
+    private static boolean count(GameState b, int ply, Counts c) {
+        c.nodes[ply]++;
+        int w = b.winner();
+        if (w == GameState.X) c.xWins[ply]++;
+        else if (w == GameState.O) c.oWins[ply]++;
+        else if (b.isFull()) c.draws[ply]++;
+        else return false;
+        return true;
+    }
+
+    // ---- reference solver ----
+
+    /**
+     * Memoised negamax over base-3 board codes (X = 1, O = 2 per cell), using
+     * nothing but the rules' dimensions. value(code) is 1 / 0 / -1 for the side
+     * to move; positions lists every reachable unfinished code.
+     */
+    static final class Reference {
+        final int rows, cols, k, cells;
+        final int[] pow3;
+        final byte[] memo;                 // value + 2, 0 = not solved
+        int[] positions = new int[1024];
+        int count;
+
+        Reference(MnkRules rules) {
+            rows = rules.rows;
+            cols = rules.cols;
+            k = rules.k;
+            cells = rules.cells();
+            if (cells > 16) throw new IllegalArgumentException("reference solve needs 16 cells or fewer: " + rules.name);
+            pow3 = new int[cells + 1];
+            pow3[0] = 1;
+            for (int i = 1; i <= cells; i++) pow3[i] = pow3[i - 1] * 3;
+            memo = new byte[pow3[cells]];
+            solve(new int[cells], 0, GameState.X, 0);
+        }
+
+        int value(int code) {
+            return memo[code] - 2;
+        }
+
+        private int solve(int[] board, int code, int side, int stones) {
+            if (memo[code] != 0) return memo[code] - 2;
+            if (count == positions.length) positions = java.util.Arrays.copyOf(positions, count * 2);
+            positions[count++] = code;
+            int best = -1;
+            int other = GameState.opponent(side);
+            for (int i = 0; i < cells; i++) {   // no cutoff: every child gets solved
+                if (board[i] != GameState.EMPTY) continue;
+                board[i] = side;
+                int v;
+                if (wins(board, i)) v = 1;
+                else if (stones + 1 == cells) v = 0;
+                else v = -solve(board, code + side * pow3[i], other, stones + 1);
+                board[i] = GameState.EMPTY;
+                if (v > best) best = v;
+            }
+            memo[code] = (byte) (best + 2);
+            return best;
+        }
+
+        // Does the stone just placed at cell complete k in a row?
+        boolean wins(int[] board, int cell) {
+            int r = cell / cols, c = cell % cols, s = board[cell];
+            int[][] dirs = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+            for (int[] d : dirs) {
+                int run = 1;
+                for (int i = 1; run < k; i++, run++) {
+                    int rr = r + d[0] * i, cc = c + d[1] * i;
+                    if (rr < 0 || rr >= rows || cc < 0 || cc >= cols || board[rr * cols + cc] != s) break;
+                }
+                for (int i = 1; run < k; i++, run++) {
+                    int rr = r - d[0] * i, cc = c - d[1] * i;
+                    if (rr < 0 || rr >= rows || cc < 0 || cc >= cols || board[rr * cols + cc] != s) break;
+                }
+                if (run >= k) return true;
+            }
+            return false;
+        }
+
+        // Value for the side that plays cell from position code
+        int valueAfter(int code, int cell, int side) {
+            int[] board = decode(code);
+            board[cell] = side;
+            if (wins(board, cell)) return 1;
+            int child = code + side * pow3[cell];
+            int stones = 0;
+            for (int v : board) if (v != GameState.EMPTY) stones++;
+            return stones == cells ? 0 : -value(child);
+        }
+
+        int[] decode(int code) {
+            int[] board = new int[cells];
+            for (int i = 0; i < cells; i++, code /= 3) board[i] = code % 3;
+            return board;
+        }
+    }
+
+    // ---- differential verification ----
+
+    private static final String[] CLASSIC_BACKENDS = {
+            "LegacySearch.minimaxBoard", "BitBoard.minimax", "BitBoard.minimax+table", "BitBoard.bestMove+table",
+            "Tablebase", "MnkSearch", "ParallelSearch"};
+    private static final String[] MNK_BACKENDS = {"MnkSearch", "ParallelSearch"};
+
+    // Check a sample (0 = all) of reachable unfinished positions; returns the number of mismatches
+    public static long verify(MnkRules rules, int threads, int sample, java.io.PrintStream out)
+            throws InterruptedException, java.io.IOException {
+        long t0 = System.nanoTime();
+        Reference ref = new Reference(rules);
+        out.printf("Reference: %d reachable unfinished positions solved in %.1f ms, empty board is a %s%n",
+                ref.count, (System.nanoTime() - t0) / 1e6,
+                ref.value(0) > 0 ? "first-player win" : ref.value(0) < 0 ? "second-player win" : "draw");
+
+        int[] todo = java.util.Arrays.copyOf(ref.positions, ref.count);
+        if (sample > 0 && sample < todo.length) {
+            SplittableRandom rnd = new SplittableRandom(7);
+            for (int i = 0; i < sample; i++) {
+                int j = i + rnd.nextInt(todo.length - i);
+                int t = todo[i]; todo[i] = todo[j]; todo[j] = t;
+            }
+            todo = java.util.Arrays.copyOf(todo, sample);
+        }
+        boolean classic = rules == MnkRules.CLASSIC;
+        String[] names = classic ? CLASSIC_BACKENDS : MNK_BACKENDS;
+        Tablebase tb = classic ? Tablebase.openOrGenerate(Tablebase.defaultPath()) : null;
+        LongAdder[] nanos = new LongAdder[names.length];
+        AtomicLong[] wrong = new AtomicLong[names.length];
+        for (int i = 0; i < names.length; i++) {
+            nanos[i] = new LongAdder();
+            wrong[i] = new AtomicLong();
+        }
+        List<String> examples = Collections.synchronizedList(new ArrayList<>());
+
+        final int[] positions = todo;
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long v0 = System.nanoTime();
+        try {
+            List<Future<?>> parts = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                parts.add(pool.submit(() -> {
+                    Verifier v = new Verifier(rules, ref, tb, nanos, wrong, examples, names);
+                    try {
+                        for (int i; (i = next.getAndAdd(64)) < positions.length; ) {
+                            for (int j = i, end = Math.min(positions.length, i + 64); j < end; j++) v.check(positions[j]);
+                        }
+                    } finally {
+                        v.shutdown();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> f : parts) f.get();
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("verify worker failed", ex.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        long mismatches = 0;
+        out.printf("Checked %d positions on %d threads in %.2f s%n", positions.length, threads, (System.nanoTime() - v0) / 1e9);
+        out.printf("  %-26s %10s %12s%n", "backend", "wrong", "us/position");
+        for (int i = 0; i < names.length; i++) {
+            mismatches += wrong[i].get();
+            out.printf("  %-26s %10d %12.2f%n", names[i], wrong[i].get(), nanos[i].sum() / 1e3 / positions.length);
+        }
+        for (String e : examples) out.println("  " + e);
+        out.println(mismatches == 0 ? "All backends agree" : mismatches + " MISMATCHES");
+        return mismatches;
+    }
+
+    // One thread's backends, each with its own tables
+    private static final class Verifier {
+        final MnkRules rules;
+        final Reference ref;
+        final Tablebase tb;
+        final LongAdder[] nanos;
+        final AtomicLong[] wrong;
+        final List<String> examples;
+        final String[] names;
+        final TranspositionTable table;
+        final MnkSearch search;
+        final ParallelSearch parallel;
+
+        Verifier(MnkRules rules, Reference ref, Tablebase tb, LongAdder[] nanos, AtomicLong[] wrong,
+                 List<String> examples, String[] names) {
+            this.rules = rules;
+            this.ref = ref;
+            this.tb = tb;
+            this.nanos = nanos;
+            this.wrong = wrong;
+            this.examples = examples;
+            this.names = names;
+            table = rules == MnkRules.CLASSIC ? new TranspositionTable(14) : null;
+            search = new MnkSearch(rules);
+            parallel = new ParallelSearch(rules, 2);
+        }
+
+        void shutdown() {
+            parallel.shutdown();
+        }
+
+        void check(int code) {
+            int[] cells = ref.decode(code);
+            int x = 0, o = 0, stones = 0;
+            for (int i = 0; i < cells.length; i++) {
+                if (cells[i] == GameState.X) x |= 1 << i;
+                if (cells[i] == GameState.O) o |= 1 << i;
+                if (cells[i] != GameState.EMPTY) stones++;
+            }
+            int side = (stones & 1) == 0 ? GameState.X : GameState.O;
+            int expected = ref.value(code);
+            MnkBoard board = board(cells);
+            int b = 0;
+            if (rules == MnkRules.CLASSIC) {
+                int me = side == GameState.X ? x : o, them = side == GameState.X ? o : x;
+                long t = System.nanoTime();
+                char[] chars = LegacySearch.toChars(bitBoard(cells));
+                int legacy = sign(LegacySearch.minimaxBoard(chars, 0, side == GameState.O));
+                record(b++, t, side == GameState.O ? legacy : -legacy, expected, -1, code);
+
+                t = System.nanoTime();
+                int ab = sign(BitBoard.minimax(me, them, 0, true, Integer.MIN_VALUE, Integer.MAX_VALUE));
+                record(b++, t, ab, expected, -1, code);
+
+                t = System.nanoTime();
+                int abt = sign(BitBoard.minimax(me, them, 0, true, Integer.MIN_VALUE, Integer.MAX_VALUE, table));
+                record(b++, t, abt, expected, -1, code);
+
+                t = System.nanoTime();
+                int mv = BitBoard.bestMove(me, them, table);
+                record(b++, t, expected, expected, mv, code);
+
+                t = System.nanoTime();
+                int tv = tb.value(x, o);
+                int tm = tb.bestMove(x, o);
+                int tval = tv == Tablebase.WIN ? 1 : tv == Tablebase.LOSS ? -1 : tv == Tablebase.DRAW ? 0 : 9;
+                record(b++, t, tval, expected, tm, code);
+            }
+            int remaining = cells.length - stones;
+            long t = System.nanoTime();
+            int mv = search.bestMove(board, 0, remaining);
+            record(b++, t, searched(search.lastScore(), search.completedDepth()), expected, mv, code);
+
+            t = System.nanoTime();
+            mv = parallel.bestMove(board, 0, remaining);
+            record(b, t, searched(parallel.lastScore(), parallel.completedDepth()), expected, mv, code);
+        }
+
+        // A search value, unless the root had a single move and nothing was searched
+        private static int searched(int score, int depth) {
+            return depth == 0 ? Integer.MIN_VALUE : sign(score);
+        }
+
+        private static int sign(int v) {
+            return Integer.signum(v);
+        }
+
+        // value may be MIN_VALUE (not reported); move may be -1 (value-only backend)
+        private void record(int backend, long started, int value, int expected, int move, int code) {
+            nanos[backend].add(System.nanoTime() - started);
+            int side = (Integer.bitCount(stonesMask(code)) & 1) == 0 ? GameState.X : GameState.O;
+            boolean ok = value == Integer.MIN_VALUE || value == expected;
+            String why = ok ? null : "value " + value;
+            if (ok && move >= 0) {
+                int[] cells = ref.decode(code);
+                ok = cells[move] == GameState.EMPTY && ref.valueAfter(code, move, side) == expected;
+                if (!ok) why = "move " + move + " worth " + (cells[move] == GameState.EMPTY ? ref.valueAfter(code, move, side) : "illegal");
+            }
+            if (ok) return;
+            wrong[backend].incrementAndGet();
+            if (examples.size() < 10) {
+                examples.add(String.format("%s on %s: %s, expected %d", names[backend], show(code), why, expected));
+            }
+        }
+
+        private int stonesMask(int code) {
+            int m = 0;
+            for (int i = 0; i < ref.cells; i++, code /= 3) if (code % 3 != 0) m |= 1 << i;
+            return m;
+        }
+
+        private String show(int code) {
+            StringBuilder sb = new StringBuilder();
+            int[] cells = ref.decode(code);
+            for (int i = 0; i < cells.length; i++) {
+                if (i > 0 && i % ref.cols == 0) sb.append('/');
+                sb.append(cells[i] == GameState.X ? 'X' : cells[i] == GameState.O ? 'O' : '.');
+            }
+            return sb.toString();
+        }
+
+        private MnkBoard board(int[] cells) {
+            MnkBoard b = new MnkBoard(rules);
+            replay(b, cells);
+            return b;
+        }
+
+        private static BitBoard bitBoard(int[] cells) {
+            BitBoard b = new BitBoard();
+            replay(b, cells);
+            return b;
+        }
+
+        // Play the X and O stones alternately so the side to move comes out right
+        private static void replay(GameState b, int[] cells) {
+            int xi = 0, oi = 0;
+            while (true) {
+                int want = b.toMove();
+                int i = want == GameState.X ? xi : oi;
+                while (i < cells.length && cells[i] != want) i++;
+                if (i == cells.length) return;
+                b.play(i, want);
+                if (want == GameState.X) xi = i + 1;
+                else oi = i + 1;
+            }
+        }
+    }
+
+    // ---- command line ----
+
+    public static void main(String[] args) throws Exception {
+        int threads = Runtime.getRuntime().availableProcessors();
+        if (args.length > 0 && args[0].equals("verify")) {
+            MnkRules rules = args.length > 1 ? MnkRules.forName(args[1]) : MnkRules.CLASSIC;
+            if (args.length > 2) threads = Integer.parseInt(args[2]);
+            int sample = args.length > 3 ? Integer.parseInt(args[3]) : rules == MnkRules.CLASSIC ? 0 : 5_000;
+            if (verify(rules, threads, sample, System.out) != 0) System.exit(1);
+            return;
+        }
+        MnkRules rules = args.length > 0 ? MnkRules.forName(args[0]) : MnkRules.CLASSIC;
+        int depth = args.length > 1 ? Integer.parseInt(args[1]) : rules == MnkRules.CLASSIC ? 9 : 6;
+        if (args.length > 2) threads = Integer.parseInt(args[2]);
+
+        long t0 = System.nanoTime();
+        java.util.function.Supplier<GameState> boards = rules.nested ? UltimateBoard::new : () -> new MnkBoard(rules);
+        Counts c = perft(boards, depth, threads);
+        double secs = (System.nanoTime() - t0) / 1e9;
+        System.out.printf("Perft %s to depth %d on %d threads (%s): %.3f s, %.0f nodes/s%n",
+                rules.name, depth, threads, rules.nested ? "UltimateBoard" : "MnkBoard", secs, c.total() / secs);
+        print(c);
+
+        boolean ok = true;
+        if (rules == MnkRules.CLASSIC) {
+            t0 = System.nanoTime();
+            Counts bb = perft(BitBoard::new, depth, threads);
+            secs = (System.nanoTime() - t0) / 1e9;
+            boolean same = bb.sameAs(c);
+            System.out.printf("BitBoard: %.3f s, %.0f nodes/s, %s MnkBoard%n", secs, bb.total() / secs,
+                    same ? "identical to" : "DIFFERENT from");
+            boolean known = true;
+            for (int p = 0; p < c.nodes.length; p++) {
+                known &= c.nodes[p] == CLASSIC[0][p] && c.xWins[p] == CLASSIC[1][p]
+                        && c.oWins[p] == CLASSIC[2][p] && c.draws[p] == CLASSIC[3][p];
+            }
+            System.out.println(known ? "Matches the known 3x3 counts" : "DOES NOT match the known 3x3 counts");
+            ok = same && known;
+        }
+        if (!ok) System.exit(1);
+    }
+
+    private static void print(Counts c) {
+        System.out.printf("%5s %16s %14s %14s %14s%n", "ply", "nodes", "xWins", "oWins", "draws");
+        long x = 0, o = 0, d = 0;
+        for (int p = 0; p < c.nodes.length; p++) {
+            System.out.printf("%5d %16d %14d %14d %14d%n", p, c.nodes[p], c.xWins[p], c.oWins[p], c.draws[p]);
+            x += c.xWins[p];
+            o += c.oWins[p];
+            d += c.draws[p];
+        }
+        System.out.printf("%5s %16d %14d %14d %14d%n", "total", c.total(), x, o, d);
+    }
+}
@@ -0,0 +1,41 @@
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Scoreboard.java
+ * X wins / O wins / draws tallies. Safe to update from many threads at once,
+ * so the UI and the batch runners share one implementation.
+ */
+public final class Scoreboard {
+
+    private final LongAdder xWins = new LongAdder();
+    private final LongAdder oWins = new LongAdder();
+    private final LongAdder draws = new LongAdder();
+
+    public void record(GameSession.Outcome outcome) {
+        switch (outcome) {
+            case X_WINS: xWins.increment(); break;
+            case O_WINS: oWins.increment(); break;
+            case DRAW: draws.increment(); break;
+            default: throw new IllegalArgumentException("game not finished: " + outcome);
+        }
+    }
+
+    public long xWins() { return xWins.sum(); }
+    public long oWins() { return oWins.sum(); }
+    public long draws() { return draws.sum(); }
+
+    public long games() {
+        return xWins() + oWins() + draws();
+    }
+
+    public void reset() {
+        xWins.reset();
+        oWins.reset();
+        draws.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("X: %d   O: %d   Draws: %d", xWins(), oWins(), draws());
+    }
+}
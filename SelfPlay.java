@@ -0,0 +1,206 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SelfPlay.java
+ * Headless batch runner: plays AI-vs-AI or AI-vs-random games on every core and
+ * streams the X / O / draw tallies and games per second while it runs.
+ *
+ * <pre>
+ * java SelfPlay [--games N] [--threads T] [--variant 3x3|4x4|5x5|15x15|ultimate]
+ *               [--mode ai|random] [--budget MS] [--depth PLIES]
+ *               [--strategy alphabeta|mcts[:easy|medium|hard|max]]
+ *               [--interval SECONDS] [--csv FILE] [--seed N] [--no-tablebase]
+ *               [--journal FILE]
+ * </pre>
+ *
+ * In random mode the random player takes X in even-numbered games and O in odd
+ * ones. Perfect 3x3 AI-vs-AI play is all draws, which makes it a quick
+ * regression check: any win means the engine broke. Large boards default to a
+ * fixed search depth so runs are repeatable and not bound by the budget.
+ * With --journal every game is appended to a {@link GameJournal}.
+ */
+public final class SelfPlay {
+
+    private static final int CLAIM = 64;   // games claimed per counter update
+
+    private final MnkRules rules;
+    private final long games;
+    private final int threads;
+    private final boolean vsRandom;
+    private final long budgetMs;
+    private final int depth;
+    private final String strategy;
+    private final long seed;
+    private final Tablebase tablebase;
+
+    private final Scoreboard score = new Scoreboard();
+    private final AtomicLong claimed = new AtomicLong();
+    private GameJournal journal;
+
+    SelfPlay(MnkRules rules, long games, int threads, boolean vsRandom, long budgetMs, int depth,
+             String strategy, long seed, Tablebase tablebase) {
+        this.rules = rules;
+        this.games = games;
+        this.threads = threads;
+        this.vsRandom = vsRandom;
+        this.budgetMs = budgetMs;
+        this.depth = depth;
+        this.strategy = strategy;
+        this.seed = seed;
+        this.tablebase = tablebase;
+    }
+
+    public Scoreboard score() { return score; }
+
+    public SelfPlay journal(GameJournal journal) {
+        this.journal = journal;
+        return this;
+    }
+
+    // Play all games; progress lines go to out (and csv, if given) every interval
+    public void run(PrintStream out, PrintStream csv, long intervalMs) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor();
+        long t0 = System.nanoTime();
+        long[] last = {t0, 0};
+        if (csv != null) csv.println("elapsed_s,games,x_wins,o_wins,draws,games_per_s,avg_games_per_s");
+        out.printf("%8s %12s %12s %12s %12s %12s %12s%n",
+                "elapsed", "games", "xWins", "oWins", "draws", "games/s", "avg/s");
+        Runnable report = () -> {
+            long now = System.nanoTime();
+            long done = score.games();
+            double rate = (done - last[1]) / ((now - last[0]) / 1e9);
+            double avg = done / ((now - t0) / 1e9);
+            last[0] = now;
+            last[1] = done;
+            out.printf("%7.1fs %12d %12d %12d %12d %12.0f %12.0f%n",
+                    (now - t0) / 1e9, done, score.xWins(), score.oWins(), score.draws(), rate, avg);
+            if (csv != null) {
+                csv.printf("%.3f,%d,%d,%d,%d,%.1f,%.1f%n",
+                        (now - t0) / 1e9, done, score.xWins(), score.oWins(), score.draws(), rate, avg);
+            }
+        };
+        reporter.scheduleAtFixedRate(report, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+
+        Future<?>[] workers = new Future<?>[threads];
+        for (int w = 0; w < threads; w++) {
+            long workerSeed = seed + w * 0x9E3779B97F4A7C15L;
+            workers[w] = pool.submit(() -> worker(workerSeed));
+        }
+        try {
+            for (Future<?> f : workers) f.get();
+        } catch (java.util.concurrent.ExecutionException ex) {
+            throw new IllegalStateException("self-play worker failed", ex.getCause());
+        } finally {
+            reporter.shutdownNow();
+            reporter.awaitTermination(1, TimeUnit.SECONDS);
+            pool.shutdownNow();
+        }
+        report.run();
+    }
+
+    private void worker(long workerSeed) {
+        SplittableRandom rnd = new SplittableRandom(workerSeed);
+        GameEngine engine = new GameEngine(rules, 1).tablebase(tablebase).depthLimit(depth)
+                .strategy(AiStrategy.forName(strategy, rules, 1));
+        GameSession session = new GameSession(rules);
+        int[] free = new int[rules.cells()];
+        int[] played = new int[rules.cells()];
+        try {
+            while (true) {
+                long first = claimed.getAndAdd(CLAIM);
+                if (first >= games) return;
+                long end = Math.min(games, first + CLAIM);
+                for (long g = first; g < end; g++) {
+                    session.reset();
+                    int randomSide = !vsRandom ? GameState.EMPTY : (g & 1) == 0 ? GameState.X : GameState.O;
+                    while (session.isActive()) {
+                        GameState b = session.board();
+                        int mv;
+                        if (session.current() == randomSide) {
+                            int n = b.legalMoves(free);
+                            mv = free[rnd.nextInt(n)];
+                        } else {
+                            mv = engine.bestMove(b, budgetMs);
+                        }
+                        played[session.moves()] = mv;
+                        session.play(mv);
+                    }
+                    score.record(session.outcome());
+                    if (journal != null) journal.appendGame(rules, played, session.moves(), session.outcome());
+                }
+            }
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        long games = 1_000_000;
+        int threads = Runtime.getRuntime().availableProcessors();
+        MnkRules rules = MnkRules.CLASSIC;
+        boolean vsRandom = false;
+        long budget = 50;
+        int depth = -1;
+        String strategy = "alphabeta";
+        long interval = 1000;
+        String csvFile = null;
+        long seed = 1;
+        boolean useTablebase = true;
+        String journalFile = null;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--games": games = Long.parseLong(args[++i]); break;
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                case "--variant": rules = MnkRules.forName(args[++i]); break;
+                case "--mode": vsRandom = mode(args[++i]); break;
+                case "--budget": budget = Long.parseLong(args[++i]); break;
+                case "--depth": depth = Integer.parseInt(args[++i]); break;
+                case "--strategy": strategy = args[++i]; break;
+                case "--interval": interval = (long) (Double.parseDouble(args[++i]) * 1000); break;
+                case "--csv": csvFile = args[++i]; break;
+                case "--seed": seed = Long.parseLong(args[++i]); break;
+                case "--no-tablebase": useTablebase = false; break;
+                case "--journal": journalFile = args[++i]; break;
+                default: throw new IllegalArgumentException("unknown option " + args[i]);
+            }
+        }
+        if (depth < 0) depth = rules == MnkRules.CLASSIC ? 0 : 3;
+
+        Tablebase tb = useTablebase && rules == MnkRules.CLASSIC ? Tablebase.openOrGenerate(Tablebase.defaultPath()) : null;
+        boolean alphaBeta = !strategy.startsWith("mcts");
+        System.out.printf("SelfPlay: %d %s games (%s), %d threads, %s%n", games, rules,
+                vsRandom ? "AI vs random" : "AI vs AI", threads,
+                !alphaBeta ? strategy + ", budget " + budget + " ms"
+                        : tb != null ? "tablebase" : depth > 0 ? "depth " + depth : "budget " + budget + " ms");
+
+        PrintStream csv = csvFile == null ? null : new PrintStream(csvFile, "UTF-8");
+        GameJournal journal = journalFile == null ? null : GameJournal.open(Paths.get(journalFile));
+        try {
+            new SelfPlay(rules, games, threads, vsRandom, budget, depth, strategy, seed, tb).journal(journal)
+                    .run(System.out, csv, interval);
+        } finally {
+            if (csv != null) csv.close();
+            if (journal != null) {
+                journal.close();
+                System.out.printf("Journaled %d games to %s%n", journal.games(), journalFile);
+            }
+        }
+    }
+
+    private static boolean mode(String name) {
+        if (name.equals("ai")) return false;
+        if (name.equals("random")) return true;
+        throw new IllegalArgumentException("unknown mode " + name + " (ai, random)");
+    }
+}
@@ -0,0 +1,166 @@
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SessionManager.java
+ * Hosts many concurrent matches: creation, joining, move validation and AI replies.
+ *
+ * Computer moves run on a bounded pool (fixed workers + fixed queue). A PVC move
+ * is only accepted if an AI slot is free; otherwise the caller gets "BUSY" and the
+ * board is untouched, so overload turns into client retries instead of an
+ * unbounded backlog. Each AI worker keeps its own engines; the tablebase is shared.
+ */
+public final class SessionManager {
+
+    private final Map<Long, Match> matches = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+    private final ThreadPoolExecutor aiPool;
+    private final Semaphore aiSlots;
+    private final long aiBudgetMs;
+    private final Tablebase tablebase;
+    private final ThreadLocal<GameEngine[]> engines;
+    private final LatencyHistogram moveLatency = new LatencyHistogram();
+    private final AtomicLong moves = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public SessionManager(int aiWorkers, int aiQueue, long aiBudgetMs, Tablebase tablebase) {
+        this.aiBudgetMs = aiBudgetMs;
+        this.tablebase = tablebase;
+        int slots = aiWorkers + Math.max(1, aiQueue);
+        // The queue holds every admitted task: a worker frees its slot a moment
+        // before it dequeues the next one, so a tighter queue could still reject
+        aiPool = new ThreadPoolExecutor(aiWorkers, aiWorkers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(slots), r -> {
+                    Thread t = new Thread(r, "neon-ai");
+                    t.setDaemon(true);
+                    return t;
+                });
+        aiSlots = new Semaphore(slots);
+        engines = ThreadLocal.withInitial(() -> new GameEngine[MnkRules.VARIANTS.length]);
+    }
+
+    public Match create(Match.Mode mode, MnkRules rules, Match.Player creator) {
+        Match m = new Match(ids.incrementAndGet(), mode, rules);
+        m.x = creator;
+        matches.put(m.id, m);
+        return m;
+    }
+
+    // Seat p as O in a waiting PVP match; returns null if there is no such seat
+    public Match join(long id, Match.Player p) {
+        Match m = matches.get(id);
+        if (m == null) return null;
+        synchronized (m) {
+            if (m.mode != Match.Mode.PVP || m.o != null || m.x == p || m.closed) return null;
+            m.o = p;
+        }
+        return m;
+    }
+
+    // Player left or disconnected: the match is over for everyone
+    public void leave(Match m, Match.Player p) {
+        synchronized (m) {
+            if (m.closed) return;
+            m.closed = true;
+            if (m.x != null && m.x != p) m.x.send("LEFT " + m.id);
+            if (m.o != null && m.o != p) m.o.send("LEFT " + m.id);
+        }
+        matches.remove(m.id);
+    }
+
+    // Apply p's move. Results go to the players as MOVED / END lines; the return
+    // value is null on success or the error line for p alone ("ERR ..." / "BUSY").
+    public String move(Match m, Match.Player p, int cell, long receivedNanos) {
+        boolean needAi;
+        GameState snapshot;
+        synchronized (m) {
+            if (m.closed) return "ERR match closed";
+            if (!m.isFull()) return "ERR waiting for opponent";
+            int side = m.sideOf(p);
+            if (side != m.session.current() || m.aiThinking) return "ERR not your turn";
+            if (!m.session.isLegal(cell)) return "ERR illegal move " + cell;
+            needAi = m.mode == Match.Mode.PVC;
+            if (needAi && !aiSlots.tryAcquire()) {
+                rejected.incrementAndGet();
+                return "BUSY";
+            }
+
+            GameSession.Outcome out = m.session.play(cell);
+            moves.incrementAndGet();
+            m.broadcast("MOVED " + GameSession.symbol(side) + " " + cell);
+            if (out != GameSession.Outcome.ONGOING) {
+                m.broadcast("END " + out);
+                if (needAi) aiSlots.release();
+                needAi = false;
+            }
+            if (!needAi) {
+                moveLatency.record(System.nanoTime() - receivedNanos);
+                return null;
+            }
+            m.aiThinking = true;
+            snapshot = m.session.board().copy();
+        }
+        aiPool.execute(() -> aiMove(m, snapshot, receivedNanos));
+        return null;
+    }
+
+    private void aiMove(Match m, GameState snapshot, long receivedNanos) {
+        try {
+            int mv;
+            try {
+                mv = engineFor(m.session.rules()).bestMove(snapshot, aiBudgetMs);
+            } catch (RuntimeException ex) {
+                System.err.println("AI move failed in match " + m.id + ", playing first free cell: " + ex);
+                mv = -1;
+            }
+            synchronized (m) {
+                m.aiThinking = false;
+                if (m.closed) return;
+                if (!m.session.isLegal(mv)) mv = firstFree(m.session);
+                GameSession.Outcome out = m.session.play(mv);
+                moves.incrementAndGet();
+                m.broadcast("MOVED O " + mv);
+                if (out != GameSession.Outcome.ONGOING) m.broadcast("END " + out);
+            }
+            moveLatency.record(System.nanoTime() - receivedNanos);
+        } finally {
+            synchronized (m) {
+                m.aiThinking = false;   // whatever went wrong, the match must not stay locked
+            }
+            aiSlots.release();
+        }
+    }
+
+    // The AI is only asked to move in an ongoing game, so there is always one
+    private static int firstFree(GameSession session) {
+        for (int i = 0; i < session.board().size(); i++) if (session.isLegal(i)) return i;
+        throw new IllegalStateException("no legal move in an ongoing game");
+    }
+
+    // AI threads only
+    private GameEngine engineFor(MnkRules rules) {
+        GameEngine[] mine = engines.get();
+        for (int i = 0; i < MnkRules.VARIANTS.length; i++) {
+            if (MnkRules.VARIANTS[i] == rules) {
+                if (mine[i] == null) mine[i] = new GameEngine(rules, 1).tablebase(tablebase);
+                return mine[i];
+            }
+        }
+        throw new IllegalArgumentException("unsupported variant " + rules);
+    }
+
+    public int activeMatches() { return matches.size(); }
+    public int aiQueueDepth() { return aiPool.getQueue().size(); }
+    public long moves() { return moves.get(); }
+    public long rejected() { return rejected.get(); }
+    public LatencyHistogram moveLatency() { return moveLatency; }
+
+    public void shutdown() {
+        aiPool.shutdownNow();
+    }
+}
@@ -0,0 +1,227 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SpectatorBench.java
+ * Stress harness for {@link LiveServer}: one game, thousands of spectators, broadcast latency per move.
+ *
+ * <pre>
+ * java SpectatorBench [--spectators N] [--variant 3x3|4x4|5x5|15x15|ultimate] [--games G]
+ *                     [--host H --port P]   (omit --port to start a server in-process)
+ * </pre>
+ *
+ * Two LiveClient players play random moves; every spectator is a non-blocking
+ * socket on one selector thread here. A move's broadcast latency is the time
+ * from the player sending MOVE to a spectator reading its MOVED frame; the next
+ * move goes out once every spectator has the last one, so each move is timed
+ * on an idle server. Reports the latency per spectator (p50 / p99 / max) and
+ * the time until the last spectator has each move.
+ */
+public final class SpectatorBench {
+
+    private final int spectators;
+    private final SocketChannel[] watchers;
+    private final ByteBuffer[] inbox;
+    private final long[] sentAt;
+    private final LatencyHistogram perSpectator = new LatencyHistogram();
+    private final LatencyHistogram lastSpectator = new LatencyHistogram();
+    private volatile CountDownLatch moveSeen;
+    private volatile CountDownLatch snapshotsSeen;
+
+    SpectatorBench(int spectators, int maxMoves) {
+        this.spectators = spectators;
+        watchers = new SocketChannel[spectators];
+        inbox = new ByteBuffer[spectators];
+        sentAt = new long[maxMoves];
+    }
+
+    void run(String host, int port, MnkRules rules, int games, long seed) throws Exception {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        Selector selector = Selector.open();
+        Thread reader = new Thread(() -> readLoop(selector), "bench-spectators");
+        reader.setDaemon(true);
+
+        Seat x = new Seat(), o = new Seat();
+        int[] free = new int[rules.cells()];
+        long moves = 0;
+        for (int g = 0; g < games; g++) {
+            LiveClient px = LiveClient.connect(host, port, x.reset());
+            px.create(rules);
+            int id = x.awaitWelcome();
+            LiveClient po = LiveClient.connect(host, port, o.reset());
+            po.join(id, GameState.O);
+            o.awaitWelcome();
+
+            snapshotsSeen = new CountDownLatch(spectators);
+            ByteBuffer watch = ByteBuffer.allocate(5);
+            long t0 = System.nanoTime();
+            for (int s = 0; s < spectators; s++) {
+                if (g > 0) watchers[s].close();
+                SocketChannel ch = SocketChannel.open(new InetSocketAddress(host, port));
+                ch.socket().setTcpNoDelay(true);
+                watch.clear();
+                watch.put(LiveServer.WATCH).putInt(id).flip();
+                while (watch.hasRemaining()) ch.write(watch);
+                ch.configureBlocking(false);
+                watchers[s] = ch;
+                if (inbox[s] == null) inbox[s] = ByteBuffer.allocate(1024);
+                else inbox[s].clear();
+            }
+            if (g == 0) {
+                for (int s = 0; s < spectators; s++) watchers[s].register(selector, SelectionKey.OP_READ, s);
+                reader.start();
+            } else {
+                registerAll(selector);
+            }
+            if (!snapshotsSeen.await(60, TimeUnit.SECONDS)) throw new IllegalStateException("spectators not attached");
+            System.out.printf("game %d: %d spectators attached in %.0f ms%n", id, spectators, (System.nanoTime() - t0) / 1e6);
+
+            GameSession mirror = new GameSession(rules);
+            while (mirror.isActive()) {
+                int seq = mirror.moves();
+                int mv = free[rnd.nextInt(mirror.board().legalMoves(free))];
+                moveSeen = new CountDownLatch(spectators);
+                sentAt[seq] = System.nanoTime();
+                (mirror.current() == GameState.X ? px : po).move(mv);
+                if (!moveSeen.await(30, TimeUnit.SECONDS)) throw new IllegalStateException("move " + seq + " not seen by every spectator");
+                lastSpectator.record(System.nanoTime() - sentAt[seq]);
+                mirror.play(mv);
+                moves++;
+            }
+            px.close();
+            po.close();
+        }
+        System.out.printf("%d moves to %d spectators each (%d deliveries)%n", moves, spectators, moves * spectators);
+        System.out.printf("per spectator:   p50 %7.3f ms  p99 %7.3f ms  max %7.3f ms%n",
+                perSpectator.percentile(50) / 1e6, perSpectator.percentile(99) / 1e6, perSpectator.percentile(100) / 1e6);
+        System.out.printf("last spectator:  p50 %7.3f ms  p99 %7.3f ms  max %7.3f ms%n",
+                lastSpectator.percentile(50) / 1e6, lastSpectator.percentile(99) / 1e6, lastSpectator.percentile(100) / 1e6);
+        for (SocketChannel ch : watchers) ch.close();
+        selector.close();
+    }
+
+    // Later games' channels are registered by the reader thread between two selects
+    private volatile boolean reRegister;
+
+    private void registerAll(Selector selector) {
+        reRegister = true;
+        selector.wakeup();
+    }
+
+    private void readLoop(Selector selector) {
+        try {
+            while (selector.isOpen()) {
+                selector.select();
+                if (reRegister) {
+                    reRegister = false;
+                    for (int s = 0; s < spectators; s++) watchers[s].register(selector, SelectionKey.OP_READ, s);
+                }
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey k = it.next();
+                    it.remove();
+                    if (!k.isValid() || !k.isReadable()) continue;
+                    try {
+                        drain((Integer) k.attachment(), (SocketChannel) k.channel());
+                    } catch (IOException ex) {
+                        k.cancel();   // a spectator of the last game, closed under us
+                    }
+                }
+            }
+        } catch (IOException | java.nio.channels.ClosedSelectorException ex) {
+            // bench finished
+        }
+    }
+
+    // Parse whatever arrived: WELCOME and SNAPSHOT once, then 4-byte MOVED frames
+    private void drain(int s, SocketChannel ch) throws IOException {
+        ByteBuffer b = inbox[s];
+        if (ch.read(b) < 0) return;
+        long now = System.nanoTime();
+        b.flip();
+        while (b.hasRemaining()) {
+            byte type = b.get(b.position());
+            if (type == LiveServer.WELCOME) {
+                if (b.remaining() < LiveServer.WELCOME_BYTES) break;
+                b.position(b.position() + LiveServer.WELCOME_BYTES);
+            } else if (type == LiveServer.SNAPSHOT) {
+                if (b.remaining() < 4) break;
+                int n = b.getShort(b.position() + 2) & 0xFFFF;
+                if (b.remaining() < 4 + n) break;
+                b.position(b.position() + 4 + n);
+                snapshotsSeen.countDown();
+            } else if (type == LiveServer.MOVED) {
+                if (b.remaining() < LiveServer.MOVED_BYTES) break;
+                int seq = b.getShort(b.position() + 1) & 0xFFFF;
+                b.position(b.position() + LiveServer.MOVED_BYTES);
+                perSpectator.record(now - sentAt[seq]);
+                moveSeen.countDown();
+            } else {
+                throw new IOException("unexpected frame " + type);
+            }
+        }
+        b.compact();
+    }
+
+    // A player's view: only the welcome matters, moves are driven from the bench's mirror
+    private static final class Seat implements LiveClient.Listener {
+        private volatile CountDownLatch welcomed;
+        private volatile int gameId;
+
+        Seat reset() {
+            welcomed = new CountDownLatch(1);
+            return this;
+        }
+
+        int awaitWelcome() throws InterruptedException {
+            if (!welcomed.await(10, TimeUnit.SECONDS)) throw new IllegalStateException("no WELCOME");
+            return gameId;
+        }
+
+        @Override public void welcome(int id, int side) { gameId = id; welcomed.countDown(); }
+        @Override public void snapshot(MnkRules rules, int[] moves) {}
+        @Override public void moved(int seq, int cell) {}
+        @Override public void rejected(int seq) { System.err.println("move " + seq + " rejected"); }
+        @Override public void error(int code) { System.err.println("server error " + code); }
+        @Override public void connectionLost(boolean reconnecting) {}
+    }
+
+    public static void main(String[] args) throws Exception {
+        int spectators = 2000;
+        MnkRules rules = MnkRules.GOMOKU;
+        int games = 1;
+        String host = "127.0.0.1";
+        int port = -1;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--spectators": spectators = Integer.parseInt(args[++i]); break;
+                case "--variant": rules = MnkRules.forName(args[++i]); break;
+                case "--games": games = Integer.parseInt(args[++i]); break;
+                case "--host": host = args[++i]; break;
+                case "--port": port = Integer.parseInt(args[++i]); break;
+                default: throw new IllegalArgumentException("unknown option " + args[i]);
+            }
+        }
+        LiveServer server = null;
+        if (port < 0) {
+            server = new LiveServer(0).start();
+            port = server.port();
+        }
+        System.out.printf("SpectatorBench: %d spectators, %s, %d game(s), %s:%d%n", spectators, rules, games, host, port);
+        new SpectatorBench(spectators, rules.cells()).run(host, port, rules, games, 7);
+        if (server != null) {
+            LatencyHistogram f = server.fanOutTimes();
+            System.out.printf("server fan-out:  p50 %7.3f ms  p99 %7.3f ms  (one move handed to every socket)%n",
+                    f.percentile(50) / 1e6, f.percentile(99) / 1e6);
+            server.close();
+        }
+    }
+}
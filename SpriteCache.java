@@ -0,0 +1,175 @@
+import javax.swing.border.Border;
+import javax.swing.border.LineBorder;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * SpriteCache.java
+ * Pre-rendered neon tiles (cell glow, X, O) keyed by size and colour.
+ *
+ * Tiles are created compatible with the screen, so Java2D keeps them in video
+ * memory and painting a cell becomes a couple of blits instead of a dozen
+ * antialiased strokes. A resize just asks for a new key; the least recently
+ * used tiles fall out once the cache is full. Tiles are rasterised at the
+ * device scale (see {@link #setDeviceScale}), so draw them at the requested
+ * w x h and they stay sharp on HiDPI screens. EDT only.
+ */
+public final class SpriteCache {
+
+    private static final int GLOW = 0, X = 1, O = 2;
+    private static final int MAX_TILES = 512;
+
+    private final Color backdrop;   // what shows through around the glow
+    private final Map<Long, BufferedImage> tiles = new LinkedHashMap<Long, BufferedImage>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, BufferedImage> eldest) {
+            return size() > MAX_TILES;
+        }
+    };
+    private final Map<Long, Border> borders = new HashMap<>();
+    private GraphicsConfiguration gc;
+    private float deviceScale = 1f;
+    private long hits, misses;
+
+    public SpriteCache(Color backdrop) {
+        this.backdrop = backdrop;
+    }
+
+    // Opaque w x h tile: backdrop plus the soft inner glow of a cell
+    public BufferedImage glow(int w, int h, Color c) {
+        long key = key(GLOW, w, h, c);
+        BufferedImage img = lookup(key);
+        if (img == null) {
+            img = create(w, h, Transparency.OPAQUE);
+            Graphics2D g2 = begin(img);
+            g2.setColor(backdrop);
+            g2.fillRect(0, 0, w, h);
+            for (int i=5;i>=1;i--) {
+                int a = 12 + (6-i)*18;
+                g2.setColor(new Color(c.getRed(), c.getGreen(), c.getBlue(), Math.min(200,a)));
+                g2.fillRoundRect(3-i, 3-i, w-6+(i*2), h-6+(i*2), 18, 18);
+            }
+            g2.dispose();
+            tiles.put(key, img);
+        }
+        return img;
+    }
+
+    // Translucent w x h tile with a glowing X centred in it
+    public BufferedImage x(int w, int h, Color c) {
+        long key = key(X, w, h, c);
+        BufferedImage img = lookup(key);
+        if (img == null) {
+            img = create(w, h, Transparency.TRANSLUCENT);
+            Graphics2D g2 = begin(img);
+            int pad = Math.min(w,h)/6;
+            float sc = strokeScale(w, h);
+            // glow layers
+            g2.setColor(new Color(c.getRed(), c.getGreen(), c.getBlue(), 30));
+            for (int glow = 16; glow >= 4; glow -= 3) {
+                g2.setStroke(new BasicStroke(glow * sc, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+                g2.drawLine(pad, pad, w-pad, h-pad);
+                g2.drawLine(w-pad, pad, pad, h-pad);
+            }
+            // main X
+            g2.setStroke(new BasicStroke(8f * sc, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+            g2.setColor(c);
+            g2.drawLine(pad, pad, w-pad, h-pad);
+            g2.drawLine(w-pad, pad, pad, h-pad);
+            g2.dispose();
+            tiles.put(key, img);
+        }
+        return img;
+    }
+
+    // Translucent w x h tile with a glowing O centred in it
+    public BufferedImage o(int w, int h, Color c) {
+        long key = key(O, w, h, c);
+        BufferedImage img = lookup(key);
+        if (img == null) {
+            img = create(w, h, Transparency.TRANSLUCENT);
+            Graphics2D g2 = begin(img);
+            int size = Math.min(w,h) - w/4;
+            int x = (w-size)/2;
+            int y = (h-size)/2;
+            float sc = strokeScale(w, h);
+            // glow rings
+            g2.setColor(new Color(c.getRed(), c.getGreen(), c.getBlue(), 24));
+            for (int glow=18; glow>=6; glow-=3) {
+                g2.setStroke(new BasicStroke(glow * sc, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+                g2.drawOval(x-(glow/4), y-(glow/4), size+(glow/2), size+(glow/2));
+            }
+            g2.setStroke(new BasicStroke(8f * sc, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+            g2.setColor(c);
+            g2.drawOval(x,y,size,size);
+            g2.dispose();
+            tiles.put(key, img);
+        }
+        return img;
+    }
+
+    // Shared rounded line borders, one per colour and thickness
+    public Border border(Color c, int thickness) {
+        long key = ((long) thickness << 32) | (c.getRGB() & 0xFFFFFFFFL);
+        Border b = borders.get(key);
+        if (b == null) {
+            b = new LineBorder(c, thickness, true);
+            borders.put(key, b);
+        }
+        return b;
+    }
+
+    public void clear() {
+        tiles.clear();
+    }
+
+    // Device pixels per user-space unit; a change drops every tile
+    public void setDeviceScale(float s) {
+        if (s <= 0 || s == deviceScale) return;
+        deviceScale = s;
+        tiles.clear();
+    }
+
+    public int size() { return tiles.size(); }
+    public long hits() { return hits; }
+    public long misses() { return misses; }
+
+    private BufferedImage lookup(long key) {
+        BufferedImage img = tiles.get(key);
+        if (img != null) hits++;
+        else misses++;
+        return img;
+    }
+
+    // kind(2) | w(15) | h(15) | rgb(24)
+    private static long key(int kind, int w, int h, Color c) {
+        return ((long) kind << 62) | ((long) (w & 0x7FFF) << 47) | ((long) (h & 0x7FFF) << 32)
+                | (c.getRGB() & 0xFFFFFFL);
+    }
+
+    // strokes keep their 3x3 thickness and shrink with smaller cells on big boards
+    private static float strokeScale(int w, int h) {
+        return Math.min(1f, Math.min(w, h) / 150f);
+    }
+
+    private BufferedImage create(int w, int h, int transparency) {
+        w = Math.max(1, (int) Math.ceil(w * deviceScale));
+        h = Math.max(1, (int) Math.ceil(h * deviceScale));
+        if (gc == null && !GraphicsEnvironment.isHeadless()) {
+            gc = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+        }
+        if (gc != null) return gc.createCompatibleImage(w, h, transparency);
+        return new BufferedImage(w, h, transparency == Transparency.OPAQUE
+                ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB_PRE);
+    }
+
+    private Graphics2D begin(BufferedImage img) {
+        Graphics2D g2 = img.createGraphics();
+        g2.scale(deviceScale, deviceScale);
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        return g2;
+    }
+}
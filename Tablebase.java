@@ -0,0 +1,218 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Tablebase.java
+ * Perfect-play table for every reachable 3x3 position, solved once and memory-mapped.
+ *
+ * File layout: 8-byte header ("NTTB", version, 0, 0, 0) followed by one byte per
+ * base-3 board code (3^9 = 19683 bytes). Only codes of canonical positions are
+ * filled: bits 4-5 hold the value for the side to move, bits 0-3 the best cell in
+ * the canonical frame (15 = none). Lookups map the live board onto its canonical
+ * form, read one byte and map the move back, so they cost O(1).
+ *
+ * Generate at build time with {@code java Tablebase [file]}, or let
+ * {@link #openOrGenerate(Path)} build it on first start.
+ */
+public final class Tablebase {
+
+    public static final int UNKNOWN = 0, LOSS = 1, DRAW = 2, WIN = 3;
+
+    static final int CODES = 19683; // 3^9
+    private static final int HEADER = 8;
+    private static final int VERSION = 1;
+    private static final int NO_MOVE = 15;
+
+    // TERNARY[mask] = sum of 3^i over the set bits, so code = T[x] + 2 * T[o]
+    private static final int[] TERNARY = new int[1 << BitBoard.CELLS];
+
+    static {
+        for (int m = 0; m <= BitBoard.FULL; m++) {
+            int code = 0, pow = 1;
+            for (int i = 0; i < BitBoard.CELLS; i++, pow *= 3) if ((m & (1 << i)) != 0) code += pow;
+            TERNARY[m] = code;
+        }
+    }
+
+    private final ByteBuffer data;
+
+    private Tablebase(ByteBuffer data) {
+        this.data = data;
+    }
+
+    // Default location; override with -Dneon.tablebase=<file>
+    public static Path defaultPath() {
+        return Paths.get(System.getProperty("neon.tablebase", tempPath().toString()));
+    }
+
+    private static Path tempPath() {
+        return Paths.get(System.getProperty("java.io.tmpdir"), "neon-tictactoe.tb");
+    }
+
+    public static Tablebase open(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (ch.size() != HEADER + CODES) throw new IOException("bad tablebase size: " + ch.size());
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            if (buf.get(0) != 'N' || buf.get(1) != 'T' || buf.get(2) != 'T' || buf.get(3) != 'B'
+                    || buf.get(4) != VERSION) throw new IOException("bad tablebase header: " + file);
+            return new Tablebase(buf);
+        }
+    }
+
+    // Map the file if it is valid, otherwise solve, write and then map it. Only an old or
+    // damaged tablebase (or whatever sits at the temp-dir default) is overwritten.
+    public static Tablebase openOrGenerate(Path file) throws IOException {
+        if (Files.exists(file)) {
+            try {
+                return open(file);
+            } catch (IOException stale) {
+                if (!hasMagic(file) && !file.toAbsolutePath().equals(tempPath().toAbsolutePath()))
+                    throw new IOException(file + " is not a tablebase (" + stale.getMessage() + "), not overwriting it", stale);
+            }
+        }
+        long t0 = System.nanoTime();
+        long size = generate(file);
+        System.out.printf("Tablebase: solved in %.1f ms, wrote %d bytes to %s%n",
+                (System.nanoTime() - t0) / 1e6, size, file);
+        return open(file);
+    }
+
+    private static boolean hasMagic(Path file) {
+        byte[] m = new byte[4];
+        try (InputStream in = Files.newInputStream(file)) {
+            return in.read(m) == 4 && m[0] == 'N' && m[1] == 'T' && m[2] == 'T' && m[3] == 'B';
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    // Value for the side to move (WIN / DRAW / LOSS), or UNKNOWN for unreachable boards
+    public int value(int x, int o) {
+        int sym = BitBoard.canonicalSymmetry(x, o);
+        return (entry(sym, x, o) >> 4) & 0x3;
+    }
+
+    // Perfect move for the side to move, or -1 if the game is over
+    public int bestMove(int x, int o) {
+        int sym = BitBoard.canonicalSymmetry(x, o);
+        int move = entry(sym, x, o) & 0xF;
+        return move == NO_MOVE ? -1 : BitBoard.inverseCell(sym, move);
+    }
+
+    private int entry(int sym, int x, int o) {
+        int code = TERNARY[BitBoard.transform(sym, x)] + 2 * TERNARY[BitBoard.transform(sym, o)];
+        return data.get(HEADER + code) & 0xFF;
+    }
+
+    // ---- generation ----
+
+    // Solve every reachable canonical position and write the table; returns the file size
+    public static long generate(Path file) throws IOException {
+        byte[] out = new byte[HEADER + CODES];
+        out[0] = 'N'; out[1] = 'T'; out[2] = 'T'; out[3] = 'B'; out[4] = VERSION;
+        byte[] table = solve();
+        System.arraycopy(table, 0, out, HEADER, CODES);
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(tmp, out);
+        Files.move(tmp, file, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+        return out.length;
+    }
+
+    // Retrograde solve: collect the reachable canonical positions, then score them in
+    // reverse ply order (full boards first, empty board last) so every child is known
+    // before its parent. Scores are negamax with distance: +10 - plies to a win,
+    // -(10 - plies) to a loss, 0 for a draw.
+    static byte[] solve() {
+        int[] score = new int[CODES];
+        int[][] layers = new int[BitBoard.CELLS + 1][CODES];
+        int[] layerSize = new int[BitBoard.CELLS + 1];
+        boolean[] seen = new boolean[CODES];
+
+        // forward pass: reachable canonical positions, bucketed by stone count
+        int[] stack = new int[CODES];
+        int sp = 0;
+        stack[sp++] = 0;
+        seen[0] = true;
+        while (sp > 0) {
+            int key = stack[--sp];
+            int x = key & BitBoard.FULL, o = key >>> BitBoard.CELLS;
+            int stones = Integer.bitCount(x | o);
+            layers[stones][layerSize[stones]++] = key;
+            if (BitBoard.isWin(x) || BitBoard.isWin(o)) continue;
+            boolean xToMove = Integer.bitCount(x) == Integer.bitCount(o);
+            for (int free = ~(x | o) & BitBoard.FULL; free != 0; free &= free - 1) {
+                int bit = free & -free;
+                int child = xToMove ? BitBoard.canonical(x | bit, o) : BitBoard.canonical(x, o | bit);
+                int code = code(child);
+                if (!seen[code]) {
+                    seen[code] = true;
+                    stack[sp++] = child;
+                }
+            }
+        }
+
+        // backward pass
+        byte[] table = new byte[CODES];
+        for (int stones = BitBoard.CELLS; stones >= 0; stones--) {
+            for (int n = 0; n < layerSize[stones]; n++) {
+                int key = layers[stones][n];
+                int x = key & BitBoard.FULL, o = key >>> BitBoard.CELLS;
+                int code = code(key);
+                if (BitBoard.isWin(x) || BitBoard.isWin(o)) {
+                    score[code] = -10; // previous player just completed a line
+                    table[code] = entryByte(LOSS, NO_MOVE);
+                    continue;
+                }
+                if ((x | o) == BitBoard.FULL) {
+                    score[code] = 0;
+                    table[code] = entryByte(DRAW, NO_MOVE);
+                    continue;
+                }
+                boolean xToMove = Integer.bitCount(x) == Integer.bitCount(o);
+                int best = Integer.MIN_VALUE, bestMove = NO_MOVE;
+                for (int free = ~(x | o) & BitBoard.FULL; free != 0; free &= free - 1) {
+                    int bit = free & -free;
+                    int child = xToMove ? BitBoard.canonical(x | bit, o) : BitBoard.canonical(x, o | bit);
+                    int s = -score[code(child)];
+                    s = s > 0 ? s - 1 : s < 0 ? s + 1 : 0;
+                    if (s > best) {
+                        best = s;
+                        bestMove = Integer.numberOfTrailingZeros(bit);
+                    }
+                }
+                score[code] = best;
+                table[code] = entryByte(best > 0 ? WIN : best < 0 ? LOSS : DRAW, bestMove);
+            }
+        }
+        return table;
+    }
+
+    private static int code(int key) {
+        return TERNARY[key & BitBoard.FULL] + 2 * TERNARY[key >>> BitBoard.CELLS];
+    }
+
+    private static byte entryByte(int value, int move) {
+        return (byte) (value << 4 | move);
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path file = args.length > 0 ? Paths.get(args[0]) : defaultPath();
+        long t0 = System.nanoTime();
+        long size = generate(file);
+        long t1 = System.nanoTime();
+        Tablebase tb = open(file);
+        int positions = 0;
+        for (int c = 0; c < CODES; c++) if (tb.data.get(HEADER + c) != 0) positions++;
+        System.out.printf("Solved %d canonical positions in %.2f ms%n", positions, (t1 - t0) / 1e6);
+        System.out.printf("Wrote %s (%d bytes)%n", file, size);
+        System.out.println("Empty board: " + (tb.value(0, 0) == DRAW ? "draw" : "decisive")
+                + ", best first move " + tb.bestMove(0, 0));
+    }
+}
@@ -0,0 +1,25 @@
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * TablebaseStrategy.java
+ * Perfect 3x3 play as a single lookup in the solved {@link Tablebase}.
+ */
+public final class TablebaseStrategy implements AiStrategy {
+
+    private final Tablebase tablebase;
+
+    public TablebaseStrategy(Tablebase tablebase) {
+        this.tablebase = tablebase;
+    }
+
+    @Override
+    public String name() { return "tablebase"; }
+
+    @Override
+    public int bestMove(GameState board, long budgetMillis, AtomicBoolean cancel) {
+        if (!(board instanceof BitBoard)) throw new IllegalArgumentException("the tablebase only covers 3x3");
+        if (board.winner() != GameState.EMPTY || board.isFull()) return -1;
+        BitBoard b = (BitBoard) board;
+        return tablebase.bestMove(b.xMask(), b.oMask());
+    }
+}
@@ -0,0 +1,387 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tournament.java
+ * Championship ladder between AI configurations (and a human) on one board variant, with live Elo ratings.
+ *
+ * <pre>
+ * java Tournament [--variant 3x3|4x4|5x5|15x15|ultimate] [--entrants SPEC,SPEC,...]
+ *                 [--pairing swiss|roundrobin] [--rounds N] [--games PER_PAIRING]
+ *                 [--threads T] [--budget MS] [--opening PLIES] [--seed N]
+ * </pre>
+ *
+ * An entrant is "random", "human" (never scheduled; its games are fed in
+ * with record()) or a strategy as in {@link AiStrategy#forName} with optional
+ * "/d&lt;plies&gt;" and "/&lt;ms&gt;ms" suffixes: "alphabeta/d4", "mcts:easy",
+ * "mcts/100ms". Each pairing plays its games in colour-swapped pairs that share
+ * a seeded random opening, so deterministic engines do not replay one game.
+ *
+ * Games run on a worker pool, one engine per entrant per worker thread. A
+ * round-robin cycle is queued at once; Swiss rounds wait for the previous one,
+ * since they pair entrants by points. Every finished game updates both
+ * ratings at once with one atomic add each (an Elo update is zero-sum), and
+ * the listener hears about it straight away, so standings stream in while the
+ * rest of the round is still being played.
+ */
+public final class Tournament {
+
+    public enum Pairing {
+        ROUND_ROBIN, SWISS;
+
+        public static Pairing forName(String name) {
+            switch (name.toLowerCase(Locale.ROOT)) {
+                case "roundrobin": case "round-robin": case "rr": return ROUND_ROBIN;
+                case "swiss": return SWISS;
+                default: throw new IllegalArgumentException("unknown pairing " + name + " (swiss, roundrobin)");
+            }
+        }
+    }
+
+    // Called on the worker thread that finished the game, after the ratings moved
+    public interface Listener {
+        void gameFinished(Tournament t, Entrant x, Entrant o, GameSession.Outcome outcome);
+    }
+
+    public static final double INITIAL_RATING = 1500;
+    private static final double K = 24;
+
+    // One player on the ladder; tallies and rating are updated from many threads
+    public static final class Entrant {
+        public final String spec;
+        final int id;
+        final String strategy;    // null for random and human
+        final int depth;          // alpha-beta plies, 0 = until the budget runs out
+        final long budgetMs;
+        final boolean random, human;
+
+        private final AtomicLong ratingMilli = new AtomicLong(Math.round(INITIAL_RATING * 1000));
+        private final LongAdder wins = new LongAdder(), draws = new LongAdder(), losses = new LongAdder();
+        private final LongAdder byes = new LongAdder();
+
+        Entrant(String spec, int id, long defaultBudgetMs) {
+            this.spec = spec;
+            this.id = id;
+            String[] parts = spec.toLowerCase(Locale.ROOT).split("/");
+            random = parts[0].equals("random");
+            human = parts[0].equals("human");
+            strategy = random || human ? null : parts[0];
+            int d = 0;
+            long budget = defaultBudgetMs;
+            for (int i = 1; i < parts.length; i++) {
+                if (parts[i].startsWith("d")) d = Integer.parseInt(parts[i].substring(1));
+                else if (parts[i].endsWith("ms")) budget = Long.parseLong(parts[i].substring(0, parts[i].length() - 2));
+                else throw new IllegalArgumentException("bad entrant option " + parts[i] + " in " + spec + " (d<plies>, <ms>ms)");
+            }
+            depth = d;
+            budgetMs = budget;
+        }
+
+        public String name() { return spec; }
+        public double rating() { return ratingMilli.get() / 1000.0; }
+        public long wins() { return wins.sum(); }
+        public long draws() { return draws.sum(); }
+        public long losses() { return losses.sum(); }
+        public long games() { return wins() + draws() + losses(); }
+
+        // Swiss points: 1 per win, 1/2 per draw; a bye counts as winning every game of the pairing
+        public double points() {
+            return wins() + byes.sum() + draws() / 2.0;
+        }
+
+        GameEngine engine(MnkRules rules) {
+            GameEngine e = new GameEngine(rules, 1).depthLimit(depth);
+            if (!strategy.equals("alphabeta") && !strategy.equals("ab")) e.strategy(AiStrategy.forName(strategy, rules, 1));
+            return e;
+        }
+    }
+
+    private final MnkRules rules;
+    private final List<Entrant> entrants = new ArrayList<>();
+    private final Pairing pairing;
+    private final int gamesPerPairing;
+    private final int openingPlies;
+    private final long seed;
+    private final ExecutorService pool;
+    private final AtomicBoolean stopped = new AtomicBoolean();
+    private final LongAdder played = new LongAdder();
+    private final ConcurrentLinkedQueue<GameEngine> engines = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<Map<Entrant, GameEngine>> threadEngines = ThreadLocal.withInitial(HashMap::new);
+    private volatile Listener listener;
+    private int[][] met;       // games scheduled per pair; scheduling thread only
+    private int rounds;
+
+    public Tournament(MnkRules rules, List<String> specs, Pairing pairing, int gamesPerPairing, int threads,
+                      long budgetMs, int openingPlies, long seed) {
+        this.rules = rules;
+        this.pairing = pairing;
+        this.gamesPerPairing = Math.max(1, gamesPerPairing);
+        this.openingPlies = openingPlies;
+        this.seed = seed;
+        for (String s : specs) {
+            Entrant e = new Entrant(s.trim(), entrants.size(), budgetMs);
+            if (e.strategy != null) AiStrategy.forName(e.strategy, rules, 1).shutdown();   // fail fast on a bad name
+            entrants.add(e);
+        }
+        met = new int[entrants.size()][entrants.size()];
+        pool = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread t = new Thread(r, "neon-tournament");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);   // an interactive game on the same machine comes first
+            return t;
+        });
+    }
+
+    public Tournament listener(Listener l) {
+        this.listener = l;
+        return this;
+    }
+
+    public MnkRules rules() { return rules; }
+    public List<Entrant> entrants() { return entrants; }
+    public long gamesPlayed() { return played.sum(); }
+    public int roundsPlayed() { return rounds; }
+
+    public Entrant entrant(String spec) {
+        for (Entrant e : entrants) if (e.spec.equalsIgnoreCase(spec)) return e;
+        return null;
+    }
+
+    // Entrants by rating, best first, from one consistent read of the ratings
+    public Entrant[] standings() {
+        long[] r = new long[entrants.size()];
+        for (Entrant e : entrants) r[e.id] = e.ratingMilli.get();
+        Entrant[] out = entrants.toArray(new Entrant[0]);
+        Arrays.sort(out, (a, b) -> Long.compare(r[b.id], r[a.id]));
+        return out;
+    }
+
+    // Play rounds (until stop() if rounds <= 0); returns once they are all finished
+    public void run(int maxRounds) throws InterruptedException {
+        try {
+            while (!stopped.get() && (maxRounds <= 0 || rounds < maxRounds)) {
+                List<Future<?>> games = new ArrayList<>();
+                int batch = pairing == Pairing.ROUND_ROBIN ? Math.max(1, cycleLength()) : 1;
+                if (maxRounds > 0) batch = Math.min(batch, maxRounds - rounds);
+                for (int b = 0; b < batch; b++) {
+                    List<Entrant[]> pairs = pairing == Pairing.SWISS ? swissPairs() : roundRobinPairs(rounds);
+                    for (int p = 0; p < pairs.size(); p++) schedule(pairs.get(p), rounds, p, games);
+                    rounds++;
+                }
+                for (Future<?> f : games) f.get();
+            }
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("tournament game failed", ex.getCause());
+        } catch (CancellationException ex) {
+            // stopped: games that had not started were dropped
+        } catch (RejectedExecutionException ex) {
+            if (!stopped.get()) throw ex;   // stop() shut the pool between the check and a submit
+        } finally {
+            if (stopped.get() || maxRounds > 0) shutdown();
+        }
+    }
+
+    // Stop after the games in flight; safe from any thread
+    public void stop() {
+        stopped.set(true);
+        for (Runnable r : pool.shutdownNow()) ((Future<?>) r).cancel(false);
+    }
+
+    // A game played elsewhere (e.g. the human's games in the UI) counts like a scheduled one
+    public void record(Entrant x, Entrant o, GameSession.Outcome outcome) {
+        double sx = outcome == GameSession.Outcome.X_WINS ? 1 : outcome == GameSession.Outcome.DRAW ? 0.5 : 0;
+        double expected = 1 / (1 + Math.pow(10, (o.rating() - x.rating()) / 400));
+        long delta = Math.round(K * (sx - expected) * 1000);
+        x.ratingMilli.addAndGet(delta);
+        o.ratingMilli.addAndGet(-delta);
+        tally(x, sx);
+        tally(o, 1 - sx);
+        played.increment();
+        Listener l = listener;
+        if (l != null) l.gameFinished(this, x, o, outcome);
+    }
+
+    private static void tally(Entrant e, double score) {
+        (score == 1 ? e.wins : score == 0 ? e.losses : e.draws).increment();
+    }
+
+    private void schedule(Entrant[] pair, int round, int index, List<Future<?>> out) {
+        Entrant a = pair[0], b = pair[1];
+        if (b == null) {                        // Swiss bye
+            a.byes.add(gamesPerPairing);
+            return;
+        }
+        met[a.id][b.id]++;
+        met[b.id][a.id]++;
+        for (int g = 0; g < gamesPerPairing; g++) {
+            Entrant x = g % 2 == 0 ? a : b, o = g % 2 == 0 ? b : a;
+            // both colours of a pair share the opening
+            long gameSeed = seed ^ (round * 0x9E3779B97F4A7C15L) ^ ((long) index << 32) ^ (g / 2) * 0xBF58476D1CE4E5B9L;
+            out.add(pool.submit(() -> {
+                GameSession.Outcome outcome = play(x, o, gameSeed);
+                if (outcome != GameSession.Outcome.ONGOING) record(x, o, outcome);
+            }));
+        }
+    }
+
+    private GameSession.Outcome play(Entrant x, Entrant o, long gameSeed) {
+        SplittableRandom rnd = new SplittableRandom(gameSeed);
+        GameSession session = new GameSession(rules);
+        int[] free = new int[rules.cells()];
+        for (int p = 0; p < openingPlies && session.isActive(); p++) {
+            session.play(free[rnd.nextInt(session.board().legalMoves(free))]);
+        }
+        while (session.isActive()) {
+            if (stopped.get()) return GameSession.Outcome.ONGOING;
+            Entrant e = session.current() == GameState.X ? x : o;
+            GameState b = session.board();
+            int mv = e.random ? -1 : engine(e).bestMove(b, e.budgetMs, stopped);
+            if (mv < 0 || !session.isLegal(mv)) mv = free[rnd.nextInt(b.legalMoves(free))];
+            session.play(mv);
+        }
+        return session.outcome();
+    }
+
+    private GameEngine engine(Entrant e) {
+        return threadEngines.get().computeIfAbsent(e, k -> {
+            GameEngine g = k.engine(rules);
+            engines.add(g);
+            return g;
+        });
+    }
+
+    private void shutdown() {
+        pool.shutdownNow();
+        for (GameEngine e : engines) e.shutdown();
+    }
+
+    // ---- pairings ----
+
+    private List<Entrant> scheduled() {
+        List<Entrant> out = new ArrayList<>();
+        for (Entrant e : entrants) if (!e.human) out.add(e);
+        return out;
+    }
+
+    private int cycleLength() {
+        int n = scheduled().size();
+        return n % 2 == 0 ? n - 1 : n;
+    }
+
+    // Circle method: the first entrant stays, the rest rotate one place per round
+    private List<Entrant[]> roundRobinPairs(int round) {
+        List<Entrant> ring = scheduled();
+        if (ring.size() % 2 == 1) ring.add(null);
+        int n = ring.size();
+        List<Entrant[]> pairs = new ArrayList<>();
+        if (n < 2) return pairs;
+        Entrant[] seat = new Entrant[n];
+        seat[0] = ring.get(0);
+        for (int i = 1; i < n; i++) seat[i] = ring.get(1 + (i - 1 + round) % (n - 1));
+        for (int i = 0; i < n / 2; i++) {
+            Entrant a = seat[i], b = seat[n - 1 - i];
+            if (a != null && b != null) pairs.add(new Entrant[] {a, b});
+        }
+        return pairs;
+    }
+
+    // By points then rating, each entrant against the next one it has met least; the
+    // lowest ranked entrant without a bye yet sits out an odd round
+    private List<Entrant[]> swissPairs() {
+        List<Entrant> order = scheduled();
+        order.sort((a, b) -> a.points() != b.points() ? Double.compare(b.points(), a.points())
+                : Double.compare(b.rating(), a.rating()));
+        List<Entrant[]> pairs = new ArrayList<>();
+        if (order.size() % 2 == 1) {
+            Entrant bye = order.get(order.size() - 1);
+            for (int i = order.size() - 1; i >= 0; i--) {
+                if (order.get(i).byes.sum() < bye.byes.sum()) bye = order.get(i);
+            }
+            order.remove(bye);
+            pairs.add(new Entrant[] {bye, null});
+        }
+        boolean[] taken = new boolean[order.size()];
+        for (int i = 0; i < order.size(); i++) {
+            if (taken[i]) continue;
+            int best = -1;
+            for (int j = i + 1; j < order.size(); j++) {
+                if (!taken[j] && (best < 0 || met[order.get(i).id][order.get(j).id] < met[order.get(i).id][order.get(best).id])) best = j;
+            }
+            taken[i] = taken[best] = true;
+            pairs.add(new Entrant[] {order.get(i), order.get(best)});
+        }
+        return pairs;
+    }
+
+    // ---- command line ----
+
+    public static void main(String[] args) throws InterruptedException {
+        MnkRules rules = MnkRules.CLASSIC;
+        String entrants = null;
+        Pairing pairing = Pairing.SWISS;
+        int rounds = -1;
+        int games = 2;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long budget = 50;
+        int opening = -1;
+        long seed = 1;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--variant": rules = MnkRules.forName(args[++i]); break;
+                case "--entrants": entrants = args[++i]; break;
+                case "--pairing": pairing = Pairing.forName(args[++i]); break;
+                case "--rounds": rounds = Integer.parseInt(args[++i]); break;
+                case "--games": games = Integer.parseInt(args[++i]); break;
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                case "--budget": budget = Long.parseLong(args[++i]); break;
+                case "--opening": opening = Integer.parseInt(args[++i]); break;
+                case "--seed": seed = Long.parseLong(args[++i]); break;
+                default: throw new IllegalArgumentException("unknown option " + args[i]);
+            }
+        }
+        if (entrants == null) entrants = defaultEntrants(rules);
+        if (opening < 0) opening = rules == MnkRules.CLASSIC ? 1 : 2;
+        Tournament t = new Tournament(rules, Arrays.asList(entrants.split(",")), pairing, games, threads, budget, opening, seed);
+        int n = t.scheduled().size();
+        if (rounds < 0) rounds = pairing == Pairing.ROUND_ROBIN ? t.cycleLength() : 32 - Integer.numberOfLeadingZeros(n) + 1;
+        System.out.printf("Tournament: %s, %d entrants, %s, %d rounds, %d games per pairing, %d threads%n",
+                rules, n, pairing.name().toLowerCase(Locale.ROOT), rounds, games, threads);
+
+        long t0 = System.nanoTime();
+        t.listener((tt, x, o, outcome) -> {
+            synchronized (System.out) {
+                System.out.printf("  %-18s vs %-18s %s%n", x.spec, o.spec, outcome);
+            }
+        });
+        t.run(rounds);
+        System.out.printf("%n%d games in %.1f s%n", t.gamesPlayed(), (System.nanoTime() - t0) / 1e9);
+        System.out.printf("%-4s %-20s %8s %6s %6s %6s %7s%n", "#", "entrant", "rating", "won", "drawn", "lost", "points");
+        Entrant[] table = t.standings();
+        for (int i = 0; i < table.length; i++) {
+            Entrant e = table[i];
+            System.out.printf("%-4d %-20s %8.1f %6d %6d %6d %7.1f%n",
+                    i + 1, e.spec, e.rating(), e.wins(), e.draws(), e.losses(), e.points());
+        }
+    }
+
+    // A spread of strengths for the variant: full or deep search, a shallow one, MCTS levels, random
+    static String defaultEntrants(MnkRules rules) {
+        if (rules == MnkRules.CLASSIC) return "alphabeta,mcts:hard,mcts:medium,mcts:easy,random";
+        return "alphabeta/d4,alphabeta/d2,mcts:hard,mcts:easy,random";
+    }
+}
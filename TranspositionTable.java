@@ -0,0 +1,105 @@
+/**
+ * TranspositionTable.java
+ * Fixed-size, always-replace hash table of search results.
+ *
+ * Each slot holds the 64-bit key XOR-ed with one packed entry:
+ * value (32 bits) | best move (16) | generation (6) | depth (8) | flag (2).
+ * A packed entry of 0 means "empty", so flags start at 1. The generation tags
+ * entries with the root search that wrote them (see {@link #newSearch()}).
+ *
+ * Storing key ^ entry makes the table safe to share between search threads
+ * without locks: a slot torn by two concurrent writers no longer matches its
+ * key and simply reads as a miss. The hit/miss counters are plain fields and
+ * only approximate while several threads use the table.
+ */
+public final class TranspositionTable {
+
+    public static final int EXACT = 1, LOWER = 2, UPPER = 3;
+
+    private final long[] keys;
+    private final long[] data;
+    private final int shift;
+
+    private long hits, misses, stores;
+    private int generation;
+
+    public TranspositionTable(int log2Size) {
+        if (log2Size < 1 || log2Size > 28) throw new IllegalArgumentException("log2Size out of range: " + log2Size);
+        keys = new long[1 << log2Size];
+        data = new long[1 << log2Size];
+        shift = 64 - log2Size;
+    }
+
+    private int slot(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+    }
+
+    // Packed entry for key, or 0 on a miss
+    public long probe(long key) {
+        int i = slot(key);
+        long e = data[i];
+        if (e != 0 && (keys[i] ^ e) == key) {
+            hits++;
+            return e;
+        }
+        misses++;
+        return 0;
+    }
+
+    public void store(long key, int value, int flag, int depth, int move) {
+        int i = slot(key);
+        long e = pack(value, flag, depth, move, generation);
+        keys[i] = key ^ e;
+        data[i] = e;
+        stores++;
+    }
+
+    // Start a new root search; older entries stay usable for move ordering
+    public void newSearch() {
+        generation = (generation + 1) & 0x3F;
+    }
+
+    public int generation() { return generation; }
+
+    public void clear() {
+        java.util.Arrays.fill(keys, 0);
+        java.util.Arrays.fill(data, 0);
+        resetStats();
+    }
+
+    public void resetStats() {
+        hits = misses = stores = 0;
+    }
+
+    public long hits() { return hits; }
+    public long misses() { return misses; }
+    public long stores() { return stores; }
+    public int capacity() { return keys.length; }
+
+    public double hitRate() {
+        long n = hits + misses;
+        return n == 0 ? 0 : (double) hits / n;
+    }
+
+    // ---- entry packing ----
+
+    static long pack(int value, int flag, int depth, int move, int generation) {
+        return ((long) value << 32)
+                | ((long) (move & 0xFFFF) << 16)
+                | ((long) (generation & 0x3F) << 10)
+                | ((long) (depth & 0xFF) << 2)
+                | (flag & 0x3);
+    }
+
+    public static int value(long e) { return (int) (e >> 32); }
+    public static int move(long e) { return (short) (e >>> 16); }
+    public static int depth(long e) { return (int) (e >>> 2) & 0xFF; }
+    public static int generation(long e) { return (int) (e >>> 10) & 0x3F; }
+    public static int flag(long e) { return (int) e & 0x3; }
+
+    @Override
+    public String toString() {
+        return String.format("TT[%d slots] hits=%d misses=%d stores=%d (%.1f%% hit)",
+                capacity(), hits, misses, stores, 100 * hitRate());
+    }
+}
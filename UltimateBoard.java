@@ -0,0 +1,260 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * UltimateBoard.java
+ * Ultimate tic-tac-toe: nine 3x3 boards in a 3x3 arrangement, cells numbered row-major on the 9x9 grid.
+ *
+ * A move is played in the small board that matches the cell of the previous
+ * move (anywhere open if that board is already decided). Winning a small board
+ * claims its square on the big board; three claimed squares in a line win the
+ * game, and the game is drawn when every small board is decided without that.
+ * Both levels use {@link BitBoard#WIN_MASKS}.
+ *
+ * Each small board is two 9-bit masks, so its status, heuristic value and
+ * winning cells are single lookups in 512x512 tables built once. play() and
+ * undo() update one small board, the big board masks, the running score and the
+ * Zobrist hash in O(1); the only history kept is the previous forced board.
+ */
+public final class UltimateBoard implements GameState {
+
+    public static final int CELLS = 81;
+    public static final int ANY = -1;                // no forced small board
+
+    static final int OPEN = 0, X_WON = 1, O_WON = 2, DRAWN = 3;
+
+    // ---- per small board tables, indexed by x << 9 | o ----
+
+    static final byte[] STATUS = new byte[1 << 18];
+    static final short[] VALUE = new short[1 << 18];     // heuristic for X of an open board
+    static final short[] WINNING = new short[1 << 18];   // empty cells that complete a line for x
+    private static final short[] POTENTIAL = new short[1 << 18];   // x's open lines, weighted
+
+    // stones in an open line: 0 / 1 / 2
+    private static final int[] LINE_WEIGHT = {0, 1, 6};
+    private static final int MACRO_WEIGHT = 24;
+
+    // cell <-> (small board, inner cell)
+    static final byte[] SUB = new byte[CELLS], IN = new byte[CELLS];
+    static final byte[][] CELL = new byte[9][9];
+
+    private static final long[][] ZOBRIST = new long[CELLS][3];
+    private static final long[] FORCED_KEY = new long[10];   // index forced + 1
+
+    static {
+        for (int i = 0; i < CELLS; i++) {
+            int r = i / 9, c = i % 9;
+            SUB[i] = (byte) ((r / 3) * 3 + c / 3);
+            IN[i] = (byte) ((r % 3) * 3 + c % 3);
+            CELL[SUB[i]][IN[i]] = (byte) i;
+        }
+        for (int x = 0; x <= BitBoard.FULL; x++) {
+            for (int o = 0; o <= BitBoard.FULL; o++) {
+                if ((x & o) != 0) continue;
+                int idx = x << 9 | o;
+                STATUS[idx] = (byte) (BitBoard.isWin(x) ? X_WON : BitBoard.isWin(o) ? O_WON
+                        : (x | o) == BitBoard.FULL ? DRAWN : OPEN);
+                int pot = 0, win = 0;
+                for (int w : BitBoard.WIN_MASKS) {
+                    if ((w & o) != 0) continue;
+                    int n = Integer.bitCount(w & x);
+                    if (n < 3) pot += LINE_WEIGHT[n];
+                    if (n == 2) win |= w & ~x;
+                }
+                POTENTIAL[idx] = (short) pot;
+                WINNING[idx] = (short) win;
+            }
+        }
+        for (int x = 0; x <= BitBoard.FULL; x++) {
+            for (int o = 0; o <= BitBoard.FULL; o++) {
+                if ((x & o) != 0) continue;
+                VALUE[x << 9 | o] = (short) (POTENTIAL[x << 9 | o] - POTENTIAL[o << 9 | x]);
+            }
+        }
+        SplittableRandom rnd = new SplittableRandom(0x9E3779B97F4A7C15L);
+        for (long[] z : ZOBRIST) for (int s = 1; s <= 2; s++) z[s] = rnd.nextLong();
+        for (int f = 0; f < FORCED_KEY.length; f++) FORCED_KEY[f] = rnd.nextLong();
+    }
+
+    private final int[] x = new int[9], o = new int[9];   // stones per small board
+    private final int[] history = new int[CELLS + 1];     // forced board before each move
+    private int macroX, macroO, decided;                  // claimed / decided small boards
+    private int forced = ANY;
+    private int toMove = X;
+    private int winner = EMPTY;
+    private int stones;
+    private int score;                                    // sum of open small board values, X's view
+    private long hash = FORCED_KEY[0];
+
+    @Override public int rows() { return 9; }
+    @Override public int cols() { return 9; }
+    @Override public int size() { return CELLS; }
+
+    @Override
+    public int cell(int i) {
+        int bit = 1 << IN[i], s = SUB[i];
+        return (x[s] & bit) != 0 ? X : (o[s] & bit) != 0 ? O : EMPTY;
+    }
+
+    @Override
+    public boolean isEmpty(int i) {
+        return ((x[SUB[i]] | o[SUB[i]]) & (1 << IN[i])) == 0;
+    }
+
+    // Empty, in an open small board, and in the forced one if there is one
+    @Override
+    public boolean isLegal(int i) {
+        int s = SUB[i];
+        return winner == EMPTY && (forced == ANY || forced == s) && (decided & (1 << s)) == 0 && isEmpty(i);
+    }
+
+    @Override
+    public int legalMoves(int[] out) {
+        if (winner != EMPTY) return 0;
+        int n = 0;
+        if (forced != ANY) return movesIn(forced, out, 0);
+        for (int s = 0; s < 9; s++) if ((decided & (1 << s)) == 0) n = movesIn(s, out, n);
+        return n;
+    }
+
+    private int movesIn(int s, int[] out, int n) {
+        byte[] cells = CELL[s];
+        for (int free = ~(x[s] | o[s]) & BitBoard.FULL; free != 0; free &= free - 1) {
+            out[n++] = cells[Integer.numberOfTrailingZeros(free)];
+        }
+        return n;
+    }
+
+    @Override public int toMove() { return toMove; }
+    @Override public int winner() { return winner; }
+
+    // No legal move left: every small board is decided
+    @Override
+    public boolean isFull() {
+        return decided == BitBoard.FULL;
+    }
+
+    public int forced() { return forced; }
+    public int stones() { return stones; }
+    public long hash() { return hash; }
+    public int xMask(int s) { return x[s]; }
+    public int oMask(int s) { return o[s]; }
+    public int macroX() { return macroX; }
+    public int macroO() { return macroO; }
+    public int decided() { return decided; }
+
+    // OPEN, X_WON, O_WON or DRAWN
+    public int status(int s) {
+        return STATUS[x[s] << 9 | o[s]];
+    }
+
+    @Override
+    public void play(int i, int side) {
+        int s = SUB[i], bit = 1 << IN[i];
+        history[stones++] = forced;
+        hash ^= FORCED_KEY[forced + 1] ^ ZOBRIST[i][side];
+        int before = x[s] << 9 | o[s];
+        if (side == X) x[s] |= bit; else o[s] |= bit;
+        int after = x[s] << 9 | o[s];
+        score += VALUE[after] - VALUE[before];
+        int st = STATUS[after];
+        if (st != OPEN) {
+            score -= VALUE[after];                         // decided boards count on the big board only
+            decided |= 1 << s;
+            if (st == X_WON) macroX |= 1 << s;
+            else if (st == O_WON) macroO |= 1 << s;
+            if (BitBoard.isWin(side == X ? macroX : macroO)) winner = side;
+        }
+        int next = IN[i];
+        forced = (decided & (1 << next)) != 0 ? ANY : next;
+        hash ^= FORCED_KEY[forced + 1];
+        toMove = opponent(side);
+    }
+
+    @Override
+    public void undo(int i, int side) {
+        int s = SUB[i], bit = 1 << IN[i];
+        hash ^= FORCED_KEY[forced + 1] ^ ZOBRIST[i][side];
+        int before = x[s] << 9 | o[s];
+        if (STATUS[before] != OPEN) {
+            decided &= ~(1 << s);
+            macroX &= ~(1 << s);
+            macroO &= ~(1 << s);
+            winner = EMPTY;
+            score += VALUE[before];
+        }
+        if (side == X) x[s] &= ~bit; else o[s] &= ~bit;
+        score += VALUE[x[s] << 9 | o[s]] - VALUE[before];
+        forced = history[--stones];
+        hash ^= FORCED_KEY[forced + 1];
+        toMove = side;
+    }
+
+    // Heuristic for side: open small boards plus the big board, where drawn
+    // squares block lines for both players
+    public int evaluate(int side) {
+        int macro = POTENTIAL[macroX << 9 | (macroO | (decided & ~macroX))]
+                - POTENTIAL[macroO << 9 | (macroX | (decided & ~macroO))];
+        int v = score + MACRO_WEIGHT * macro;
+        return side == X ? v : -v;
+    }
+
+    // Small boards that side could win on its next move in them
+    public int threatBoards(int side) {
+        int m = 0;
+        for (int s = 0; s < 9; s++) {
+            if ((decided & (1 << s)) != 0) continue;
+            int idx = side == X ? x[s] << 9 | o[s] : o[s] << 9 | x[s];
+            if (WINNING[idx] != 0) m |= 1 << s;
+        }
+        return m;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(x, 0);
+        Arrays.fill(o, 0);
+        macroX = macroO = decided = 0;
+        forced = ANY;
+        toMove = X;
+        winner = EMPTY;
+        stones = 0;
+        score = 0;
+        hash = FORCED_KEY[0];
+    }
+
+    // The winning line of small boards, each shown by its own winning line
+    @Override
+    public int[] winningCells() {
+        if (winner == EMPTY) return new int[0];
+        int[] out = new int[9];
+        int n = 0;
+        for (int m = BitBoard.winLine(winner == X ? macroX : macroO); m != 0; m &= m - 1) {
+            int s = Integer.numberOfTrailingZeros(m);
+            for (int c = BitBoard.winLine(winner == X ? x[s] : o[s]); c != 0; c &= c - 1) out[n++] = CELL[s][Integer.numberOfTrailingZeros(c)];
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    @Override
+    public UltimateBoard copy() {
+        UltimateBoard b = new UltimateBoard();
+        System.arraycopy(x, 0, b.x, 0, 9);
+        System.arraycopy(o, 0, b.o, 0, 9);
+        System.arraycopy(history, 0, b.history, 0, stones);
+        b.macroX = macroX;
+        b.macroO = macroO;
+        b.decided = decided;
+        b.forced = forced;
+        b.toMove = toMove;
+        b.winner = winner;
+        b.stones = stones;
+        b.score = score;
+        b.hash = hash;
+        return b;
+    }
+
+    private static int opponent(int side) {
+        return side == X ? O : X;
+    }
+}
@@ -0,0 +1,293 @@
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * UltimateSearch.java
+ * Iterative-deepening negamax alpha-beta for {@link UltimateBoard} under a time budget.
+ *
+ * Same shape as {@link MnkSearch}: a transposition table keyed on the board's
+ * Zobrist hash (which includes the forced small board), TT move first, history
+ * bonus, and the best root move of the last finished iteration kept if time runs
+ * out. The static ordering comes straight from the board's per small board
+ * tables: winning a small board, then blocking one, and a penalty for sending
+ * the opponent to a board they can win or letting them play anywhere. Leaves use
+ * the board's incremental evaluation, so a node costs a few table lookups.
+ *
+ * Not thread-safe: one instance per searching thread. The board is restored
+ * before bestMove returns.
+ */
+public final class UltimateSearch {
+
+    // Interactive pace when the caller sets no depth: deepen to DEFAULT_DEPTH plies but
+    // stop after MOVE_BUDGET_MS; depth 8 finishes inside that on almost every position
+    public static final int DEFAULT_DEPTH = Integer.getInteger("neon.ultimate.depth", 10);
+    public static final long MOVE_BUDGET_MS = Long.getLong("neon.ultimate.budgetMs", 80);
+
+    private static final int WIN = MnkSearch.WIN, MATE_BOUND = MnkSearch.MATE_BOUND;
+    private static final int INF = Integer.MAX_VALUE - 1;
+
+    private final TranspositionTable tt;
+    private final int[][] moveBuf = new int[UltimateBoard.CELLS + 1][UltimateBoard.CELLS];
+    private final int[][] orderBuf = new int[UltimateBoard.CELLS + 1][UltimateBoard.CELLS];
+    private final int[] history = new int[UltimateBoard.CELLS];
+    private AtomicBoolean cancel;
+
+    private long nodes;
+    private long cutoffs;
+    private long deadline;
+    private boolean stopped;
+    private int completedDepth;
+    private int lastScore;
+
+    public UltimateSearch() {
+        this(new TranspositionTable(20));
+    }
+
+    public UltimateSearch(TranspositionTable tt) {
+        this.tt = tt;
+    }
+
+    public long nodes() { return nodes; }
+    public long cutoffs() { return cutoffs; }
+    public int completedDepth() { return completedDepth; }
+    public int lastScore() { return lastScore; }
+    public TranspositionTable table() { return tt; }
+
+    // Best move for the side to move, searching until the budget or maxDepth runs out
+    // (budget <= 0 means no deadline); cancel (nullable) stops it early
+    public int bestMove(UltimateBoard board, long budgetMillis, int maxDepth, AtomicBoolean cancel) {
+        nodes = 0;
+        cutoffs = 0;
+        stopped = false;
+        deadline = budgetMillis > 0 ? System.nanoTime() + budgetMillis * 1_000_000L : Long.MAX_VALUE;
+        this.cancel = cancel;
+        completedDepth = 0;
+        java.util.Arrays.fill(history, 0);
+        tt.newSearch();
+
+        int[] moves = moveBuf[0];
+        int n = generate(board, moves, orderBuf[0], -1);
+        if (n == 0) return -1;
+        int best = moves[0];
+        lastScore = 0;
+        if (n == 1) return best;
+
+        int side = board.toMove();
+        for (int depth = 1; depth <= maxDepth && !stopped; depth++) {
+            int alpha = -INF, iterBest = -1, iterScore = -INF;
+            for (int m = 0; m < n; m++) {
+                int mv = moves[m];
+                board.play(mv, side);
+                int v = -negamax(board, depth - 1, -INF, -alpha, 1);
+                board.undo(mv, side);
+                if (stopped) break;
+                if (v > iterScore) {
+                    iterScore = v;
+                    iterBest = mv;
+                }
+                if (v > alpha) alpha = v;
+            }
+            if (iterBest >= 0) {
+                best = iterBest;
+                lastScore = iterScore;
+                moveToFront(moves, n, best);
+            }
+            if (stopped) break;
+            completedDepth = depth;
+            if (Math.abs(lastScore) >= MATE_BOUND) break;
+        }
+        return best;
+    }
+
+    private int negamax(UltimateBoard b, int depth, int alpha, int beta, int ply) {
+        if (b.winner() != GameState.EMPTY) return -(WIN - ply);   // the previous move won the big board
+        if (b.isFull()) return 0;
+        int side = b.toMove();
+        if (depth <= 0) return b.evaluate(side);
+
+        if ((++nodes & 1023) == 0 && (System.nanoTime() > deadline || (cancel != null && cancel.get()))) {
+            stopped = true;
+        }
+        if (stopped) return 0;
+
+        long key = b.hash();
+        int ttMove = -1;
+        long e = tt.probe(key);
+        if (e != 0) {
+            ttMove = TranspositionTable.move(e);
+            if (TranspositionTable.generation(e) == tt.generation() && TranspositionTable.depth(e) >= depth) {
+                int v = fromTable(TranspositionTable.value(e), ply);
+                switch (TranspositionTable.flag(e)) {
+                    case TranspositionTable.EXACT: return v;
+                    case TranspositionTable.LOWER: if (v > alpha) alpha = v; break;
+                    case TranspositionTable.UPPER: if (v < beta) beta = v; break;
+                }
+                if (alpha >= beta) {
+                    cutoffs++;
+                    return v;
+                }
+            }
+        }
+
+        int[] moves = moveBuf[ply];
+        int n = generate(b, moves, orderBuf[ply], ttMove);
+        int alphaOrig = alpha;
+        int best = -INF, bestMove = -1;
+        for (int m = 0; m < n; m++) {
+            int mv = moves[m];
+            b.play(mv, side);
+            int v = -negamax(b, depth - 1, -beta, -alpha, ply + 1);
+            b.undo(mv, side);
+            if (stopped) return 0;
+            if (v > best) {
+                best = v;
+                bestMove = mv;
+            }
+            if (v > alpha) alpha = v;
+            if (alpha >= beta) {
+                cutoffs++;
+                if (history[mv] < 1 << 20) history[mv] += depth * depth;
+                break;
+            }
+        }
+
+        int flag = best <= alphaOrig ? TranspositionTable.UPPER
+                : best >= beta ? TranspositionTable.LOWER
+                : TranspositionTable.EXACT;
+        tt.store(key, toTable(best, ply), flag, depth, bestMove);
+        return best;
+    }
+
+    // ---- hooks for Analyzer: score root moves one by one ----
+
+    void start(long deadlineNanos, AtomicBoolean cancel) {
+        nodes = 0;
+        cutoffs = 0;
+        stopped = false;
+        deadline = deadlineNanos;
+        this.cancel = cancel;
+        java.util.Arrays.fill(history, 0);
+        tt.newSearch();
+    }
+
+    boolean stopped() { return stopped; }
+
+    int rootMoves(UltimateBoard b, int[] out) {
+        return generate(b, out, orderBuf[0], -1);
+    }
+
+    // Score of root move mv for the side that plays it, searched depth - 1 plies below
+    int searchRootMove(UltimateBoard b, int mv, int depth, int alpha, int beta) {
+        int side = b.toMove();
+        b.play(mv, side);
+        int v = -negamax(b, depth - 1, -beta, -alpha, 1);
+        b.undo(mv, side);
+        return v;
+    }
+
+    // Legal moves, best first: TT move, then static score plus history
+    private int generate(UltimateBoard b, int[] moves, int[] order, int ttMove) {
+        int count = b.legalMoves(moves);
+        int side = b.toMove();
+        int n = 0, first = -1;
+        for (int m = 0; m < count; m++) {
+            int mv = moves[m];
+            if (mv == ttMove) first = mv;
+            else n = insert(moves, order, n, mv, moveScore(b, mv, side) + history[mv]);
+        }
+        if (first >= 0) {
+            System.arraycopy(moves, 0, moves, 1, n);
+            moves[0] = first;
+            n++;
+        }
+        return n;
+    }
+
+    // Static ordering score of side playing cell i
+    static int moveScore(UltimateBoard b, int i, int side) {
+        int s = UltimateBoard.SUB[i], c = UltimateBoard.IN[i], bit = 1 << c;
+        int x = b.xMask(s), o = b.oMask(s);
+        int own = side == GameState.X ? x << 9 | o : o << 9 | x;
+        int opp = side == GameState.X ? o << 9 | x : x << 9 | o;
+        int score = 0;
+        boolean claims = (UltimateBoard.WINNING[own] & bit) != 0;
+        if (claims) score += 1 << 24;
+        else if ((UltimateBoard.WINNING[opp] & bit) != 0) score += 1 << 22;
+
+        // where the opponent must play next
+        boolean closed = (b.decided() & (1 << c)) != 0
+                || (c == s && (claims || ((x | o | bit) == BitBoard.FULL)));
+        if (closed) {
+            score -= 1 << 21;                                    // they may play anywhere
+        } else {
+            int nx = b.xMask(c), no = b.oMask(c);
+            if (c == s) {
+                if (side == GameState.X) nx |= bit; else no |= bit;
+            }
+            int theirs = side == GameState.X ? no << 9 | nx : nx << 9 | no;
+            if (UltimateBoard.WINNING[theirs] != 0) score -= 1 << 20;   // they claim that board
+        }
+        return score + (1 << 23);                               // non-negative for the history bonus
+    }
+
+    private static int insert(int[] moves, int[] order, int n, int mv, int s) {
+        int j = n;
+        while (j > 0 && order[j - 1] < s) {
+            order[j] = order[j - 1];
+            moves[j] = moves[j - 1];
+            j--;
+        }
+        order[j] = s;
+        moves[j] = mv;
+        return n + 1;
+    }
+
+    private static void moveToFront(int[] moves, int n, int mv) {
+        for (int i = 0; i < n; i++) {
+            if (moves[i] == mv) {
+                System.arraycopy(moves, 0, moves, 1, i);
+                moves[0] = mv;
+                return;
+            }
+        }
+    }
+
+    private static int toTable(int v, int ply) {
+        return v >= MATE_BOUND ? v + ply : v <= -MATE_BOUND ? v - ply : v;
+    }
+
+    private static int fromTable(int v, int ply) {
+        return v >= MATE_BOUND ? v - ply : v <= -MATE_BOUND ? v + ply : v;
+    }
+
+    // ---- benchmark ----
+
+    // java UltimateSearch [games] [depth]: self-play move times, and results against random play
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int depth = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_DEPTH;
+        UltimateSearch search = new UltimateSearch();
+        java.util.SplittableRandom rnd = new java.util.SplittableRandom(11);
+        LatencyHistogram times = new LatencyHistogram();
+        int[] results = new int[3];   // search wins, losses, draws
+        int[] legal = new int[UltimateBoard.CELLS];
+        for (int g = 0; g < games; g++) {
+            UltimateBoard b = new UltimateBoard();
+            int me = g % 2 == 0 ? GameState.X : GameState.O;
+            while (b.winner() == GameState.EMPTY && !b.isFull()) {
+                int mv;
+                if (b.toMove() == me) {
+                    long t0 = System.nanoTime();
+                    mv = search.bestMove(b, 0, depth, null);
+                    times.record(System.nanoTime() - t0);
+                } else {
+                    mv = legal[rnd.nextInt(b.legalMoves(legal))];
+                }
+                b.play(mv, b.toMove());
+            }
+            results[b.winner() == me ? 0 : b.winner() == GameState.EMPTY ? 2 : 1]++;
+        }
+        System.out.printf("depth %d vs random: %d won, %d lost, %d drawn%n", depth, results[0], results[1], results[2]);
+        System.out.printf("move time: p50 %.1f ms, p99 %.1f ms, max %.1f ms (%d moves)%n",
+                times.percentile(50) / 1e6, times.percentile(99) / 1e6, times.percentile(100) / 1e6, times.count());
+    }
+}
@@ -0,0 +1,50 @@
+package neon;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * MCTS playouts per second on one thread, from seeded mid-game positions
+ * (each invocation is one MEDIUM search; the tree is reused between calls).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MctsBenchmark {
+
+    private static final int PLAYOUTS = 2_000;   // MctsSearch.Difficulty.MEDIUM
+
+    @Param({"3x3", "5x5", "15x15"})
+    public String variant;
+
+    private GameState[] positions;
+    private MctsSearch mcts;
+    private int next;
+
+    @Setup
+    public void setup() {
+        MnkRules rules = MnkRules.forName(variant);
+        positions = new GameState[16];
+        if (rules == MnkRules.CLASSIC) {
+            System.arraycopy(Positions.classic(16, 3), 0, positions, 0, 16);
+        } else {
+            for (int i = 0; i < 16; i++) positions[i] = Positions.midgame(rules, 6 + i % 4, 100 + i);
+        }
+        mcts = new MctsSearch(rules, 1, MctsSearch.Difficulty.MEDIUM);
+    }
+
+    @TearDown
+    public void tearDown() {
+        mcts.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PLAYOUTS)
+    public int playouts() {
+        return mcts.bestMove(positions[next++ & 15], 0, null);
+    }
+}
@@ -0,0 +1,49 @@
+package neon;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Latency of one AI move from seeded mid-game positions, through GameEngine as
+ * the game uses it (the engine keeps its tables between moves). Larger boards
+ * search to a fixed depth so results do not depend on the time budget.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveLatencyBenchmark {
+
+    @Param({"3x3", "5x5", "15x15"})
+    public String variant;
+
+    private GameState[] positions;
+    private GameEngine engine;
+    private int next;
+
+    @Setup
+    public void setup() {
+        MnkRules rules = MnkRules.forName(variant);
+        positions = new GameState[16];
+        if (rules == MnkRules.CLASSIC) {
+            System.arraycopy(Positions.classic(16, 3), 0, positions, 0, 16);
+        } else {
+            for (int i = 0; i < 16; i++) positions[i] = Positions.midgame(rules, 6 + i % 4, 100 + i);
+        }
+        engine = new GameEngine(rules, 1).depthLimit(rules == MnkRules.GOMOKU ? 4 : 5);
+    }
+
+    @TearDown
+    public void tearDown() {
+        engine.shutdown();
+    }
+
+    @Benchmark
+    public int aiMove() {
+        GameState b = positions[next++ & 15];
+        return engine.bestMove(b, 0);
+    }
+}
@@ -0,0 +1,55 @@
+package neon;
+
+import java.util.Random;
+
+/**
+ * Fixed, seeded sample positions shared by the benchmarks, so runs compare like with like.
+ */
+final class Positions {
+
+    private Positions() {}
+
+    // n reachable, unfinished 3x3 boards with 2..7 stones
+    static BitBoard[] classic(int n, long seed) {
+        Random rnd = new Random(seed);
+        BitBoard[] out = new BitBoard[n];
+        for (int k = 0; k < n; ) {
+            BitBoard b = new BitBoard();
+            int stones = 2 + rnd.nextInt(6);
+            for (int s = 0; s < stones && b.winner() == GameState.EMPTY; s++) {
+                int free = b.emptyMask(), pick = rnd.nextInt(Integer.bitCount(free));
+                for (int i = 0; i < pick; i++) free &= free - 1;
+                b.play(Integer.numberOfTrailingZeros(free));
+            }
+            if (b.winner() == GameState.EMPTY && !b.isFull()) out[k++] = b;
+        }
+        return out;
+    }
+
+    // Any 3x3 boards (finished or not), for the win-detection loops
+    static BitBoard[] anyClassic(int n, long seed) {
+        Random rnd = new Random(seed);
+        BitBoard[] out = new BitBoard[n];
+        for (int k = 0; k < n; k++) {
+            BitBoard b = new BitBoard();
+            int stones = rnd.nextInt(10);
+            for (int s = 0; s < stones; s++) {
+                int free = b.emptyMask(), pick = rnd.nextInt(Integer.bitCount(free));
+                for (int i = 0; i < pick; i++) free &= free - 1;
+                b.play(Integer.numberOfTrailingZeros(free));
+            }
+            out[k] = b;
+        }
+        return out;
+    }
+
+    static String[] toStrings(BitBoard b) {
+        String[] out = new String[9];
+        for (int i = 0; i < 9; i++) out[i] = GameSession.symbol(b.cell(i));
+        return out;
+    }
+
+    static MnkBoard midgame(MnkRules rules, int stones, long seed) {
+        return ParallelSearch.randomPosition(rules, new Random(seed), stones);
+    }
+}
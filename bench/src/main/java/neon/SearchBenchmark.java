@@ -0,0 +1,77 @@
+package neon;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Full best-move search from the empty 3x3 board with each backend.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchBenchmark {
+
+    private TranspositionTable warm;
+    private TranspositionTable cold;
+    private Tablebase tablebase;
+    private MnkSearch mnk;
+    private MnkBoard mnkEmpty;
+
+    @Setup
+    public void setup() throws Exception {
+        warm = new TranspositionTable(14);
+        cold = new TranspositionTable(14);
+        java.nio.file.Path file = java.nio.file.Files.createTempFile("bench", ".tb");
+        Tablebase.generate(file);
+        tablebase = Tablebase.open(file);
+        mnk = new MnkSearch(MnkRules.CLASSIC);
+        mnkEmpty = new MnkBoard(MnkRules.CLASSIC);
+    }
+
+    // the original minimaxBestMove root loop over LegacySearch.minimaxBoard (no pruning)
+    @Benchmark
+    public int legacyCharMinimax() {
+        char[] b = {' ', ' ', ' ', ' ', ' ', ' ', ' ', ' ', ' '};
+        int bestScore = Integer.MIN_VALUE, bestMove = -1;
+        for (int i = 0; i < 9; i++) {
+            b[i] = 'O';
+            int score = LegacySearch.minimaxBoard(b, 0, false);
+            b[i] = ' ';
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = i;
+            }
+        }
+        return bestMove;
+    }
+
+    @Benchmark
+    public int bitboardAlphaBeta() {
+        return BitBoard.bestMove(0, 0);
+    }
+
+    @Benchmark
+    public int bitboardColdTable() {
+        cold.clear();
+        return BitBoard.bestMove(0, 0, cold);
+    }
+
+    @Benchmark
+    public int bitboardWarmTable() {
+        return BitBoard.bestMove(0, 0, warm);
+    }
+
+    @Benchmark
+    public int mnkIterativeDeepening() {
+        return mnk.bestMove(mnkEmpty, 0);
+    }
+
+    @Benchmark
+    public int tablebaseLookup() {
+        return tablebase.bestMove(0, 0);
+    }
+}
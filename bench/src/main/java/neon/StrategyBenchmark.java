@@ -0,0 +1,48 @@
+package neon;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Alpha-beta vs MCTS on the same seeded mid-game positions, one thread each:
+ * latency of one move, alpha-beta at a fixed depth and MCTS at the MEDIUM
+ * playout budget. MctsBenchmark has the raw playout rate.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StrategyBenchmark {
+
+    @Param({"5x5", "15x15"})
+    public String variant;
+
+    @Param({"alphabeta", "mcts:medium"})
+    public String strategy;
+
+    private MnkBoard[] positions;
+    private AiStrategy ai;
+    private int next;
+
+    @Setup
+    public void setup() {
+        MnkRules rules = MnkRules.forName(variant);
+        positions = new MnkBoard[16];
+        for (int i = 0; i < 16; i++) positions[i] = Positions.midgame(rules, 6 + i % 4, 100 + i);
+        ai = AiStrategy.forName(strategy, rules, 1);
+        if (ai instanceof AlphaBetaStrategy) ((AlphaBetaStrategy) ai).depthLimit(rules == MnkRules.GOMOKU ? 4 : 5);
+    }
+
+    @TearDown
+    public void tearDown() {
+        ai.shutdown();
+    }
+
+    @Benchmark
+    public int move() {
+        return ai.bestMove(positions[next++ & 15], 0, null);
+    }
+}
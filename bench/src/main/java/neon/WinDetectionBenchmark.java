@@ -0,0 +1,105 @@
+package neon;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Win detection over 1024 sample 3x3 boards per op: the bitboard win table and
+ * the per-pattern mask loop against the legacy char[] and String[] scans, plus
+ * the incremental m,n,k board on gomoku.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WinDetectionBenchmark {
+
+    private static final int N = 1024;
+
+    private int[] xMasks, oMasks;
+    private char[][] chars;
+    private String[][] strings;
+    private MnkBoard gomoku;
+    private int[] gomokuMoves;
+
+    @Setup
+    public void setup() {
+        BitBoard[] boards = Positions.anyClassic(N, 7);
+        xMasks = new int[N];
+        oMasks = new int[N];
+        chars = new char[N][];
+        strings = new String[N][];
+        for (int i = 0; i < N; i++) {
+            xMasks[i] = boards[i].xMask();
+            oMasks[i] = boards[i].oMask();
+            chars[i] = LegacySearch.toChars(boards[i]);
+            strings[i] = Positions.toStrings(boards[i]);
+        }
+        gomoku = Positions.midgame(MnkRules.GOMOKU, 20, 7);
+        int n = 0;
+        gomokuMoves = new int[gomoku.size()];
+        for (int i = 0; i < gomoku.size(); i++) if (gomoku.isEmpty(i)) gomokuMoves[n++] = i;
+        gomokuMoves = java.util.Arrays.copyOf(gomokuMoves, n);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N)
+    public int bitboardMasks() {
+        int wins = 0;
+        for (int i = 0; i < N; i++) {
+            if (BitBoard.isWin(xMasks[i])) wins++;
+            else if (BitBoard.isWin(oMasks[i])) wins += 2;
+        }
+        return wins;
+    }
+
+    // the per-pattern loop isWin used before the 512-entry table
+    @Benchmark
+    @OperationsPerInvocation(N)
+    public int bitboardMaskLoop() {
+        int wins = 0;
+        for (int i = 0; i < N; i++) {
+            if (loopWin(xMasks[i])) wins++;
+            else if (loopWin(oMasks[i])) wins += 2;
+        }
+        return wins;
+    }
+
+    private static boolean loopWin(int mask) {
+        for (int w : BitBoard.WIN_MASKS) if ((mask & w) == w) return true;
+        return false;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N)
+    public int legacyCharArray() {
+        int wins = 0;
+        for (int i = 0; i < N; i++) wins += LegacySearch.getWinner(chars[i]);
+        return wins;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N)
+    public int legacyStringArray() {
+        int wins = 0;
+        for (int i = 0; i < N; i++) wins += LegacySearch.getWinner(strings[i]);
+        return wins;
+    }
+
+    // play + winner + undo on a 20-stone 15x15 board: the per-node cost in MnkSearch
+    @Benchmark
+    @OperationsPerInvocation(N)
+    public int mnkIncrementalGomoku() {
+        int wins = 0, side = gomoku.toMove();
+        for (int i = 0; i < N; i++) {
+            int mv = gomokuMoves[i % gomokuMoves.length];
+            gomoku.play(mv, side);
+            wins += gomoku.winner();
+            gomoku.undo(mv, side);
+        }
+        return wins;
+    }
+}
@@ -0,0 +1,35 @@
+#!/bin/sh
+# Fast-start launch for kiosks: builds neon.jar once, trains a class archive once,
+# then starts every launch from it. Delete neon.jar and neon.jsa / neon.aot after
+# an update (archives only accept jar class paths, hence the jar).
+#
+#   JDK 24+   AOT cache (classes loaded and linked ahead of time)
+#   JDK 13+   dynamic CDS archive (classes parsed and verified ahead of time)
+#   older     plain launch
+#
+# Extra JVM options (e.g. -Dneon.ai.budgetMs=300) go in NEON_OPTS.
+set -e
+cd "$(dirname "$0")"
+
+if [ ! -f neon.jar ]; then
+    rm -rf out && mkdir out
+    javac -d out *.java
+    jar cf neon.jar -C out .
+    rm -rf out
+fi
+
+major=$(java -XshowSettings:properties -version 2>&1 | sed -n 's/^ *java\.specification\.version = \(1\.\)\{0,1\}\([0-9]*\).*/\2/p')
+
+if [ "$major" -ge 24 ]; then
+    if [ ! -f neon.aot ]; then
+        java -XX:AOTMode=record -XX:AOTConfiguration=neon.aotconf -cp neon.jar Launcher --train
+        java -XX:AOTMode=create -XX:AOTConfiguration=neon.aotconf -XX:AOTCache=neon.aot -cp neon.jar
+        rm -f neon.aotconf
+    fi
+    exec java -XX:AOTCache=neon.aot $NEON_OPTS -cp neon.jar Launcher "$@"
+elif [ "$major" -ge 13 ]; then
+    [ -f neon.jsa ] || java -XX:ArchiveClassesAtExit=neon.jsa -cp neon.jar Launcher --train
+    exec java -XX:SharedArchiveFile=neon.jsa $NEON_OPTS -cp neon.jar Launcher "$@"
+else
+    exec java $NEON_OPTS -cp neon.jar Launcher "$@"
+fi